@@ -1,20 +1,5 @@
-create table Cliente (
-	id int primary key auto_increment,
-    nome varchar(100) not null,
-    cpf varchar(14) not null unique,
-    data_nasc date not null,
-    endereco varchar(255)
-);
+-- O esquema agora é criado e evoluído pelas migrações versionadas em
+-- src/main/resources/migracoes, aplicadas automaticamente na subida da aplicação
+-- (tabela de controle: schema_migracoes). Aqui fica só a criação do banco.
 
-
-create table Contato(
-	id int primary key auto_increment,
-    cliente_id int not null,
-    tipo varchar(50) not null,
-    valor varchar(100) not null,
-    observacao varchar(255),
-    FOREIGN KEY (cliente_id) REFERENCES Cliente(id)
-);
-
-ALTER TABLE Cliente 
-CHANGE COLUMN data_nasc data_nascimento DATE NOT NULL;
+CREATE DATABASE IF NOT EXISTS agenda;
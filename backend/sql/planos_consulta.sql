@@ -0,0 +1,34 @@
+-- Conferência dos planos das consultas dos DAOs antes e depois da migração V002, no MySQL.
+-- Os planos da listagem e dos contatos por cliente também são conferidos no H2 pelo teste
+-- br.com.contatos.dao.PlanosConsultaTest (mvn test), que aplica as próprias migrações.
+-- Rodar com o banco populado (o otimizador ignora índices em tabelas quase vazias):
+--     mysql agenda < sql/planos_consulta.sql
+-- Antes da V002 o esperado está em "antes"; depois de aplicada, em "depois".
+
+-- RF04: primeira página da listagem (ClienteDAO.sqlListagem)
+--   antes:  type=ALL, Extra=Using filesort (lê e ordena a tabela inteira para devolver 51 linhas)
+--   depois: type=index, key=idx_cliente_nome_id, sem filesort (para no LIMIT)
+EXPLAIN SELECT id, nome, cpf, data_nascimento, endereco FROM Cliente ORDER BY nome, id LIMIT 51;
+
+-- RF04: página seguinte, depois do cursor (nome, id)
+--   antes:  type=ALL, Extra=Using where; Using filesort
+--   depois: type=range, key=idx_cliente_nome_id
+EXPLAIN SELECT id, nome, cpf, data_nascimento, endereco FROM Cliente
+    WHERE (nome > 'Maria' OR (nome = 'Maria' AND id > 100)) ORDER BY nome, id LIMIT 51;
+
+-- RF05: busca por trecho do nome ou prefixo do CPF (ClienteDAO.sqlBusca, sem o índice em memória)
+--   antes:  type=ALL, Extra=Using where; Using filesort
+--   depois: type=index, key=idx_cliente_nome_id (percorre em ordem e para ao achar 51 linhas); a collation
+--           _ai_ci da coluna nome já ignora maiúsculas e acentos
+EXPLAIN SELECT id, nome, cpf, data_nascimento, endereco FROM Cliente
+    WHERE (nome LIKE '%silva%' OR cpf LIKE '123%') ORDER BY nome, id LIMIT 51;
+
+-- RF09: contatos de um cliente, em ordem (ContatoDAO.consultarPorCliente / listarPorClientes)
+--   antes:  type=ref, key=cliente_id (índice implícito da FK), Extra=Using filesort
+--   depois: type=ref/range, key=idx_contato_cliente_id, sem filesort
+EXPLAIN SELECT id, cliente_id, tipo, valor, observacao FROM Contato WHERE cliente_id = 1 ORDER BY id;
+EXPLAIN SELECT id, cliente_id, tipo, valor, observacao FROM Contato
+    WHERE cliente_id IN (1, 2, 3, 4) ORDER BY cliente_id, id;
+
+-- Versões aplicadas
+SELECT versao, descricao, aplicada_em FROM schema_migracoes ORDER BY versao;
@@ -0,0 +1,231 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Contato;
+import br.com.contatos.util.Configuracao;
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Armazenamento em memória (agenda.armazenamento=memoria), compartilhado por {@link ClienteDAOMemoria}
+ * e {@link ContatoDAOMemoria}. Leituras vão direto aos mapas concorrentes, sem trava; as escritas
+ * são serializadas por uma trava única, para que os índices (CPF, ordem por nome, contatos por cliente)
+ * mudem juntos. Com agenda.memoria.snapshot definido, o conteúdo é gravado em disco periodicamente
+ * e no encerramento, e lido de volta na subida.
+ */
+public final class BancoMemoria {
+
+    private static final Logger LOG = Logger.getLogger(BancoMemoria.class.getName());
+
+    /**
+     * Ordem da listagem (RF04): nome e id, como o ORDER BY nome, id do banco. As chaves de
+     * clientesPorNome guardam o nome já normalizado ({@link #chaveNome}), sem acentos e em minúsculas
+     * como a collation da coluna e o índice de busca, então a comparação aqui pode ser a do String.
+     */
+    static final Comparator<CursorPaginacao> ORDEM_NOME =
+            Comparator.comparing(CursorPaginacao::nome).thenComparingInt(CursorPaginacao::id);
+
+    /** Depois de ORDEM_NOME, que o construtor usa. */
+    private static final BancoMemoria INSTANCIA = new BancoMemoria();
+
+    final ConcurrentHashMap<Integer, Cliente> clientes = new ConcurrentHashMap<>();
+    final ConcurrentSkipListMap<CursorPaginacao, Cliente> clientesPorNome = new ConcurrentSkipListMap<>(ORDEM_NOME);
+    /** RN03: CPF (só dígitos) -> id do cliente. */
+    final ConcurrentHashMap<String, Integer> clientesPorCpf = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Integer, Contato> contatos = new ConcurrentHashMap<>();
+    /** RF09: contatos de cada cliente em ordem de id; a lista é imutável e trocada a cada escrita. */
+    final ConcurrentHashMap<Integer, List<Contato>> contatosPorCliente = new ConcurrentHashMap<>();
+    final IndiceBuscaCliente indiceBusca = new IndiceBuscaCliente();
+
+    final ReentrantLock escrita = new ReentrantLock();
+    final AtomicInteger proximoIdCliente = new AtomicInteger(1);
+    final AtomicInteger proximoIdContato = new AtomicInteger(1);
+
+    private final Path arquivoSnapshot;
+    private final long intervaloSnapshotMs;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    /** Escritas desde a criação e até o último snapshot gravado. */
+    private volatile long alteracoes;
+    private volatile long alteracoesNoSnapshot;
+    private ScheduledExecutorService agendador;
+
+    /**
+     * Chave de clientesPorNome: nome normalizado por {@link IndiceBuscaCliente#normalizar} e id.
+     */
+    static CursorPaginacao chaveNome(String nome, int id) {
+        return new CursorPaginacao(IndiceBuscaCliente.normalizar(nome), id);
+    }
+
+    private record Snapshot(int proximoIdCliente, int proximoIdContato, List<Cliente> clientes, List<Contato> contatos) { }
+
+    private BancoMemoria() {
+        String arquivo = Configuracao.texto("agenda.memoria.snapshot", null);
+        this.arquivoSnapshot = arquivo == null ? null : Path.of(arquivo);
+        this.intervaloSnapshotMs = Configuracao.longo("agenda.memoria.snapshotIntervaloMs", 60_000);
+    }
+
+    public static BancoMemoria instancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Lê o snapshot (se houver) e agenda a gravação periódica (chamado na subida da aplicação).
+     */
+    public synchronized void iniciar() throws IOException {
+        indiceBusca.iniciarCarga();
+        if (arquivoSnapshot != null && Files.exists(arquivoSnapshot)) {
+            carregarSnapshot();
+        }
+        indiceBusca.concluirCarga();
+
+        if (arquivoSnapshot != null && intervaloSnapshotMs > 0 && agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "agenda-memoria-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleWithFixedDelay(this::salvarSnapshotAgendado,
+                    intervaloSnapshotMs, intervaloSnapshotMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Para a gravação periódica e grava o último snapshot (chamado no encerramento).
+     */
+    public synchronized void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+        if (arquivoSnapshot != null) {
+            try {
+                salvarSnapshot();
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Não foi possível gravar o snapshot em " + arquivoSnapshot, e);
+            }
+        }
+    }
+
+    /**
+     * Grava o snapshot se houve escrita desde o último. O arquivo novo é escrito ao lado
+     * e só então substitui o anterior, para nunca sobrar um snapshot pela metade.
+     */
+    public synchronized void salvarSnapshot() throws IOException {
+        if (arquivoSnapshot == null || alteracoes == alteracoesNoSnapshot) {
+            return;
+        }
+
+        Snapshot snapshot;
+        long versao;
+        escrita.lock();
+        try {
+            // Cópia consistente sob a trava; a serialização e o disco ficam de fora
+            versao = alteracoes;
+            snapshot = new Snapshot(proximoIdCliente.get(), proximoIdContato.get(),
+                    new ArrayList<>(clientes.values()), new ArrayList<>(contatos.values()));
+        } finally {
+            escrita.unlock();
+        }
+
+        Path temporario = arquivoSnapshot.resolveSibling(arquivoSnapshot.getFileName() + ".tmp");
+        if (arquivoSnapshot.getParent() != null) {
+            Files.createDirectories(arquivoSnapshot.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+            gson.toJson(snapshot, writer);
+        }
+        Files.move(temporario, arquivoSnapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        alteracoesNoSnapshot = versao;
+    }
+
+    /**
+     * Chamado pelos DAOs em memória, com a trava de escrita, a cada alteração.
+     */
+    void alterado() {
+        alteracoes++;
+    }
+
+    /**
+     * Troca a lista de contatos do cliente (vazia remove a entrada).
+     */
+    void definirContatos(int clienteId, List<Contato> lista) {
+        if (lista.isEmpty()) {
+            contatosPorCliente.remove(clienteId);
+        } else {
+            contatosPorCliente.put(clienteId, List.copyOf(lista));
+        }
+    }
+
+    List<Contato> contatosDe(int clienteId) {
+        return contatosPorCliente.getOrDefault(clienteId, List.of());
+    }
+
+    private void salvarSnapshotAgendado() {
+        try {
+            salvarSnapshot();
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Não foi possível gravar o snapshot em " + arquivoSnapshot, e);
+        }
+    }
+
+    private void carregarSnapshot() throws IOException {
+        Snapshot snapshot;
+        try (Reader reader = Files.newBufferedReader(arquivoSnapshot, StandardCharsets.UTF_8)) {
+            snapshot = gson.fromJson(reader, Snapshot.class);
+        }
+        if (snapshot == null) {
+            return;
+        }
+
+        escrita.lock();
+        try {
+            for (Cliente cliente : snapshot.clientes()) {
+                clientes.put(cliente.id(), cliente);
+                clientesPorNome.put(chaveNome(cliente.nome(), cliente.id()), cliente);
+                clientesPorCpf.put(cliente.cpf(), cliente.id());
+                indiceBusca.carregar(cliente);
+            }
+
+            List<Contato> ordenados = new ArrayList<>(snapshot.contatos());
+            ordenados.sort(Comparator.comparing(Contato::id));
+            ConcurrentHashMap<Integer, List<Contato>> agrupados = new ConcurrentHashMap<>();
+            for (Contato contato : ordenados) {
+                contatos.put(contato.id(), contato);
+                agrupados.computeIfAbsent(contato.clienteId(), id -> new ArrayList<>()).add(contato);
+            }
+            agrupados.forEach(this::definirContatos);
+
+            proximoIdCliente.set(snapshot.proximoIdCliente());
+            proximoIdContato.set(snapshot.proximoIdContato());
+        } finally {
+            escrita.unlock();
+        }
+        LOG.info(() -> String.format("Snapshot %s carregado: %d clientes, %d contatos",
+                arquivoSnapshot, clientes.size(), contatos.size()));
+    }
+}
@@ -1,17 +1,65 @@
 package br.com.contatos.dao;
 
 import br.com.contatos.model.Cliente;
+import br.com.contatos.model.ClienteComContatos;
+import br.com.contatos.model.Contato;
+import br.com.contatos.model.ErroImportacao;
+import br.com.contatos.model.LinhaExportacao;
+import br.com.contatos.model.LinhaImportacao;
+import br.com.contatos.model.Pagina;
+import br.com.contatos.util.CacheTTL;
+import br.com.contatos.util.Configuracao;
 import br.com.contatos.util.ConnectionFactory;
+import br.com.contatos.util.RoteadorReplicas;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class ClienteDAO {
+public class ClienteDAO implements ClienteRepositorio {
+
+    /**
+     * Linhas estritamente depois do cursor na ordem (nome, id).
+     */
+    private static final String CONDICAO_APOS_CURSOR = "(nome > ? OR (nome = ? AND id > ?))";
+
+    /**
+     * Na busca, linhas estritamente depois do cursor na ordem (relevância desc, nome, id).
+     */
+    private static final String CONDICAO_APOS_CURSOR_BUSCA = "(relevancia < ? OR (relevancia = ? AND " + CONDICAO_APOS_CURSOR + "))";
+
+    private static final String ORDEM_LISTAGEM = "nome, id";
+    private static final String ORDEM_BUSCA = "relevancia DESC, nome, id";
+
+    /**
+     * Nas consultas com contatos, primeira coluna depois das do cliente (o contato ou o total de contatos).
+     */
+    private static final int COLUNA_APOS_CLIENTE = 1 + MapeadorLinha.CLIENTE.quantidade();
+
+    /**
+     * RF05: índice em memória compartilhado por todas as instâncias do DAO.
+     */
+    private static final IndiceBuscaCliente INDICE_BUSCA = new IndiceBuscaCliente();
+    private static final boolean INDICE_HABILITADO = Configuracao.booleano("agenda.busca.indiceEmMemoria", true);
+
+    /**
+     * RF02: cache de leitura de buscarPorId, invalidado por atualizar/excluir.
+     */
+    private static final CacheTTL<Integer, Cliente> CACHE_CLIENTES = new CacheTTL<>(
+            Configuracao.inteiro("agenda.cache.clientes.tamanho", 10_000),
+            Configuracao.longo("agenda.cache.clientes.ttlMs", 60_000));
 
     /**
      * RF01: Cadastra um novo cliente (com limpeza de CPF)
+     * RN03 é garantida pelo UNIQUE de cpf no próprio INSERT: uma ida ao banco, sem corrida entre consulta e gravação.
+     *
+     * @throws CpfDuplicadoException se o CPF já estiver cadastrado
      */
+    @Override
     public Cliente salvar(Cliente cliente) throws SQLException {
         String sql = "INSERT INTO Cliente (nome, cpf, data_nascimento, endereco) VALUES (?, ?, ?, ?)";
 
@@ -23,11 +71,16 @@ public class ClienteDAO {
             stmt.setDate(3, Date.valueOf(cliente.dataNascimento()));
             stmt.setString(4, cliente.endereco());
 
-            stmt.executeUpdate();
+            executarGravacao(stmt);
 
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
                     int idGerado = rs.getInt(1);
+                    Cliente gravado = new Cliente(idGerado, cliente.nome(), cliente.cpf().replaceAll("[^0-9]", ""),
+                            cliente.dataNascimento(), cliente.endereco());
+                    INDICE_BUSCA.atualizar(gravado);
+                    VersaoDados.incrementar();
+                    FeedAlteracoes.publicar("cliente", FeedAlteracoes.CRIADO, gravado);
                     return new Cliente(idGerado, cliente.nome(), cliente.cpf(), cliente.dataNascimento(), cliente.endereco());
                 }
             }
@@ -36,88 +89,197 @@ public class ClienteDAO {
     }
 
     /**
-     * RF04: Lista todos os clientes
+     * Upsert por CPF (jobs de sincronização): cria o cliente ou, se o CPF já existe, atualiza nome,
+     * data de nascimento e endereço do cliente dono do CPF. Um único comando no banco.
+     * <p>
+     * O resultado do INSERT ... ON DUPLICATE KEY UPDATE diz o que aconteceu: 1 = inserido, 2 = atualizado,
+     * 0 = já estava igual. Isso depende de useAffectedRows=true na URL (padrão em agenda.db.url); sem ele
+     * o driver conta as linhas encontradas e um cliente inalterado também devolveria 1.
+     * Se nada mudou, não há evento no feed nem nova versão dos dados.
      */
-    public List<Cliente> listarTodos() throws SQLException {
-        String sql = "SELECT * FROM Cliente ORDER BY nome";
-        List<Cliente> clientes = new ArrayList<>();
+    @Override
+    public ResultadoUpsert salvarOuAtualizarPorCpf(Cliente cliente) throws SQLException {
+        // LAST_INSERT_ID(id) faz o driver devolver o id da linha existente quando é atualização
+        String sql = "INSERT INTO Cliente (nome, cpf, data_nascimento, endereco) VALUES (?, ?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), nome = VALUES(nome),"
+                + " data_nascimento = VALUES(data_nascimento), endereco = VALUES(endereco)";
+        String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
 
         try (Connection conn = ConnectionFactory.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            while (rs.next()) {
-                clientes.add(new Cliente(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("cpf"),
-                        rs.getDate("data_nascimento").toLocalDate(),
-                        rs.getString("endereco")
-                ));
+            stmt.setString(1, cliente.nome());
+            stmt.setString(2, cpfLimpo);
+            stmt.setDate(3, Date.valueOf(cliente.dataNascimento()));
+            stmt.setString(4, cliente.endereco());
+
+            int alterados = stmt.executeUpdate();
+            if (alterados == 0) {
+                // Já estava igual: o driver não devolve chave quando nenhuma linha foi afetada
+                return new ResultadoUpsert(new Cliente(idPorCpf(conn, cpfLimpo), cliente.nome(), cpfLimpo,
+                        cliente.dataNascimento(), cliente.endereco()), false);
+            }
+            boolean criado = alterados == 1;
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    Cliente gravado = new Cliente(id, cliente.nome(), cpfLimpo, cliente.dataNascimento(), cliente.endereco());
+                    CACHE_CLIENTES.invalidar(id);
+                    INDICE_BUSCA.atualizar(gravado);
+                    VersaoDados.incrementar();
+                    FeedAlteracoes.publicar("cliente", criado ? FeedAlteracoes.CRIADO : FeedAlteracoes.ATUALIZADO, gravado);
+                    return new ResultadoUpsert(gravado, criado);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int idPorCpf(Connection conn, String cpfLimpo) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM Cliente WHERE cpf = ?")) {
+            stmt.setString(1, cpfLimpo);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Cliente com CPF " + cpfLimpo + " não encontrado após o upsert");
+                }
+                return rs.getInt(1);
             }
         }
-        return clientes;
     }
 
     /**
-     * RF05: Busca clientes por Nome (parcial) ou CPF (parcial).
+     * RF04 (streaming): entrega cada cliente da página ao processador à medida que é lido.
+     * Paginação por chave (nome, id): o custo de cada página não depende da posição na lista.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
      */
-    public List<Cliente> buscar(String termo) throws SQLException {
-        String cpfLimpo = termo.replaceAll("[^0-9]", "");
+    @Override
+    public String listarTodos(String apos, int limite, ProcessadorLinha<Cliente> processador) throws SQLException, IOException {
+        CursorPaginacao cursor = (apos == null) ? null : CursorPaginacao.decodificar(apos);
 
-        String sql = "SELECT * FROM Cliente WHERE nome LIKE ? OR cpf LIKE ?";
-        List<Cliente> clientes = new ArrayList<>();
-
-        try (Connection conn = ConnectionFactory.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
+             PreparedStatement stmt = conn.prepareStatement(sqlListagem(cursor))) {
 
+            definirParametrosPagina(stmt, 1, cursor, limite);
+            return lerPagina(stmt, limite, null, processador);
+        }
+    }
 
-            stmt.setString(1, "%" + termo + "%");
+    /**
+     * RF04 com a contagem de contatos (ou os contatos) de cada cliente, numa única consulta:
+     * a página de clientes vira subconsulta e os contatos entram por subconsulta de contagem ou LEFT JOIN.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    @Override
+    public String listarTodos(String apos, int limite, InclusaoContatos inclusao,
+                              ProcessadorLinha<ClienteComContatos> processador) throws SQLException, IOException {
+        CursorPaginacao cursor = (apos == null) ? null : CursorPaginacao.decodificar(apos);
 
-            if (cpfLimpo.isEmpty()) {
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
+             PreparedStatement stmt = conn.prepareStatement(sqlComContatos(sqlListagem(cursor), ORDEM_LISTAGEM, inclusao))) {
 
-                stmt.setString(2, "§-NEVER-MATCH-§");
-            } else {
+            definirParametrosPagina(stmt, 1, cursor, limite);
+            return lerPaginaComContatos(stmt, limite, null, inclusao, processador);
+        }
+    }
 
-                stmt.setString(2, cpfLimpo + "%");
+    /**
+     * RF05 (streaming): entrega cada cliente encontrado ao processador à medida que é lido.
+     * Pelo índice em memória ou pelo banco, o resultado e a ordem são os mesmos: relevância
+     * (CPF, nome exato, prefixo do nome, prefixo de palavra, trecho), nome e id.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    @Override
+    public String buscar(String termo, String apos, int limite, ProcessadorLinha<Cliente> processador) throws SQLException, IOException {
+        CursorPaginacao cursor = (apos == null) ? null : CursorPaginacao.decodificar(apos);
+
+        if (INDICE_HABILITADO && INDICE_BUSCA.pronto()) {
+            // Responde pelo índice em memória, sem ir ao banco
+            Pagina<Cliente> pagina = INDICE_BUSCA.buscar(termo, cursor, limite);
+            for (Cliente cliente : pagina.itens()) {
+                processador.processar(cliente);
             }
+            return pagina.proximoCursor();
+        }
 
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
+             PreparedStatement stmt = conn.prepareStatement(sqlBusca(cursor))) {
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    clientes.add(new Cliente(
-                            rs.getInt("id"),
-                            rs.getString("nome"),
-                            rs.getString("cpf"),
-                            rs.getDate("data_nascimento").toLocalDate(),
-                            rs.getString("endereco")
-                    ));
+            definirParametrosBusca(stmt, termo, cursor, limite);
+            return lerPagina(stmt, limite, termo, processador);
+        }
+    }
+
+    /**
+     * RF05 com a contagem de contatos (ou os contatos) de cada cliente.
+     * Pelo índice em memória, os contatos da página inteira vêm numa única consulta IN;
+     * sem o índice, é uma consulta só, como em {@link #listarTodos(String, int, InclusaoContatos, ProcessadorLinha)}.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    @Override
+    public String buscar(String termo, String apos, int limite, InclusaoContatos inclusao,
+                         ProcessadorLinha<ClienteComContatos> processador) throws SQLException, IOException {
+        CursorPaginacao cursor = (apos == null) ? null : CursorPaginacao.decodificar(apos);
+
+        if (INDICE_HABILITADO && INDICE_BUSCA.pronto()) {
+            Pagina<Cliente> pagina = INDICE_BUSCA.buscar(termo, cursor, limite);
+            List<Integer> ids = new ArrayList<>(pagina.itens().size());
+            for (Cliente cliente : pagina.itens()) {
+                ids.add(cliente.id());
+            }
+
+            ContatoDAO contatoDAO = new ContatoDAO();
+            if (inclusao == InclusaoContatos.CONTATOS) {
+                Map<Integer, List<Contato>> contatos = contatoDAO.listarPorClientes(ids);
+                for (Cliente cliente : pagina.itens()) {
+                    List<Contato> doCliente = contatos.get(cliente.id());
+                    processador.processar(new ClienteComContatos(cliente, doCliente.size(), doCliente));
+                }
+            } else {
+                Map<Integer, Integer> totais = contatoDAO.contarPorClientes(ids);
+                for (Cliente cliente : pagina.itens()) {
+                    processador.processar(new ClienteComContatos(cliente, totais.getOrDefault(cliente.id(), 0), null));
                 }
             }
+            return pagina.proximoCursor();
+        }
+
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
+             PreparedStatement stmt = conn.prepareStatement(sqlComContatos(sqlBusca(cursor), ORDEM_BUSCA, inclusao))) {
+
+            definirParametrosBusca(stmt, termo, cursor, limite);
+            return lerPaginaComContatos(stmt, limite, termo, inclusao, processador);
         }
-        return clientes;
     }
 
     /**
-     * RF02 (Parte 1): Busca um cliente único pelo seu ID.
+     * RF02 (Parte 1): Busca um cliente único pelo seu ID (passando pelo cache).
      */
+    @Override
     public Cliente buscarPorId(int id) throws SQLException {
-        String sql = "SELECT * FROM Cliente WHERE id = ?";
+        if (!RoteadorReplicas.leituraCompartilhavel()) {
+            // Réplica logo depois de uma escrita: lê, mas não guarda
+            Cliente emCache = CACHE_CLIENTES.obter(id);
+            return emCache != null ? emCache : consultarPorId(id);
+        }
+        return CACHE_CLIENTES.obter(id, () -> consultarPorId(id));
+    }
 
-        try (Connection conn = ConnectionFactory.getConnection();
+    private Cliente consultarPorId(int id) throws SQLException {
+        String sql = "SELECT " + MapeadorLinha.CLIENTE.colunas() + " FROM Cliente WHERE id = ?";
+
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Cliente(
-                            rs.getInt("id"),
-                            rs.getString("nome"),
-                            rs.getString("cpf"),
-                            rs.getDate("data_nascimento").toLocalDate(),
-                            rs.getString("endereco")
-                    );
+                    return MapeadorLinha.CLIENTE.mapear(rs);
                 }
             }
         }
@@ -126,7 +288,10 @@ public class ClienteDAO {
 
     /**
      * RF02 (Parte 2): Atualiza os dados de um cliente.
+     *
+     * @throws CpfDuplicadoException se o novo CPF pertencer a outro cliente (RN03)
      */
+    @Override
     public Cliente atualizar(Cliente cliente) throws SQLException {
         String sql = "UPDATE Cliente SET nome = ?, cpf = ?, data_nascimento = ?, endereco = ? WHERE id = ?";
 
@@ -139,7 +304,15 @@ public class ClienteDAO {
             stmt.setString(4, cliente.endereco());
             stmt.setInt(5, cliente.id());
 
-            stmt.executeUpdate();
+            int alterados = executarGravacao(stmt);
+            CACHE_CLIENTES.invalidar(cliente.id());
+            if (alterados > 0) {
+                Cliente gravado = new Cliente(cliente.id(), cliente.nome(), cliente.cpf().replaceAll("[^0-9]", ""),
+                        cliente.dataNascimento(), cliente.endereco());
+                INDICE_BUSCA.atualizar(gravado);
+                VersaoDados.incrementar();
+                FeedAlteracoes.publicar("cliente", FeedAlteracoes.ATUALIZADO, gravado);
+            }
             return cliente;
         }
     }
@@ -147,6 +320,7 @@ public class ClienteDAO {
     /**
      * RF03: Exclui um cliente e (RN07) todos os seus contatos associados.
      */
+    @Override
     public void excluir(int clienteId) throws SQLException {
         Connection conn = null;
         try {
@@ -163,6 +337,11 @@ public class ClienteDAO {
             }
 
             conn.commit();
+            INDICE_BUSCA.remover(clienteId);
+            CACHE_CLIENTES.invalidar(clienteId);
+            ContatoDAO.invalidarCache(clienteId); // de novo após o commit, caso alguém tenha lido no meio
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("cliente", FeedAlteracoes.EXCLUIDO, Map.of("id", clienteId));
 
         } catch (SQLException e) {
             if (conn != null) conn.rollback();
@@ -176,24 +355,361 @@ public class ClienteDAO {
     }
 
     /**
-     * RN03: Verifica se um CPF já existe (e ignora o ID do próprio cliente)
+     * Importação em lote: insere um bloco de clientes já validados (RN01/RN05) numa única transação.
+     * Os CPFs do bloco são conferidos contra o banco numa só consulta (RN03) e as inserções vão
+     * num único executeBatch (com rewriteBatchedStatements o driver manda um INSERT multi-linha).
+     *
+     * @return as linhas rejeitadas; as demais foram gravadas
+     */
+    @Override
+    public List<ErroImportacao> importarLote(List<LinhaImportacao> lote) throws SQLException {
+        String sql = "INSERT INTO Cliente (nome, cpf, data_nascimento, endereco) VALUES (?, ?, ?, ?)";
+        List<ErroImportacao> erros = new ArrayList<>();
+        if (lote.isEmpty()) {
+            return erros;
+        }
+
+        Connection conn = null;
+        List<Cliente> inseridos = new ArrayList<>();
+        try {
+            conn = ConnectionFactory.getConnection();
+            conn.setAutoCommit(false);
+
+            List<String> cpfs = new ArrayList<>(lote.size());
+            for (LinhaImportacao linha : lote) {
+                cpfs.add(linha.cliente().cpf().replaceAll("[^0-9]", ""));
+            }
+            Set<String> existentes = cpfsExistentes(conn, cpfs);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < lote.size(); i++) {
+                    Cliente cliente = lote.get(i).cliente();
+                    String cpfLimpo = cpfs.get(i);
+                    if (existentes.contains(cpfLimpo)) {
+                        erros.add(new ErroImportacao(lote.get(i).linha(), "Este CPF já está cadastrado no sistema (RN03)."));
+                        continue;
+                    }
+                    stmt.setString(1, cliente.nome());
+                    stmt.setString(2, cpfLimpo);
+                    stmt.setDate(3, Date.valueOf(cliente.dataNascimento()));
+                    stmt.setString(4, cliente.endereco());
+                    stmt.addBatch();
+                    inseridos.add(new Cliente(cliente.nome(), cpfLimpo, cliente.dataNascimento(), cliente.endereco()));
+                }
+
+                if (!inseridos.isEmpty()) {
+                    stmt.executeBatch();
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        for (int i = 0; i < inseridos.size() && rs.next(); i++) {
+                            Cliente c = inseridos.get(i);
+                            inseridos.set(i, new Cliente(rs.getInt(1), c.nome(), c.cpf(), c.dataNascimento(), c.endereco()));
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) conn.rollback();
+            throw new SQLException("Erro ao importar lote de clientes", e);
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+
+        for (Cliente cliente : inseridos) {
+            if (cliente.id() != null) {
+                INDICE_BUSCA.atualizar(cliente);
+            }
+        }
+        if (!inseridos.isEmpty()) {
+            VersaoDados.incrementar();
+            // Um evento por cliente importado afogaria os navegadores: pede para recarregarem a lista
+            FeedAlteracoes.publicar("cliente", FeedAlteracoes.RECARREGAR, null);
+        }
+        return erros;
+    }
+
+    /**
+     * RN03 em bloco: quais destes CPFs (já limpos) existem no banco.
+     */
+    private Set<String> cpfsExistentes(Connection conn, List<String> cpfs) throws SQLException {
+        String sql = "SELECT cpf FROM Cliente WHERE cpf IN (" + MarcadoresIn.marcadores(cpfs.size()) + ")";
+
+        Set<String> existentes = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            MarcadoresIn.definir(stmt, 1, cpfs);
+            ConnectionFactory.definirFetch(stmt, cpfs.size());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existentes.add(rs.getString(1));
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Exportação: percorre Cliente LEFT JOIN Contato numa única consulta ordenada por (cliente, contato),
+     * com ResultSet forward-only/read-only e fetch size, sem materializar o resultado.
+     * A conexão fica emprestada durante todo o download, então vem de getConnectionLeituraLonga,
+     * fora da detecção de vazamento do pool.
+     */
+    @Override
+    public void exportar(ProcessadorLinha<LinhaExportacao> processador) throws SQLException, IOException {
+        String sql = "SELECT " + MapeadorLinha.CLIENTE.colunas("c") + ", " + MapeadorLinha.CONTATO.colunas("ct")
+                + " FROM Cliente c LEFT JOIN Contato ct ON ct.cliente_id = c.id "
+                + "ORDER BY c.id, ct.id";
+
+        try (Connection conn = ConnectionFactory.getConnectionLeituraLonga();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ConnectionFactory.definirFetch(stmt, ConnectionFactory.SEM_LIMITE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                Cliente atual = null;
+                while (rs.next()) {
+                    int clienteId = rs.getInt(1);
+                    if (atual == null || atual.id() != clienteId) {
+                        atual = MapeadorLinha.CLIENTE.mapear(rs);
+                    }
+
+                    processador.processar(new LinhaExportacao(atual, lerContato(rs)));
+                }
+            }
+        }
+    }
+
+    public static CacheTTL.Estatisticas estatisticasCache() {
+        return CACHE_CLIENTES.estatisticas();
+    }
+
+    /**
+     * Carrega o índice de busca em memória com todos os clientes (chamado na subida da aplicação).
+     * Alterações feitas durante a carga são reaplicadas ao final.
      */
-    public boolean cpfJaExiste(String cpf, Integer idParaIgnorar) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Cliente WHERE cpf = ? AND id != ?";
-        String cpfLimpo = cpf.replaceAll("[^0-9]", "");
+    public void carregarIndiceBusca() throws SQLException {
+        if (!INDICE_HABILITADO) {
+            return;
+        }
+        String sql = "SELECT " + MapeadorLinha.CLIENTE.colunas() + " FROM Cliente";
 
+        INDICE_BUSCA.iniciarCarga();
         try (Connection conn = ConnectionFactory.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, cpfLimpo);
-            stmt.setInt(2, (idParaIgnorar == null) ? 0 : idParaIgnorar);
+            ConnectionFactory.definirFetch(stmt, ConnectionFactory.SEM_LIMITE);
 
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
+                while (rs.next()) {
+                    INDICE_BUSCA.carregar(MapeadorLinha.CLIENTE.mapear(rs));
                 }
             }
+        } catch (SQLException e) {
+            INDICE_BUSCA.abortarCarga();
+            throw e;
+        }
+        INDICE_BUSCA.concluirCarga();
+    }
+
+    /**
+     * Executa o INSERT/UPDATE traduzindo a violação do UNIQUE de cpf para {@link CpfDuplicadoException} (RN03).
+     */
+    private int executarGravacao(PreparedStatement stmt) throws SQLException {
+        try {
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (CpfDuplicadoException.ehDuplicidade(e)) {
+                throw new CpfDuplicadoException(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Página da listagem: "SELECT colunas FROM Cliente [WHERE após o cursor] ORDER BY nome, id LIMIT ?".
+     * O plano dela (idx_cliente_nome_id, sem ordenação) é conferido em PlanosConsultaTest.
+     */
+    static String sqlListagem(CursorPaginacao cursor) {
+        return "SELECT " + MapeadorLinha.CLIENTE.colunas() + " FROM Cliente"
+                + (cursor == null ? "" : " WHERE " + CONDICAO_APOS_CURSOR)
+                + " ORDER BY " + ORDEM_LISTAGEM + " LIMIT ?";
+    }
+
+    /**
+     * Página da busca no banco (sem o índice em memória): nome contém o termo ou CPF começa pelos dígitos,
+     * com a mesma relevância de {@link IndiceBuscaCliente#relevancia(Cliente, String)} como última coluna.
+     * A collation da coluna já ignora maiúsculas e acentos. Como a ordem começa pela relevância, o banco
+     * ordena todas as linhas encontradas antes do LIMIT; é o caminho de reserva enquanto o índice carrega
+     * ou com ele desligado.
+     */
+    private static String sqlBusca(CursorPaginacao cursor) {
+        String colunas = MapeadorLinha.CLIENTE.colunas();
+        return "SELECT " + colunas + ", relevancia FROM (SELECT " + colunas + ", " + IndiceBuscaCliente.RELEVANCIA_SQL
+                + " AS relevancia FROM Cliente WHERE (nome LIKE ? OR cpf LIKE ?)) b"
+                + (cursor == null ? "" : " WHERE " + CONDICAO_APOS_CURSOR_BUSCA)
+                + " ORDER BY " + ORDEM_BUSCA + " LIMIT ?";
+    }
+
+    /**
+     * Envolve a consulta de uma página de clientes para trazer também a contagem ou os contatos.
+     * Os parâmetros continuam os mesmos (e na mesma ordem) da consulta interna; depois das colunas do cliente
+     * vêm as do contato ou o total de contatos.
+     */
+    private String sqlComContatos(String sqlPagina, String ordemPagina, InclusaoContatos inclusao) {
+        String colunasCliente = MapeadorLinha.CLIENTE.colunas("p");
+        String ordem = "p." + ordemPagina.replace(", ", ", p.");
+        if (inclusao == InclusaoContatos.CONTATOS) {
+            return "SELECT " + colunasCliente + ", " + MapeadorLinha.CONTATO.colunas("ct") + " FROM (" + sqlPagina + ") p"
+                    + " LEFT JOIN Contato ct ON ct.cliente_id = p.id"
+                    + " ORDER BY " + ordem + ", ct.id";
+        }
+        return "SELECT " + colunasCliente + ", (SELECT COUNT(*) FROM Contato ct WHERE ct.cliente_id = p.id) AS total_contatos"
+                + " FROM (" + sqlPagina + ") p ORDER BY " + ordem;
+    }
+
+    /**
+     * Parâmetros da relevância, do filtro, do cursor (se houver) e do LIMIT de {@link #sqlBusca}.
+     * O termo vai normalizado como no índice em memória e com os curingas do LIKE escapados,
+     * para que "%" e "_" digitados casem só com eles mesmos.
+     */
+    private void definirParametrosBusca(PreparedStatement stmt, String termo, CursorPaginacao cursor, int limite)
+            throws SQLException {
+        String nome = IndiceBuscaCliente.normalizar(termo);
+        String nomeLike = literalLike(nome);
+        String cpfLimpo = IndiceBuscaCliente.digitos(termo);
+        // Sem dígitos, o CPF não deve casar com nada
+        String cpf = cpfLimpo.isEmpty() ? "§-NEVER-MATCH-§" : cpfLimpo;
+
+        int indice = 1;
+        stmt.setString(indice++, cpf);
+        stmt.setString(indice++, cpf + "%");
+        stmt.setString(indice++, nome);
+        stmt.setString(indice++, nomeLike + "%");
+        stmt.setString(indice++, "% " + nomeLike + "%");
+
+        stmt.setString(indice++, "%" + nomeLike + "%");
+        stmt.setString(indice++, cpf + "%");
+
+        if (cursor != null) {
+            stmt.setInt(indice++, cursor.relevancia());
+            stmt.setInt(indice++, cursor.relevancia());
+            indice = definirCursor(stmt, indice, cursor);
+        }
+        stmt.setInt(indice, limite + 1);
+    }
+
+    private static String literalLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Cursor (se houver) e o LIMIT, que pede uma linha a mais só para saber se existe próxima página.
+     */
+    private void definirParametrosPagina(PreparedStatement stmt, int indice, CursorPaginacao cursor, int limite)
+            throws SQLException {
+        if (cursor != null) {
+            indice = definirCursor(stmt, indice, cursor);
+        }
+        stmt.setInt(indice, limite + 1);
+    }
+
+    private int definirCursor(PreparedStatement stmt, int indice, CursorPaginacao cursor) throws SQLException {
+        stmt.setString(indice++, cursor.nome());
+        stmt.setString(indice++, cursor.nome());
+        stmt.setInt(indice++, cursor.id());
+        return indice;
+    }
+
+    /**
+     * Lê até {@code limite} clientes; a consulta pede uma linha a mais só para saber se existe próxima página.
+     * Páginas maiores que o fetch size vêm em blocos em vez de carregar o resultado inteiro.
+     * Com {@code termo} (busca), o cursor leva também a relevância do último cliente.
+     */
+    private String lerPagina(PreparedStatement stmt, int limite, String termo, ProcessadorLinha<Cliente> processador)
+            throws SQLException, IOException {
+        ConnectionFactory.definirFetch(stmt, limite + 1);
+
+        int lidos = 0;
+        Cliente ultimo = null;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (lidos == limite) {
+                    return cursorApos(ultimo, termo);
+                }
+                ultimo = MapeadorLinha.CLIENTE.mapear(rs);
+                processador.processar(ultimo);
+                lidos++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Como {@link #lerPagina}, para as consultas de {@link #sqlComContatos}.
+     * Com CONTATOS vêm várias linhas por cliente (uma por contato); o cliente é entregue quando o próximo começa.
+     */
+    private String lerPaginaComContatos(PreparedStatement stmt, int limite, String termo, InclusaoContatos inclusao,
+                                        ProcessadorLinha<ClienteComContatos> processador) throws SQLException, IOException {
+        // Com CONTATOS o número de linhas não é limitado pela página (um cliente pode ter muitos contatos)
+        ConnectionFactory.definirFetch(stmt,
+                inclusao == InclusaoContatos.CONTATOS ? ConnectionFactory.SEM_LIMITE : limite + 1);
+
+        int lidos = 0;
+        Cliente atual = null;
+        List<Contato> contatos = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (atual != null && atual.id() == id) {
+                    contatos.add(lerContato(rs));
+                    continue;
+                }
+
+                if (atual != null && inclusao == InclusaoContatos.CONTATOS) {
+                    processador.processar(new ClienteComContatos(atual, contatos.size(), List.copyOf(contatos)));
+                    contatos.clear();
+                }
+                if (lidos == limite) {
+                    return cursorApos(atual, termo);
+                }
+
+                atual = MapeadorLinha.CLIENTE.mapear(rs);
+                lidos++;
+                if (inclusao == InclusaoContatos.CONTATOS) {
+                    Contato contato = lerContato(rs);
+                    if (contato != null) {
+                        contatos.add(contato);
+                    }
+                } else {
+                    processador.processar(new ClienteComContatos(atual, rs.getInt(COLUNA_APOS_CLIENTE), null));
+                }
+            }
+        }
+        if (atual != null && inclusao == InclusaoContatos.CONTATOS) {
+            processador.processar(new ClienteComContatos(atual, contatos.size(), List.copyOf(contatos)));
+        }
+        return null;
+    }
+
+    private static String cursorApos(Cliente ultimo, String termo) {
+        if (termo == null) {
+            return new CursorPaginacao(ultimo.nome(), ultimo.id()).codificar();
+        }
+        return new CursorPaginacao(IndiceBuscaCliente.relevancia(ultimo, termo), ultimo.nome(), ultimo.id()).codificar();
+    }
+
+    /**
+     * Contato da linha do LEFT JOIN (colunas logo depois das do cliente), ou null se o cliente não tem contatos.
+     */
+    private Contato lerContato(ResultSet rs) throws SQLException {
+        rs.getInt(COLUNA_APOS_CLIENTE);
+        if (rs.wasNull()) {
+            return null;
         }
-        return false;
+        return MapeadorLinha.CONTATO.mapear(rs, COLUNA_APOS_CLIENTE);
     }
-}
\ No newline at end of file
+}
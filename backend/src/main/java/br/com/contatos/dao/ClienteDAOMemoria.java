@@ -0,0 +1,256 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.ClienteComContatos;
+import br.com.contatos.model.Contato;
+import br.com.contatos.model.ErroImportacao;
+import br.com.contatos.model.LinhaExportacao;
+import br.com.contatos.model.LinhaImportacao;
+import br.com.contatos.model.Pagina;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * {@link ClienteRepositorio} sobre o {@link BancoMemoria}: mesmas regras do {@link ClienteDAO}
+ * (RN03 pelo índice de CPF, RN07 em cascata), sem banco de dados.
+ */
+public class ClienteDAOMemoria implements ClienteRepositorio {
+
+    private final BancoMemoria banco;
+
+    public ClienteDAOMemoria(BancoMemoria banco) {
+        this.banco = banco;
+    }
+
+    @Override
+    public Cliente salvar(Cliente cliente) throws CpfDuplicadoException {
+        String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
+
+        banco.escrita.lock();
+        try {
+            if (banco.clientesPorCpf.containsKey(cpfLimpo)) {
+                throw new CpfDuplicadoException();
+            }
+            Cliente gravado = inserir(cliente, cpfLimpo);
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("cliente", FeedAlteracoes.CRIADO, gravado);
+            // Como no ClienteDAO: devolve o CPF como veio na requisição
+            return new Cliente(gravado.id(), cliente.nome(), cliente.cpf(), cliente.dataNascimento(), cliente.endereco());
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    @Override
+    public ResultadoUpsert salvarOuAtualizarPorCpf(Cliente cliente) {
+        String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
+
+        banco.escrita.lock();
+        try {
+            Integer existente = banco.clientesPorCpf.get(cpfLimpo);
+            Cliente gravado;
+            if (existente == null) {
+                gravado = inserir(cliente, cpfLimpo);
+            } else {
+                gravado = new Cliente(existente, cliente.nome(), cpfLimpo, cliente.dataNascimento(), cliente.endereco());
+                Cliente anterior = banco.clientes.get(existente);
+                if (anterior.equals(gravado)) {
+                    // Já estava igual: como no ClienteDAO, sem evento nem nova versão
+                    return new ResultadoUpsert(gravado, false);
+                }
+                substituir(anterior, gravado);
+            }
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("cliente", existente == null ? FeedAlteracoes.CRIADO : FeedAlteracoes.ATUALIZADO, gravado);
+            return new ResultadoUpsert(gravado, existente == null);
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    @Override
+    public String listarTodos(String apos, int limite, ProcessadorLinha<Cliente> processador) throws IOException {
+        Cliente ultimo = null;
+        int lidos = 0;
+        for (Cliente cliente : faixa(apos).values()) {
+            if (lidos == limite) {
+                return new CursorPaginacao(ultimo.nome(), ultimo.id()).codificar();
+            }
+            processador.processar(cliente);
+            ultimo = cliente;
+            lidos++;
+        }
+        return null;
+    }
+
+    @Override
+    public String listarTodos(String apos, int limite, InclusaoContatos inclusao,
+                              ProcessadorLinha<ClienteComContatos> processador) throws IOException {
+        return listarTodos(apos, limite, cliente -> processador.processar(comContatos(cliente, inclusao)));
+    }
+
+    @Override
+    public String buscar(String termo, String apos, int limite, ProcessadorLinha<Cliente> processador) throws IOException {
+        CursorPaginacao cursor = (apos == null) ? null : CursorPaginacao.decodificar(apos);
+
+        Pagina<Cliente> pagina = banco.indiceBusca.buscar(termo, cursor, limite);
+        for (Cliente cliente : pagina.itens()) {
+            processador.processar(cliente);
+        }
+        return pagina.proximoCursor();
+    }
+
+    @Override
+    public String buscar(String termo, String apos, int limite, InclusaoContatos inclusao,
+                         ProcessadorLinha<ClienteComContatos> processador) throws IOException {
+        return buscar(termo, apos, limite, cliente -> processador.processar(comContatos(cliente, inclusao)));
+    }
+
+    @Override
+    public Cliente buscarPorId(int id) {
+        return banco.clientes.get(id);
+    }
+
+    @Override
+    public Cliente atualizar(Cliente cliente) throws CpfDuplicadoException {
+        String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
+
+        banco.escrita.lock();
+        try {
+            Cliente anterior = banco.clientes.get(cliente.id());
+            if (anterior == null) {
+                return cliente;
+            }
+            Integer dono = banco.clientesPorCpf.get(cpfLimpo);
+            if (dono != null && !dono.equals(cliente.id())) {
+                throw new CpfDuplicadoException();
+            }
+            Cliente gravado = new Cliente(cliente.id(), cliente.nome(), cpfLimpo, cliente.dataNascimento(), cliente.endereco());
+            substituir(anterior, gravado);
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("cliente", FeedAlteracoes.ATUALIZADO, gravado);
+            return cliente;
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    /**
+     * RF03 + RN07: o cliente e os seus contatos saem juntos, sob a mesma trava.
+     */
+    @Override
+    public void excluir(int clienteId) {
+        banco.escrita.lock();
+        try {
+            Cliente removido = banco.clientes.remove(clienteId);
+            if (removido == null) {
+                return;
+            }
+            banco.clientesPorNome.remove(BancoMemoria.chaveNome(removido.nome(), removido.id()));
+            banco.clientesPorCpf.remove(removido.cpf());
+            banco.indiceBusca.remover(clienteId);
+            for (Contato contato : banco.contatosDe(clienteId)) {
+                banco.contatos.remove(contato.id());
+            }
+            banco.contatosPorCliente.remove(clienteId);
+            banco.alterado();
+
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("cliente", FeedAlteracoes.EXCLUIDO, Map.of("id", clienteId));
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    @Override
+    public List<ErroImportacao> importarLote(List<LinhaImportacao> lote) {
+        List<ErroImportacao> erros = new ArrayList<>();
+        int inseridos = 0;
+
+        banco.escrita.lock();
+        try {
+            for (LinhaImportacao linha : lote) {
+                Cliente cliente = linha.cliente();
+                String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
+                if (banco.clientesPorCpf.containsKey(cpfLimpo)) {
+                    erros.add(new ErroImportacao(linha.linha(), "Este CPF já está cadastrado no sistema (RN03)."));
+                    continue;
+                }
+                inserir(cliente, cpfLimpo);
+                inseridos++;
+            }
+            if (inseridos > 0) {
+                VersaoDados.incrementar();
+                // Um evento por cliente importado afogaria os navegadores: pede para recarregarem a lista
+                FeedAlteracoes.publicar("cliente", FeedAlteracoes.RECARREGAR, null);
+            }
+        } finally {
+            banco.escrita.unlock();
+        }
+        return erros;
+    }
+
+    @Override
+    public void exportar(ProcessadorLinha<LinhaExportacao> processador) throws IOException {
+        List<Cliente> ordenados = new ArrayList<>(banco.clientes.values());
+        ordenados.sort(Comparator.comparing(Cliente::id));
+
+        for (Cliente cliente : ordenados) {
+            List<Contato> contatos = banco.contatosDe(cliente.id());
+            if (contatos.isEmpty()) {
+                processador.processar(new LinhaExportacao(cliente, null));
+            }
+            for (Contato contato : contatos) {
+                processador.processar(new LinhaExportacao(cliente, contato));
+            }
+        }
+    }
+
+    /**
+     * Clientes depois do cursor na ordem (nome, id), ou todos sem cursor.
+     */
+    private NavigableMap<CursorPaginacao, Cliente> faixa(String apos) {
+        if (apos == null) {
+            return banco.clientesPorNome;
+        }
+        CursorPaginacao cursor = CursorPaginacao.decodificar(apos);
+        return banco.clientesPorNome.tailMap(BancoMemoria.chaveNome(cursor.nome(), cursor.id()), false);
+    }
+
+    private ClienteComContatos comContatos(Cliente cliente, InclusaoContatos inclusao) {
+        List<Contato> contatos = banco.contatosDe(cliente.id());
+        return new ClienteComContatos(cliente, contatos.size(), inclusao == InclusaoContatos.CONTATOS ? contatos : null);
+    }
+
+    /**
+     * Inclui o cliente em todos os índices. Chamado com a trava de escrita.
+     */
+    private Cliente inserir(Cliente cliente, String cpfLimpo) {
+        Cliente gravado = new Cliente(banco.proximoIdCliente.getAndIncrement(), cliente.nome(), cpfLimpo,
+                cliente.dataNascimento(), cliente.endereco());
+        banco.clientes.put(gravado.id(), gravado);
+        banco.clientesPorNome.put(BancoMemoria.chaveNome(gravado.nome(), gravado.id()), gravado);
+        banco.clientesPorCpf.put(cpfLimpo, gravado.id());
+        banco.indiceBusca.atualizar(gravado);
+        banco.alterado();
+        return gravado;
+    }
+
+    /**
+     * Troca o cliente nos índices (nome e CPF podem ter mudado). Chamado com a trava de escrita.
+     */
+    private void substituir(Cliente anterior, Cliente gravado) {
+        banco.clientesPorNome.remove(BancoMemoria.chaveNome(anterior.nome(), anterior.id()));
+        banco.clientesPorCpf.remove(anterior.cpf());
+        banco.clientes.put(gravado.id(), gravado);
+        banco.clientesPorNome.put(BancoMemoria.chaveNome(gravado.nome(), gravado.id()), gravado);
+        banco.clientesPorCpf.put(gravado.cpf(), gravado.id());
+        banco.indiceBusca.atualizar(gravado);
+        banco.alterado();
+    }
+}
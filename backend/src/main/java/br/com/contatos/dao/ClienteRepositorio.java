@@ -0,0 +1,114 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.ClienteComContatos;
+import br.com.contatos.model.ErroImportacao;
+import br.com.contatos.model.LinhaExportacao;
+import br.com.contatos.model.LinhaImportacao;
+import br.com.contatos.model.Pagina;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operações de Cliente usadas pelos servlets. Implementações: {@link ClienteDAO} (MySQL)
+ * e {@link ClienteDAOMemoria}; a escolhida por agenda.armazenamento vem de {@link Repositorios#clientes()}.
+ */
+public interface ClienteRepositorio {
+
+    /**
+     * Resultado do upsert por CPF: o cliente gravado e se ele foi criado (ou atualizado).
+     */
+    record ResultadoUpsert(Cliente cliente, boolean criado) { }
+
+    /**
+     * RF01: Cadastra um novo cliente (com limpeza de CPF).
+     *
+     * @throws CpfDuplicadoException se o CPF já estiver cadastrado (RN03)
+     */
+    Cliente salvar(Cliente cliente) throws SQLException;
+
+    /**
+     * Upsert por CPF: cria o cliente ou atualiza nome, data de nascimento e endereço do dono do CPF.
+     */
+    ResultadoUpsert salvarOuAtualizarPorCpf(Cliente cliente) throws SQLException;
+
+    /**
+     * RF04: Lista os clientes ordenados por nome, uma página por vez.
+     */
+    default Pagina<Cliente> listarTodos(String apos, int limite) throws SQLException, IOException {
+        List<Cliente> clientes = new ArrayList<>();
+        String proximoCursor = listarTodos(apos, limite, clientes::add);
+        return new Pagina<>(clientes, proximoCursor);
+    }
+
+    /**
+     * RF04 (streaming).
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    String listarTodos(String apos, int limite, ProcessadorLinha<Cliente> processador) throws SQLException, IOException;
+
+    /**
+     * RF04 com a contagem de contatos (ou os contatos) de cada cliente.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    String listarTodos(String apos, int limite, InclusaoContatos inclusao,
+                       ProcessadorLinha<ClienteComContatos> processador) throws SQLException, IOException;
+
+    /**
+     * RF05: Busca clientes por Nome (parcial) ou CPF (parcial), paginado como {@link #listarTodos}.
+     */
+    default Pagina<Cliente> buscar(String termo, String apos, int limite) throws SQLException, IOException {
+        List<Cliente> clientes = new ArrayList<>();
+        String proximoCursor = buscar(termo, apos, limite, clientes::add);
+        return new Pagina<>(clientes, proximoCursor);
+    }
+
+    /**
+     * RF05 (streaming).
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    String buscar(String termo, String apos, int limite, ProcessadorLinha<Cliente> processador) throws SQLException, IOException;
+
+    /**
+     * RF05 com a contagem de contatos (ou os contatos) de cada cliente.
+     *
+     * @return cursor da próxima página, ou null se esta for a última
+     */
+    String buscar(String termo, String apos, int limite, InclusaoContatos inclusao,
+                  ProcessadorLinha<ClienteComContatos> processador) throws SQLException, IOException;
+
+    /**
+     * RF02 (Parte 1): Busca um cliente pelo ID, ou null se não existir.
+     */
+    Cliente buscarPorId(int id) throws SQLException;
+
+    /**
+     * RF02 (Parte 2): Atualiza os dados de um cliente.
+     *
+     * @throws CpfDuplicadoException se o novo CPF pertencer a outro cliente (RN03)
+     */
+    Cliente atualizar(Cliente cliente) throws SQLException;
+
+    /**
+     * RF03: Exclui um cliente e (RN07) todos os seus contatos associados.
+     */
+    void excluir(int clienteId) throws SQLException;
+
+    /**
+     * Importação em lote de clientes já validados (RN01/RN05), conferindo RN03.
+     *
+     * @return as linhas rejeitadas; as demais foram gravadas
+     */
+    List<ErroImportacao> importarLote(List<LinhaImportacao> lote) throws SQLException;
+
+    /**
+     * Exportação: cada cliente com cada um dos seus contatos (ou com null, se não tiver), ordenado por (cliente, contato).
+     */
+    void exportar(ProcessadorLinha<LinhaExportacao> processador) throws SQLException, IOException;
+}
@@ -1,45 +1,169 @@
 package br.com.contatos.dao;
 
 import br.com.contatos.model.Contato;
+import br.com.contatos.util.CacheTTL;
+import br.com.contatos.util.Configuracao;
 import br.com.contatos.util.ConnectionFactory; // Importa sua classe de conexão
+import br.com.contatos.util.RoteadorReplicas;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class ContatoDAO {
+public class ContatoDAO implements ContatoRepositorio {
 
     /**
-     * RF09: Lista todos os contatos de um cliente específico.
+     * RF09: cache das listas de contatos por cliente, invalidado por qualquer escrita em Contato.
      */
-    public List<Contato> listarPorCliente(int clienteId) throws SQLException {
-        String sql = "SELECT * FROM Contato WHERE cliente_id = ?";
-        List<Contato> contatos = new ArrayList<>();
+    private static final CacheTTL<Integer, List<Contato>> CACHE_CONTATOS = new CacheTTL<>(
+            Configuracao.inteiro("agenda.cache.contatos.tamanho", 10_000),
+            Configuracao.longo("agenda.cache.contatos.ttlMs", 60_000));
 
-        try (Connection conn = ConnectionFactory.getConnection();
+    /**
+     * Quantos ids vão em cada "cliente_id IN (...)" de {@link #listarPorClientes}.
+     */
+    private static final int TAMANHO_BLOCO_IN = Configuracao.inteiro("agenda.contatos.tamanhoBlocoIn", 500);
+
+    /**
+     * RF09 (streaming): entrega cada contato ao processador à medida que é lido.
+     * Na falta do cache, a lista lida do banco também é guardada para as próximas chamadas.
+     */
+    @Override
+    public void listarPorCliente(int clienteId, ProcessadorLinha<Contato> processador) throws SQLException, IOException {
+        List<Contato> emCache = CACHE_CONTATOS.obter(clienteId);
+        if (emCache != null) {
+            for (Contato contato : emCache) {
+                processador.processar(contato);
+            }
+            return;
+        }
+
+        boolean guardar = RoteadorReplicas.leituraCompartilhavel();
+        long geracao = CACHE_CONTATOS.geracao();
+        List<Contato> lidos = new ArrayList<>();
+        consultarPorCliente(clienteId, contato -> {
+            lidos.add(contato);
+            processador.processar(contato);
+        });
+        if (guardar) {
+            CACHE_CONTATOS.guardar(clienteId, List.copyOf(lidos), geracao);
+        }
+    }
+
+    private void consultarPorCliente(int clienteId, ProcessadorLinha<Contato> processador) throws SQLException, IOException {
+        String sql = "SELECT " + MapeadorLinha.CONTATO.colunas() + " FROM Contato WHERE cliente_id = ?";
+
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, clienteId);
+            ConnectionFactory.definirFetch(stmt, ConnectionFactory.SEM_LIMITE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    processador.processar(MapeadorLinha.CONTATO.mapear(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * Quantos contatos tem cada um dos clientes informados, numa única consulta agregada.
+     * Clientes sem contatos não aparecem no mapa.
+     */
+    @Override
+    public Map<Integer, Integer> contarPorClientes(Collection<Integer> clienteIds) throws SQLException {
+        Map<Integer, Integer> totais = new HashMap<>();
+        if (clienteIds.isEmpty()) {
+            return totais;
+        }
+        String sql = "SELECT cliente_id, COUNT(*) FROM Contato WHERE cliente_id IN ("
+                + MarcadoresIn.marcadores(clienteIds.size()) + ") GROUP BY cliente_id";
+
+        try (Connection conn = ConnectionFactory.getConnectionLeitura();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            MarcadoresIn.definir(stmt, 1, new ArrayList<>(clienteIds));
+            ConnectionFactory.definirFetch(stmt, clienteIds.size());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Contato contato = new Contato(
-                            rs.getInt("id"),
-                            rs.getInt("cliente_id"),
-                            rs.getString("tipo"),
-                            rs.getString("valor"),
-                            rs.getString("observacao")
-                    );
-                    contatos.add(contato);
+                    totais.put(rs.getInt(1), rs.getInt(2));
                 }
             }
         }
-        return contatos;
+        return totais;
+    }
+
+    /**
+     * RF09 para vários clientes de uma vez, agrupado por cliente na ordem pedida
+     * (clientes sem contatos vêm com lista vazia). Os que estão no cache não vão ao banco;
+     * os demais são lidos com "cliente_id IN (...)", em blocos de agenda.contatos.tamanhoBlocoIn ids.
+     */
+    @Override
+    public Map<Integer, List<Contato>> listarPorClientes(Collection<Integer> clienteIds) throws SQLException {
+        Map<Integer, List<Contato>> porCliente = new LinkedHashMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer clienteId : clienteIds) {
+            if (porCliente.containsKey(clienteId)) {
+                continue;
+            }
+            List<Contato> emCache = CACHE_CONTATOS.obter(clienteId);
+            porCliente.put(clienteId, emCache);
+            if (emCache == null) {
+                faltantes.add(clienteId);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return porCliente;
+        }
+
+        boolean guardar = RoteadorReplicas.leituraCompartilhavel();
+        long geracao = CACHE_CONTATOS.geracao();
+        for (Integer clienteId : faltantes) {
+            porCliente.put(clienteId, new ArrayList<>());
+        }
+
+        try (Connection conn = ConnectionFactory.getConnectionLeitura()) {
+            for (int inicio = 0; inicio < faltantes.size(); inicio += TAMANHO_BLOCO_IN) {
+                List<Integer> bloco = faltantes.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_IN, faltantes.size()));
+                String sql = "SELECT " + MapeadorLinha.CONTATO.colunas() + " FROM Contato WHERE cliente_id IN ("
+                        + MarcadoresIn.marcadores(bloco.size()) + ") ORDER BY cliente_id, id";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    MarcadoresIn.definir(stmt, 1, bloco);
+                    ConnectionFactory.definirFetch(stmt, ConnectionFactory.SEM_LIMITE);
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Contato contato = MapeadorLinha.CONTATO.mapear(rs);
+                            porCliente.get(contato.clienteId()).add(contato);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Integer clienteId : faltantes) {
+            List<Contato> contatos = List.copyOf(porCliente.get(clienteId));
+            porCliente.put(clienteId, contatos);
+            if (guardar) {
+                CACHE_CONTATOS.guardar(clienteId, contatos, geracao);
+            }
+        }
+        return porCliente;
     }
 
     /**
      * RF06: Cadastra um novo contato para um cliente.
      */
+    @Override
     public Contato salvar(Contato contato) throws SQLException {
         String sql = "INSERT INTO Contato (cliente_id, tipo, valor, observacao) VALUES (?, ?, ?, ?)";
 
@@ -53,11 +177,16 @@ public class ContatoDAO {
 
             stmt.executeUpdate();
 
+            invalidarCache(contato.clienteId());
+            VersaoDados.incrementar();
+
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
                     int idGerado = rs.getInt(1);
                     // Retorna o objeto Contato completo com o ID gerado
-                    return new Contato(idGerado, contato.clienteId(), contato.tipo(), contato.valor(), contato.observacao());
+                    Contato gravado = new Contato(idGerado, contato.clienteId(), contato.tipo(), contato.valor(), contato.observacao());
+                    FeedAlteracoes.publicar("contato", FeedAlteracoes.CRIADO, gravado);
+                    return gravado;
                 }
             }
         }
@@ -67,18 +196,27 @@ public class ContatoDAO {
     /**
      * RF07: Atualiza os dados de um contato existente.
      */
+    @Override
     public Contato atualizar(Contato contato) throws SQLException {
         String sql = "UPDATE Contato SET tipo = ?, valor = ?, observacao = ? WHERE id = ?";
 
         try (Connection conn = ConnectionFactory.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            Integer clienteId = buscarClienteId(conn, contato.id()); // o clienteId do JSON não é confiável
+
             stmt.setString(1, contato.tipo());
             stmt.setString(2, contato.valor());
             stmt.setString(3, contato.observacao());
             stmt.setInt(4, contato.id()); // O ID é a condição do WHERE
 
             stmt.executeUpdate();
+            if (clienteId != null) {
+                invalidarCache(clienteId);
+                FeedAlteracoes.publicar("contato", FeedAlteracoes.ATUALIZADO,
+                        new Contato(contato.id(), clienteId, contato.tipo(), contato.valor(), contato.observacao()));
+            }
+            VersaoDados.incrementar();
             return contato; // Retorna o objeto atualizado
         }
     }
@@ -86,14 +224,158 @@ public class ContatoDAO {
     /**
      * RF08: Exclui um contato específico.
      */
+    @Override
     public void excluir(int id) throws SQLException {
         String sql = "DELETE FROM Contato WHERE id = ?";
 
         try (Connection conn = ConnectionFactory.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            Integer clienteId = buscarClienteId(conn, id);
+
             stmt.setInt(1, id);
             stmt.executeUpdate();
+            if (clienteId != null) {
+                invalidarCache(clienteId);
+                FeedAlteracoes.publicar("contato", FeedAlteracoes.EXCLUIDO, Map.of("id", id, "clienteId", clienteId));
+            }
+            VersaoDados.incrementar();
+        }
+    }
+
+    /**
+     * RF06/RF07/RF08 em lote: exclui, atualiza e cria contatos de um cliente numa única transação,
+     * com um executeBatch por tipo de operação. A linha do cliente fica travada (FOR UPDATE)
+     * até o commit, para que dois lotes do mesmo cliente não se misturem.
+     *
+     * @return os contatos do cliente depois do lote, ou null se o cliente não existe
+     * @throws IllegalArgumentException se algum contato a atualizar/excluir não é desse cliente
+     */
+    @Override
+    public List<Contato> aplicarLote(int clienteId, List<Contato> criar, List<Contato> atualizar, List<Integer> excluir)
+            throws SQLException {
+        Connection conn = null;
+        List<Contato> criados = new ArrayList<>();
+        List<Contato> resultado = new ArrayList<>();
+        try {
+            conn = ConnectionFactory.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM Cliente WHERE id = ? FOR UPDATE")) {
+                stmt.setInt(1, clienteId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return null;
+                    }
+                }
+            }
+
+            Set<Integer> doCliente = new HashSet<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM Contato WHERE cliente_id = ?")) {
+                stmt.setInt(1, clienteId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        doCliente.add(rs.getInt(1));
+                    }
+                }
+            }
+            for (Contato contato : atualizar) {
+                conferirDono(doCliente, contato.id(), clienteId);
+            }
+            for (Integer id : excluir) {
+                conferirDono(doCliente, id, clienteId);
+            }
+
+            if (!excluir.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Contato WHERE id = ?")) {
+                    for (Integer id : excluir) {
+                        stmt.setInt(1, id);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            if (!atualizar.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Contato SET tipo = ?, valor = ?, observacao = ? WHERE id = ?")) {
+                    for (Contato contato : atualizar) {
+                        stmt.setString(1, contato.tipo());
+                        stmt.setString(2, contato.valor());
+                        stmt.setString(3, contato.observacao());
+                        stmt.setInt(4, contato.id());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            if (!criar.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO Contato (cliente_id, tipo, valor, observacao) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (Contato contato : criar) {
+                        stmt.setInt(1, clienteId);
+                        stmt.setString(2, contato.tipo());
+                        stmt.setString(3, contato.valor());
+                        stmt.setString(4, contato.observacao());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        for (int i = 0; i < criar.size() && rs.next(); i++) {
+                            Contato c = criar.get(i);
+                            criados.add(new Contato(rs.getInt(1), clienteId, c.tipo(), c.valor(), c.observacao()));
+                        }
+                    }
+                }
+            }
+
+            // A lista final sai da mesma transação, já com os ids gerados
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT " + MapeadorLinha.CONTATO.colunas()
+                    + " FROM Contato WHERE cliente_id = ? ORDER BY id")) {
+                stmt.setInt(1, clienteId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resultado.add(MapeadorLinha.CONTATO.mapear(rs));
+                    }
+                }
+            }
+
+            conn.commit();
+
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) conn.rollback();
+            if (e instanceof SQLException) {
+                throw new SQLException("Erro ao aplicar lote de contatos", e);
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+
+        invalidarCache(clienteId);
+        VersaoDados.incrementar();
+        for (Integer id : excluir) {
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.EXCLUIDO, Map.of("id", id, "clienteId", clienteId));
+        }
+        for (Contato contato : atualizar) {
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.ATUALIZADO,
+                    new Contato(contato.id(), clienteId, contato.tipo(), contato.valor(), contato.observacao()));
+        }
+        for (Contato contato : criados) {
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.CRIADO, contato);
+        }
+        return resultado;
+    }
+
+    private void conferirDono(Set<Integer> doCliente, Integer contatoId, int clienteId) {
+        if (!doCliente.contains(contatoId)) {
+            throw new IllegalArgumentException("O contato " + contatoId + " não pertence ao cliente " + clienteId + ".");
         }
     }
 
@@ -109,5 +391,29 @@ public class ContatoDAO {
             stmt.setInt(1, clienteId);
             stmt.executeUpdate();
         }
+        invalidarCache(clienteId);
+    }
+
+    public static CacheTTL.Estatisticas estatisticasCache() {
+        return CACHE_CONTATOS.estatisticas();
+    }
+
+    /**
+     * Remove do cache a lista de contatos do cliente (usado também pelo ClienteDAO após o commit do RF03).
+     */
+    static void invalidarCache(int clienteId) {
+        CACHE_CONTATOS.invalidar(clienteId);
+    }
+
+    /**
+     * Descobre a qual cliente o contato pertence, para invalidar a lista certa no cache.
+     */
+    private Integer buscarClienteId(Connection conn, int contatoId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT cliente_id FROM Contato WHERE id = ?")) {
+            stmt.setInt(1, contatoId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
     }
 }
\ No newline at end of file
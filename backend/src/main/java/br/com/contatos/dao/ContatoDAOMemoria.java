@@ -0,0 +1,195 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Contato;
+
+import java.io.IOException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ContatoRepositorio} sobre o {@link BancoMemoria}. Os contatos de cada cliente ficam
+ * numa lista imutável já em ordem de id, então RF09 é uma única consulta ao mapa.
+ */
+public class ContatoDAOMemoria implements ContatoRepositorio {
+
+    private final BancoMemoria banco;
+
+    public ContatoDAOMemoria(BancoMemoria banco) {
+        this.banco = banco;
+    }
+
+    @Override
+    public void listarPorCliente(int clienteId, ProcessadorLinha<Contato> processador) throws IOException {
+        for (Contato contato : banco.contatosDe(clienteId)) {
+            processador.processar(contato);
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> contarPorClientes(Collection<Integer> clienteIds) {
+        Map<Integer, Integer> totais = new HashMap<>();
+        for (Integer clienteId : clienteIds) {
+            int total = banco.contatosDe(clienteId).size();
+            if (total > 0) {
+                totais.put(clienteId, total);
+            }
+        }
+        return totais;
+    }
+
+    @Override
+    public Map<Integer, List<Contato>> listarPorClientes(Collection<Integer> clienteIds) {
+        Map<Integer, List<Contato>> porCliente = new LinkedHashMap<>();
+        for (Integer clienteId : clienteIds) {
+            porCliente.putIfAbsent(clienteId, banco.contatosDe(clienteId));
+        }
+        return porCliente;
+    }
+
+    /**
+     * @throws SQLIntegrityConstraintViolationException se o cliente não existe (como a FK de Contato no banco)
+     */
+    @Override
+    public Contato salvar(Contato contato) throws SQLIntegrityConstraintViolationException {
+        banco.escrita.lock();
+        try {
+            if (!banco.clientes.containsKey(contato.clienteId())) {
+                throw new SQLIntegrityConstraintViolationException("O cliente " + contato.clienteId() + " não existe.");
+            }
+            Contato gravado = inserir(contato.clienteId(), contato);
+            List<Contato> lista = new ArrayList<>(banco.contatosDe(contato.clienteId()));
+            lista.add(gravado);
+            banco.definirContatos(contato.clienteId(), lista);
+
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.CRIADO, gravado);
+            return gravado;
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    @Override
+    public Contato atualizar(Contato contato) {
+        banco.escrita.lock();
+        try {
+            Contato anterior = banco.contatos.get(contato.id());
+            if (anterior == null) {
+                return contato;
+            }
+            // o clienteId do JSON não é confiável: fica o do contato gravado
+            Contato gravado = new Contato(contato.id(), anterior.clienteId(), contato.tipo(), contato.valor(), contato.observacao());
+            banco.contatos.put(gravado.id(), gravado);
+            List<Contato> lista = new ArrayList<>(banco.contatosDe(gravado.clienteId()));
+            lista.replaceAll(c -> c.id().equals(gravado.id()) ? gravado : c);
+            banco.definirContatos(gravado.clienteId(), lista);
+            banco.alterado();
+
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.ATUALIZADO, gravado);
+            return contato;
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    @Override
+    public void excluir(int id) {
+        banco.escrita.lock();
+        try {
+            Contato removido = banco.contatos.remove(id);
+            if (removido == null) {
+                return;
+            }
+            List<Contato> lista = new ArrayList<>(banco.contatosDe(removido.clienteId()));
+            lista.removeIf(c -> c.id() == id);
+            banco.definirContatos(removido.clienteId(), lista);
+            banco.alterado();
+
+            VersaoDados.incrementar();
+            FeedAlteracoes.publicar("contato", FeedAlteracoes.EXCLUIDO, Map.of("id", id, "clienteId", removido.clienteId()));
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    /**
+     * Tudo ou nada como no {@link ContatoDAO}: a posse dos contatos é conferida antes de qualquer alteração.
+     */
+    @Override
+    public List<Contato> aplicarLote(int clienteId, List<Contato> criar, List<Contato> atualizar, List<Integer> excluir) {
+        banco.escrita.lock();
+        try {
+            if (!banco.clientes.containsKey(clienteId)) {
+                return null;
+            }
+            for (Contato contato : atualizar) {
+                conferirDono(contato.id(), clienteId);
+            }
+            for (Integer id : excluir) {
+                conferirDono(id, clienteId);
+            }
+
+            Map<Integer, Contato> porId = new LinkedHashMap<>();
+            for (Contato contato : banco.contatosDe(clienteId)) {
+                porId.put(contato.id(), contato);
+            }
+            for (Integer id : excluir) {
+                porId.remove(id);
+                banco.contatos.remove(id);
+            }
+            for (Contato contato : atualizar) {
+                Contato gravado = new Contato(contato.id(), clienteId, contato.tipo(), contato.valor(), contato.observacao());
+                porId.put(gravado.id(), gravado);
+                banco.contatos.put(gravado.id(), gravado);
+            }
+            List<Contato> criados = new ArrayList<>(criar.size());
+            for (Contato contato : criar) {
+                Contato gravado = inserir(clienteId, contato);
+                porId.put(gravado.id(), gravado);
+                criados.add(gravado);
+            }
+            List<Contato> resultado = new ArrayList<>(porId.values());
+            banco.definirContatos(clienteId, resultado);
+            banco.alterado();
+
+            VersaoDados.incrementar();
+            for (Integer id : excluir) {
+                FeedAlteracoes.publicar("contato", FeedAlteracoes.EXCLUIDO, Map.of("id", id, "clienteId", clienteId));
+            }
+            for (Contato contato : atualizar) {
+                FeedAlteracoes.publicar("contato", FeedAlteracoes.ATUALIZADO, porId.get(contato.id()));
+            }
+            for (Contato contato : criados) {
+                FeedAlteracoes.publicar("contato", FeedAlteracoes.CRIADO, contato);
+            }
+            return resultado;
+        } finally {
+            banco.escrita.unlock();
+        }
+    }
+
+    private void conferirDono(Integer contatoId, int clienteId) {
+        Contato contato = banco.contatos.get(contatoId);
+        if (contato == null || contato.clienteId() != clienteId) {
+            throw new IllegalArgumentException("O contato " + contatoId + " não pertence ao cliente " + clienteId + ".");
+        }
+    }
+
+    /**
+     * Gera o id e guarda o contato no mapa por id (a lista do cliente fica com quem chamou).
+     * Chamado com a trava de escrita.
+     */
+    private Contato inserir(int clienteId, Contato contato) {
+        Contato gravado = new Contato(banco.proximoIdContato.getAndIncrement(), clienteId,
+                contato.tipo(), contato.valor(), contato.observacao());
+        banco.contatos.put(gravado.id(), gravado);
+        banco.alterado();
+        return gravado;
+    }
+}
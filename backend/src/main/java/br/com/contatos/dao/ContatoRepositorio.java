@@ -0,0 +1,66 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Contato;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operações de Contato usadas pelos servlets. Implementações: {@link ContatoDAO} (MySQL)
+ * e {@link ContatoDAOMemoria}; a escolhida por agenda.armazenamento vem de {@link Repositorios#contatos()}.
+ */
+public interface ContatoRepositorio {
+
+    /**
+     * RF09: Lista todos os contatos de um cliente específico.
+     */
+    default List<Contato> listarPorCliente(int clienteId) throws SQLException, IOException {
+        List<Contato> contatos = new ArrayList<>();
+        listarPorCliente(clienteId, contatos::add);
+        return contatos;
+    }
+
+    /**
+     * RF09 (streaming): entrega cada contato ao processador à medida que é lido.
+     */
+    void listarPorCliente(int clienteId, ProcessadorLinha<Contato> processador) throws SQLException, IOException;
+
+    /**
+     * Quantos contatos tem cada um dos clientes informados. Clientes sem contatos não aparecem no mapa.
+     */
+    Map<Integer, Integer> contarPorClientes(Collection<Integer> clienteIds) throws SQLException;
+
+    /**
+     * RF09 para vários clientes de uma vez, agrupado por cliente na ordem pedida
+     * (clientes sem contatos vêm com lista vazia).
+     */
+    Map<Integer, List<Contato>> listarPorClientes(Collection<Integer> clienteIds) throws SQLException;
+
+    /**
+     * RF06: Cadastra um novo contato para um cliente.
+     */
+    Contato salvar(Contato contato) throws SQLException;
+
+    /**
+     * RF07: Atualiza os dados de um contato existente.
+     */
+    Contato atualizar(Contato contato) throws SQLException;
+
+    /**
+     * RF08: Exclui um contato específico.
+     */
+    void excluir(int id) throws SQLException;
+
+    /**
+     * RF06/RF07/RF08 em lote: exclui, atualiza e cria contatos de um cliente de uma vez só.
+     *
+     * @return os contatos do cliente depois do lote, ou null se o cliente não existe
+     * @throws IllegalArgumentException se algum contato a atualizar/excluir não é desse cliente
+     */
+    List<Contato> aplicarLote(int clienteId, List<Contato> criar, List<Contato> atualizar, List<Integer> excluir)
+            throws SQLException;
+}
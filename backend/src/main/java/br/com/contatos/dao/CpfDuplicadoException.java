@@ -0,0 +1,32 @@
+package br.com.contatos.dao;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * RN03: o banco recusou a gravação porque o CPF já pertence a outro cliente (violação do UNIQUE de cpf).
+ */
+public class CpfDuplicadoException extends SQLException {
+
+    private static final String MENSAGEM = "Este CPF já está cadastrado no sistema (RN03).";
+
+    public CpfDuplicadoException(SQLException causa) {
+        super(MENSAGEM, causa.getSQLState(), causa.getErrorCode(), causa);
+    }
+
+    /**
+     * Recusa detectada fora do banco (armazenamento em memória).
+     */
+    public CpfDuplicadoException() {
+        super(MENSAGEM, "23505");
+    }
+
+    /**
+     * Violação de chave única: 1062 no MySQL, SQLState 23505 no padrão (H2, PostgreSQL).
+     */
+    static boolean ehDuplicidade(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                ? e.getErrorCode() == 1062 || "23505".equals(e.getSQLState())
+                : "23505".equals(e.getSQLState());
+    }
+}
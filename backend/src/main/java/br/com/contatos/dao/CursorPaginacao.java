@@ -0,0 +1,35 @@
+package br.com.contatos.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor da paginação por chave (keyset) em (nome, id).
+ * Na busca (pelo índice em memória ou pelo banco) a ordem é (relevância desc, nome, id), por isso o cursor
+ * também carrega a relevância do último item (0 na listagem).
+ * Trafega como texto opaco em Base64 URL-safe no parâmetro "after".
+ */
+public record CursorPaginacao(int relevancia, String nome, int id) {
+
+    public CursorPaginacao(String nome, int id) {
+        this(0, nome, id);
+    }
+
+    public String codificar() {
+        String bruto = relevancia + ":" + id + ":" + nome;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException se o cursor não foi gerado por {@link #codificar()}
+     */
+    public static CursorPaginacao decodificar(String cursor) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = bruto.split(":", 3);
+            return new CursorPaginacao(Integer.parseInt(partes[0]), partes[2], Integer.parseInt(partes[1]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.util.Configuracao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed das alterações de clientes e contatos (criado, atualizado, excluido), publicado pelos DAOs
+ * após cada gravação confirmada e entregue aos navegadores pelo GET /api/eventos (SSE).
+ * <p>
+ * Os últimos agenda.feed.historico eventos ficam guardados para que uma reconexão continue do
+ * Last-Event-ID. Cada assinante tem uma fila limitada: quem não consome a tempo é desligado
+ * (a gravação nunca espera por ele) e, ao reconectar, retoma pelo histórico ou recebe "recarregar".
+ */
+public final class FeedAlteracoes {
+
+    public static final String CRIADO = "criado";
+    public static final String ATUALIZADO = "atualizado";
+    public static final String EXCLUIDO = "excluido";
+    /**
+     * Muitas alterações de uma vez (importação) ou histórico perdido: o cliente deve recarregar tudo.
+     */
+    public static final String RECARREGAR = "recarregar";
+
+    /**
+     * Um evento do feed. {@code id} é "instância-sequência", para não confundir eventos de antes de um reinício.
+     */
+    public record Evento(String id, String entidade, String tipo, Object registro) { }
+
+    private static final String INSTANCIA = Long.toString(System.currentTimeMillis(), 36);
+    private static final int HISTORICO = Configuracao.inteiro("agenda.feed.historico", 1000);
+    private static final int FILA_POR_ASSINANTE = Configuracao.inteiro("agenda.feed.filaPorAssinante", 256);
+
+    // Guardados por FeedAlteracoes.class: publicar e assinar precisam ver a mesma sequência
+    private static final ArrayDeque<Evento> ULTIMOS = new ArrayDeque<>();
+    private static final List<Assinatura> ASSINANTES = new ArrayList<>();
+    private static long sequencia;
+
+    private FeedAlteracoes() { }
+
+    /**
+     * Fila de eventos de um navegador conectado.
+     */
+    public static final class Assinatura {
+        private final BlockingQueue<Evento> fila = new ArrayBlockingQueue<>(FILA_POR_ASSINANTE);
+        private volatile boolean encerrada;
+
+        /**
+         * Próximo evento, ou null se nada chegou no tempo informado (hora de mandar um heartbeat).
+         */
+        public Evento proximo(long timeoutMs) throws InterruptedException {
+            // Desligado: só entrega o que já estava na fila, sem esperar
+            return encerrada ? fila.poll() : fila.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * true se o assinante foi desligado (ficou para trás ou cancelou) e a fila já foi entregue.
+         */
+        public boolean encerrada() {
+            return encerrada && fila.isEmpty();
+        }
+
+        public void cancelar() {
+            encerrada = true;
+            synchronized (FeedAlteracoes.class) {
+                ASSINANTES.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Registra um assinante. Se {@code ultimoEventoId} for de um evento ainda no histórico, os
+     * posteriores a ele já vêm na fila; se for de antes do histórico (ou de outra instância),
+     * o primeiro evento é "recarregar".
+     */
+    public static Assinatura assinar(String ultimoEventoId) {
+        Assinatura assinatura = new Assinatura();
+        synchronized (FeedAlteracoes.class) {
+            if (ultimoEventoId != null && !ultimoEventoId.isEmpty()) {
+                long ultimo = sequenciaDe(ultimoEventoId);
+                long maisAntigo = ULTIMOS.isEmpty() ? sequencia + 1 : sequenciaDe(ULTIMOS.peekFirst().id());
+                if (ultimo < 0 || ultimo > sequencia || ultimo < maisAntigo - 1
+                        || sequencia - ultimo > FILA_POR_ASSINANTE) {
+                    assinatura.fila.offer(new Evento(INSTANCIA + "-" + sequencia, "*", RECARREGAR, null));
+                } else {
+                    for (Evento evento : ULTIMOS) {
+                        if (sequenciaDe(evento.id()) > ultimo) {
+                            assinatura.fila.offer(evento);
+                        }
+                    }
+                }
+            }
+            ASSINANTES.add(assinatura);
+        }
+        return assinatura;
+    }
+
+    public static synchronized int assinantes() {
+        return ASSINANTES.size();
+    }
+
+    /**
+     * Publica o evento para todos os assinantes (chamado depois do commit).
+     */
+    static synchronized void publicar(String entidade, String tipo, Object registro) {
+        Evento evento = new Evento(INSTANCIA + "-" + (++sequencia), entidade, tipo, registro);
+        ULTIMOS.addLast(evento);
+        while (ULTIMOS.size() > HISTORICO) {
+            ULTIMOS.removeFirst();
+        }
+        for (Iterator<Assinatura> it = ASSINANTES.iterator(); it.hasNext(); ) {
+            Assinatura assinatura = it.next();
+            if (!assinatura.fila.offer(evento)) {
+                // Consumidor lento: desliga em vez de segurar a gravação ou acumular memória
+                assinatura.encerrada = true;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Sequência do id "instância-sequência"; -1 se o id for de outra instância ou inválido.
+     */
+    private static long sequenciaDe(String id) {
+        int separador = id.lastIndexOf('-');
+        if (separador < 0 || !id.substring(0, separador).equals(INSTANCIA)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.contatos.dao;
+
+/**
+ * O que acompanha cada cliente na listagem/busca (GET /api/clientes?incluirContagem=true / incluirContatos=true).
+ */
+public enum InclusaoContatos {
+    NENHUM,
+    CONTAGEM,
+    CONTATOS
+}
@@ -0,0 +1,493 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Pagina;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de busca em memória para o RF05, no lugar do "nome LIKE '%termo%'" que varre a tabela.
+ * - Nome: conjunto ordenado por nome sem acentos e em minúsculas (prefixo do nome), prefixos de
+ *   1 e 2 letras das demais palavras (termos curtos) e trigramas (trecho do nome, a partir de 3 letras).
+ * - CPF: conjunto ordenado por CPF para busca por prefixo, a partir de {@value #MINIMO_DIGITOS_CPF} dígitos.
+ * Guarda o próprio Cliente, então a busca não precisa ir ao banco.
+ * <p>
+ * Encontra o mesmo que a busca no banco (nome contém o termo, CPF começa pelos dígitos, de qualquer
+ * tamanho) e na mesma ordem: relevância, nome e id (ver {@link #relevancia(Cliente, String)}).
+ * O resultado é montado faixa a faixa de relevância (CPF, nome, palavra, trecho), cada uma percorrida
+ * na ordem de nome e id; a busca para assim que tem a página mais um. Termos de 1 ou 2 letras e
+ * prefixos de CPF de 1 ou 2 dígitos casam com boa parte da base, então percorrem o conjunto por nome
+ * e param logo, em vez de usar trigramas ou o conjunto por CPF.
+ */
+public class IndiceBuscaCliente {
+
+    // Relevância: quanto maior, mais acima no resultado
+    private static final int CPF_IGUAL = 100;
+    private static final int CPF_PREFIXO = 80;
+    private static final int NOME_IGUAL = 60;
+    private static final int NOME_PREFIXO = 50;
+    private static final int PALAVRA_PREFIXO = 40;
+    private static final int NOME_CONTEM = 20;
+
+    /**
+     * A mesma relevância calculada pelo banco, na busca sem o índice. Parâmetros: dígitos do CPF, o mesmo
+     * seguido de "%", termo normalizado, termo + "%" e "% " + termo + "%" (os dois últimos com o LIKE escapado).
+     */
+    static final String RELEVANCIA_SQL = "CASE WHEN cpf = ? THEN " + CPF_IGUAL
+            + " WHEN cpf LIKE ? THEN " + CPF_PREFIXO
+            + " WHEN nome = ? THEN " + NOME_IGUAL
+            + " WHEN nome LIKE ? THEN " + NOME_PREFIXO
+            + " WHEN nome LIKE ? THEN " + PALAVRA_PREFIXO
+            + " ELSE " + NOME_CONTEM + " END";
+
+    /** Abaixo disso o termo não forma trigrama e o trecho é procurado percorrendo os nomes. */
+    private static final int MINIMO_TRECHO = 3;
+    /** Prefixos de CPF mais curtos cobrem 1% ou mais da base e são procurados percorrendo os nomes. */
+    private static final int MINIMO_DIGITOS_CPF = 3;
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private record Entrada(Cliente cliente, String nomeNormalizado, String cpf) { }
+
+    private record Resultado(Entrada entrada, int relevancia) { }
+
+    private static final Comparator<Resultado> ORDEM = Comparator
+            .comparingInt((Resultado r) -> -r.relevancia())
+            .thenComparing(r -> r.entrada().nomeNormalizado())
+            .thenComparingInt(r -> r.entrada().cliente().id());
+
+    private static final Comparator<Entrada> POR_NOME = Comparator
+            .comparing(Entrada::nomeNormalizado)
+            .thenComparingInt(e -> e.cliente().id());
+    private static final Comparator<Entrada> POR_CPF = Comparator
+            .comparing(Entrada::cpf)
+            .thenComparingInt(e -> e.cliente().id());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entrada> porId = new HashMap<>();
+    private final TreeSet<Entrada> porNome = new TreeSet<>(POR_NOME);
+    private final Map<String, TreeSet<Entrada>> palavrasCurtas = new HashMap<>();
+    private final Map<String, Set<Integer>> trigramas = new HashMap<>();
+    private final TreeSet<Entrada> porCpf = new TreeSet<>(POR_CPF);
+
+    /** Alterações feitas enquanto a carga inicial está em andamento, reaplicadas no fim. */
+    private List<Runnable> pendentes;
+    private volatile boolean pronto;
+
+    /**
+     * O índice só responde buscas depois da carga inicial; antes disso o DAO usa o banco.
+     */
+    public boolean pronto() {
+        return pronto;
+    }
+
+    public void iniciarCarga() {
+        lock.writeLock().lock();
+        try {
+            pronto = false;
+            limpar();
+            pendentes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void carregar(Cliente cliente) {
+        lock.writeLock().lock();
+        try {
+            indexar(cliente);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void concluirCarga() {
+        lock.writeLock().lock();
+        try {
+            pendentes.forEach(Runnable::run);
+            pendentes = null;
+            pronto = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta uma carga que falhou; as buscas continuam indo ao banco.
+     */
+    public void abortarCarga() {
+        lock.writeLock().lock();
+        try {
+            limpar();
+            pendentes = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inclui ou substitui o cliente (salvar/atualizar). O CPF deve estar só com dígitos.
+     */
+    public void atualizar(Cliente cliente) {
+        lock.writeLock().lock();
+        try {
+            indexar(cliente);
+            if (pendentes != null) {
+                pendentes.add(() -> indexar(cliente));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(int id) {
+        lock.writeLock().lock();
+        try {
+            desindexar(id);
+            if (pendentes != null) {
+                pendentes.add(() -> desindexar(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * RF05: clientes cujo nome contém o termo ou cujo CPF começa pelos dígitos do termo,
+     * ordenados por relevância, nome e id.
+     */
+    public Pagina<Cliente> buscar(String termo, CursorPaginacao apos, int limite) {
+        Coleta coleta = new Coleta(normalizar(termo), digitos(termo),
+                apos == null ? null : new Resultado(chave(normalizar(apos.nome()), apos.id(), apos.nome()), apos.relevancia()),
+                limite + 1); // o extra indica se há próxima página
+
+        lock.readLock().lock();
+        try {
+            coletarPorCpf(coleta);
+            coletarPorInicioDoNome(coleta);
+            coletarPorPalavraOuTrecho(coleta);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Resultado> resultados = coleta.resultados;
+        List<Cliente> itens = new ArrayList<>(Math.min(limite, resultados.size()));
+        for (int i = 0; i < resultados.size() && i < limite; i++) {
+            itens.add(resultados.get(i).entrada().cliente());
+        }
+
+        String proximoCursor = null;
+        if (resultados.size() > limite) {
+            Resultado ultimo = resultados.get(limite - 1);
+            proximoCursor = new CursorPaginacao(ultimo.relevancia(), ultimo.entrada().cliente().nome(),
+                    ultimo.entrada().cliente().id()).codificar();
+        }
+        return new Pagina<>(itens, proximoCursor);
+    }
+
+    /**
+     * Remove acentos, passa para minúsculas e junta espaços repetidos.
+     */
+    public static String normalizar(String texto) {
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Dígitos do termo, comparados com o início do CPF.
+     */
+    public static String digitos(String termo) {
+        return termo.replaceAll("[^0-9]", "");
+    }
+
+    /**
+     * Relevância do cliente para o termo, a mesma que a busca no banco calcula em SQL
+     * (CPF igual, CPF prefixo, nome igual, nome prefixo, palavra prefixo, trecho); vai no cursor da página.
+     */
+    public static int relevancia(Cliente cliente, String termo) {
+        return relevancia(normalizar(cliente.nome()), cliente.cpf(), normalizar(termo), digitos(termo));
+    }
+
+    /**
+     * Faixa do CPF (igual ou prefixo): um trecho contínuo do conjunto ordenado por CPF, reordenado por nome.
+     * Com 3 dígitos ou mais são no máximo uns 0,1% da base; com menos, um em cada 10 ou 100 clientes
+     * casa, então percorrer os nomes em ordem enche a página logo.
+     */
+    private void coletarPorCpf(Coleta coleta) {
+        if (coleta.cpf.isEmpty() || !coleta.alcanca(CPF_PREFIXO)) {
+            return;
+        }
+        if (coleta.cpf.length() < MINIMO_DIGITOS_CPF) {
+            coleta.percorrerNomes(CPF_PREFIXO, CPF_IGUAL);
+            return;
+        }
+        List<Entrada> comPrefixo = new ArrayList<>();
+        for (Entrada entrada : porCpf.tailSet(new Entrada(new Cliente(Integer.MIN_VALUE, null, null, null, null), null, coleta.cpf))) {
+            if (!entrada.cpf().startsWith(coleta.cpf)) {
+                break;
+            }
+            comPrefixo.add(entrada);
+        }
+        coleta.oferecerFora(comPrefixo, CPF_PREFIXO, CPF_IGUAL);
+    }
+
+    /**
+     * Faixa do nome igual ou começando pelo termo: um trecho contínuo do conjunto ordenado por nome,
+     * em que os nomes iguais ao termo vêm antes dos que só começam por ele, como na ordem de relevância.
+     */
+    private void coletarPorInicioDoNome(Coleta coleta) {
+        if (coleta.cheia() || !coleta.alcanca(NOME_PREFIXO)) {
+            return;
+        }
+        boolean cursorNaFaixa = coleta.cursor != null && coleta.cursor.relevancia() <= NOME_IGUAL;
+        Entrada inicio = cursorNaFaixa ? coleta.cursor.entrada() : chave(coleta.termo, Integer.MIN_VALUE, null);
+        for (Entrada entrada : porNome.tailSet(inicio, !cursorNaFaixa)) {
+            if (!entrada.nomeNormalizado().startsWith(coleta.termo) || !coleta.oferecer(entrada, NOME_PREFIXO, NOME_IGUAL)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Faixas de uma palavra do nome começando pelo termo e do trecho do nome.
+     * Termos curtos percorrem o conjunto do prefixo da palavra e depois os nomes, ambos já na ordem de nome;
+     * os demais cruzam as listas de cada trigrama, começando pela menor.
+     */
+    private void coletarPorPalavraOuTrecho(Coleta coleta) {
+        if (coleta.termo.isEmpty() || coleta.cheia() || !coleta.alcanca(NOME_CONTEM)) {
+            return;
+        }
+        if (coleta.termo.length() < MINIMO_TRECHO) {
+            TreeSet<Entrada> comPrefixo = palavrasCurtas.get(coleta.termo);
+            if (comPrefixo != null && coleta.alcanca(PALAVRA_PREFIXO)) {
+                boolean cursorNaFaixa = coleta.cursor != null && coleta.cursor.relevancia() <= PALAVRA_PREFIXO;
+                for (Entrada entrada : cursorNaFaixa ? comPrefixo.tailSet(coleta.cursor.entrada(), false) : comPrefixo) {
+                    if (!coleta.oferecer(entrada, PALAVRA_PREFIXO, PALAVRA_PREFIXO)) {
+                        return;
+                    }
+                }
+            }
+            coleta.percorrerNomes(NOME_CONTEM, NOME_CONTEM);
+            return;
+        }
+
+        List<Set<Integer>> listas = new ArrayList<>();
+        for (String trigrama : trigramasDe(coleta.termo)) {
+            Set<Integer> ids = trigramas.get(trigrama);
+            if (ids == null) {
+                return;
+            }
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        List<Entrada> candidatos = new ArrayList<>();
+        for (Integer id : listas.get(0)) {
+            boolean emTodas = true;
+            for (int i = 1; i < listas.size() && emTodas; i++) {
+                emTodas = listas.get(i).contains(id);
+            }
+            if (emTodas) {
+                candidatos.add(porId.get(id));
+            }
+        }
+        coleta.oferecerFora(candidatos, NOME_CONTEM, PALAVRA_PREFIXO);
+    }
+
+    /**
+     * Com o termo vazio todo nome começa por ele, como o "LIKE '%%'" do banco.
+     */
+    private static int relevancia(String nome, String cpf, String termo, String cpfLimpo) {
+        int relevancia = 0;
+        if (!cpfLimpo.isEmpty() && cpf.startsWith(cpfLimpo)) {
+            relevancia = cpf.equals(cpfLimpo) ? CPF_IGUAL : CPF_PREFIXO;
+        }
+        if (nome.equals(termo)) {
+            relevancia = Math.max(relevancia, NOME_IGUAL);
+        } else if (nome.startsWith(termo)) {
+            relevancia = Math.max(relevancia, NOME_PREFIXO);
+        } else if (nome.contains(" " + termo)) {
+            relevancia = Math.max(relevancia, PALAVRA_PREFIXO);
+        } else if (nome.contains(termo)) {
+            relevancia = Math.max(relevancia, NOME_CONTEM);
+        }
+        return relevancia;
+    }
+
+    /**
+     * Posição (nome, id) para procurar nos conjuntos ordenados.
+     */
+    private static Entrada chave(String nomeNormalizado, int id, String nome) {
+        return new Entrada(new Cliente(id, nome, null, null, null), nomeNormalizado, null);
+    }
+
+    /**
+     * Página em montagem: as faixas chegam da mais relevante para a menos e, dentro de cada uma,
+     * em ordem de nome e id, então cada resultado aceito já está na posição final.
+     */
+    private final class Coleta {
+        final String termo;
+        final String cpf;
+        final Resultado cursor;
+        final int maximo;
+        final List<Resultado> resultados = new ArrayList<>();
+
+        Coleta(String termo, String cpf, Resultado cursor, int maximo) {
+            this.termo = termo;
+            this.cpf = cpf;
+            this.cursor = cursor;
+            this.maximo = maximo;
+        }
+
+        boolean cheia() {
+            return resultados.size() >= maximo;
+        }
+
+        /**
+         * Uma faixa cujas relevâncias ficam todas acima da do cursor já saiu nas páginas anteriores.
+         */
+        boolean alcanca(int relevanciaMinima) {
+            return cursor == null || relevanciaMinima <= cursor.relevancia();
+        }
+
+        /**
+         * Aceita a entrada se a relevância final dela estiver na faixa (senão ela sai em outra faixa)
+         * e se vier depois do cursor. Devolve false quando a página fica cheia.
+         */
+        boolean oferecer(Entrada entrada, int minimo, int maximoFaixa) {
+            int relevancia = relevancia(entrada.nomeNormalizado(), entrada.cpf(), termo, cpf);
+            if (relevancia >= minimo && relevancia <= maximoFaixa) {
+                Resultado resultado = new Resultado(entrada, relevancia);
+                if (cursor == null || ORDEM.compare(resultado, cursor) > 0) {
+                    resultados.add(resultado);
+                }
+            }
+            return !cheia();
+        }
+
+        /**
+         * Para faixas sem conjunto próprio (termo ou prefixo de CPF curtos): percorre todos os nomes em ordem,
+         * a partir do cursor se ele estiver na faixa, até encher a página.
+         */
+        void percorrerNomes(int minimo, int maximoFaixa) {
+            if (cheia() || !alcanca(minimo)) {
+                return;
+            }
+            boolean cursorNaFaixa = cursor != null && cursor.relevancia() <= maximoFaixa;
+            for (Entrada entrada : cursorNaFaixa ? porNome.tailSet(cursor.entrada(), false) : porNome) {
+                if (!oferecer(entrada, minimo, maximoFaixa)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Para faixas que não vêm ordenadas (CPF, trigramas): guarda só os melhores que ainda cabem e ordena.
+         */
+        void oferecerFora(List<Entrada> entradas, int minimo, int maximoFaixa) {
+            int vagas = maximo - resultados.size();
+            PriorityQueue<Resultado> melhores = new PriorityQueue<>(ORDEM.reversed());
+            for (Entrada entrada : entradas) {
+                int relevancia = relevancia(entrada.nomeNormalizado(), entrada.cpf(), termo, cpf);
+                if (relevancia >= minimo && relevancia <= maximoFaixa) {
+                    Resultado resultado = new Resultado(entrada, relevancia);
+                    if (cursor == null || ORDEM.compare(resultado, cursor) > 0) {
+                        melhores.offer(resultado);
+                        if (melhores.size() > vagas) {
+                            melhores.poll();
+                        }
+                    }
+                }
+            }
+            List<Resultado> ordenados = new ArrayList<>(melhores);
+            ordenados.sort(ORDEM);
+            resultados.addAll(ordenados);
+        }
+    }
+
+    private void indexar(Cliente cliente) {
+        desindexar(cliente.id());
+
+        Entrada entrada = new Entrada(cliente, normalizar(cliente.nome()), cliente.cpf());
+        porId.put(cliente.id(), entrada);
+        porNome.add(entrada);
+        for (String prefixo : prefixosDasPalavras(entrada.nomeNormalizado())) {
+            palavrasCurtas.computeIfAbsent(prefixo, p -> new TreeSet<>(POR_NOME)).add(entrada);
+        }
+        for (String trigrama : trigramasDe(entrada.nomeNormalizado())) {
+            trigramas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(cliente.id());
+        }
+        porCpf.add(entrada);
+    }
+
+    private void desindexar(int id) {
+        Entrada anterior = porId.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        porNome.remove(anterior);
+        for (String prefixo : prefixosDasPalavras(anterior.nomeNormalizado())) {
+            TreeSet<Entrada> entradas = palavrasCurtas.get(prefixo);
+            if (entradas != null) {
+                entradas.remove(anterior);
+                if (entradas.isEmpty()) {
+                    palavrasCurtas.remove(prefixo);
+                }
+            }
+        }
+        for (String trigrama : trigramasDe(anterior.nomeNormalizado())) {
+            Set<Integer> ids = trigramas.get(trigrama);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigramas.remove(trigrama);
+                }
+            }
+        }
+        porCpf.remove(anterior);
+    }
+
+    private void limpar() {
+        porId.clear();
+        porNome.clear();
+        palavrasCurtas.clear();
+        trigramas.clear();
+        porCpf.clear();
+    }
+
+    /**
+     * Primeira letra e duas primeiras letras de cada palavra depois da primeira (a primeira já está em porNome).
+     */
+    private static Set<String> prefixosDasPalavras(String nomeNormalizado) {
+        Set<String> resultado = new HashSet<>();
+        String[] palavras = nomeNormalizado.split(" ");
+        for (int i = 1; i < palavras.length; i++) {
+            for (int tamanho = 1; tamanho < MINIMO_TRECHO && tamanho <= palavras[i].length(); tamanho++) {
+                resultado.add(palavras[i].substring(0, tamanho));
+            }
+        }
+        return resultado;
+    }
+
+    private static Set<String> trigramasDe(String texto) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            resultado.add(texto.substring(i, i + 3));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Contato;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mapeamento linha -> registro num lugar só, com a lista de colunas que o acompanha.
+ * Os SELECTs projetam exatamente {@link #colunas(String)} e o mapeador lê por posição
+ * (a partir de uma coluna inicial), sem procurar a coluna pelo nome a cada linha.
+ */
+public final class MapeadorLinha<T> {
+
+    @FunctionalInterface
+    private interface Leitor<T> {
+        T ler(ResultSet rs, int primeira) throws SQLException;
+    }
+
+    public static final MapeadorLinha<Cliente> CLIENTE = new MapeadorLinha<>(
+            List.of("id", "nome", "cpf", "data_nascimento", "endereco"),
+            (rs, i) -> {
+                Date dataNascimento = rs.getDate(i + 3);
+                return new Cliente(
+                        rs.getInt(i),
+                        rs.getString(i + 1),
+                        rs.getString(i + 2),
+                        dataNascimento == null ? null : dataNascimento.toLocalDate(),
+                        rs.getString(i + 4)
+                );
+            });
+
+    public static final MapeadorLinha<Contato> CONTATO = new MapeadorLinha<>(
+            List.of("id", "cliente_id", "tipo", "valor", "observacao"),
+            (rs, i) -> new Contato(
+                    rs.getInt(i),
+                    rs.getInt(i + 1),
+                    rs.getString(i + 2),
+                    rs.getString(i + 3),
+                    rs.getString(i + 4)
+            ));
+
+    private final List<String> nomes;
+    private final String colunas;
+    private final Leitor<T> leitor;
+
+    private MapeadorLinha(List<String> nomes, Leitor<T> leitor) {
+        this.nomes = nomes;
+        this.colunas = String.join(", ", nomes);
+        this.leitor = leitor;
+    }
+
+    /**
+     * Lista de colunas para o SELECT, na ordem em que o mapeador as lê (ex.: "id, nome, cpf, ...").
+     */
+    public String colunas() {
+        return colunas;
+    }
+
+    /**
+     * Como {@link #colunas()}, qualificadas pelo alias da tabela (ex.: "ct.id, ct.cliente_id, ...").
+     */
+    public String colunas(String alias) {
+        List<String> qualificadas = new ArrayList<>(nomes.size());
+        for (String nome : nomes) {
+            qualificadas.add(alias + "." + nome);
+        }
+        return String.join(", ", qualificadas);
+    }
+
+    /**
+     * Quantas colunas o registro ocupa na linha; a coluna seguinte é {@code primeira + quantidade()}.
+     */
+    public int quantidade() {
+        return nomes.size();
+    }
+
+    /**
+     * Lê o registro da linha atual, com as colunas começando na primeira do SELECT.
+     */
+    public T mapear(ResultSet rs) throws SQLException {
+        return leitor.ler(rs, 1);
+    }
+
+    /**
+     * Lê o registro da linha atual, com as colunas começando em {@code primeira} (para JOINs).
+     */
+    public T mapear(ResultSet rs, int primeira) throws SQLException {
+        return leitor.ler(rs, primeira);
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.contatos.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listas "coluna IN (?, ?, ...)" com a quantidade de marcadores arredondada para a próxima potência de 2.
+ * Assim cada consulta IN tem poucos formatos de SQL e o cache de statements da conexão é reaproveitado;
+ * os marcadores que sobram repetem o último valor, o que não muda o resultado.
+ */
+final class MarcadoresIn {
+
+    private MarcadoresIn() {
+    }
+
+    /**
+     * Quantos marcadores usar para {@code quantidade} valores.
+     */
+    static int tamanho(int quantidade) {
+        return quantidade <= 1 ? 1 : Integer.highestOneBit(quantidade - 1) << 1;
+    }
+
+    /**
+     * "?, ?, ..." com {@link #tamanho(int)} marcadores.
+     */
+    static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(tamanho(quantidade), "?"));
+    }
+
+    /**
+     * Preenche os marcadores a partir de {@code indice}, completando com o último valor.
+     *
+     * @return o índice do próximo parâmetro
+     */
+    static int definir(PreparedStatement stmt, int indice, List<?> valores) throws SQLException {
+        Object ultimo = valores.get(valores.size() - 1);
+        int total = tamanho(valores.size());
+        for (int i = 0; i < total; i++) {
+            stmt.setObject(indice++, i < valores.size() ? valores.get(i) : ultimo);
+        }
+        return indice;
+    }
+}
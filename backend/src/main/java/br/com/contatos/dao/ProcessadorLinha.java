@@ -0,0 +1,13 @@
+package br.com.contatos.dao;
+
+import java.io.IOException;
+
+/**
+ * Recebe cada registro assim que ele é lido do ResultSet,
+ * sem que o DAO precise montar a lista inteira em memória.
+ */
+@FunctionalInterface
+public interface ProcessadorLinha<T> {
+
+    void processar(T item) throws IOException;
+}
@@ -0,0 +1,54 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.util.Configuracao;
+
+/**
+ * Escolhe a implementação dos repositórios na implantação, por agenda.armazenamento:
+ * "jdbc" (padrão, MySQL pelo ConnectionFactory) ou "memoria" ({@link BancoMemoria}, sem banco).
+ */
+public final class Repositorios {
+
+    public static final String JDBC = "jdbc";
+    public static final String MEMORIA = "memoria";
+
+    private static final String TIPO = Configuracao.texto("agenda.armazenamento", JDBC);
+
+    private static final ClienteRepositorio CLIENTES;
+    private static final ContatoRepositorio CONTATOS;
+
+    static {
+        switch (TIPO) {
+            case JDBC -> {
+                CLIENTES = new ClienteDAO();
+                CONTATOS = new ContatoDAO();
+            }
+            case MEMORIA -> {
+                CLIENTES = new ClienteDAOMemoria(BancoMemoria.instancia());
+                CONTATOS = new ContatoDAOMemoria(BancoMemoria.instancia());
+            }
+            default -> throw new IllegalStateException(
+                    "Valor inválido para 'agenda.armazenamento': " + TIPO + " (use jdbc ou memoria)");
+        }
+    }
+
+    private Repositorios() { }
+
+    public static ClienteRepositorio clientes() {
+        return CLIENTES;
+    }
+
+    public static ContatoRepositorio contatos() {
+        return CONTATOS;
+    }
+
+    public static String tipo() {
+        return TIPO;
+    }
+
+    /**
+     * Se os dados estão no banco (e há pool de conexões, migrações e caches de leitura).
+     */
+    public static boolean usaBanco() {
+        return JDBC.equals(TIPO);
+    }
+}
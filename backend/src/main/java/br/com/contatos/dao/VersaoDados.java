@@ -0,0 +1,44 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.util.RoteadorReplicas;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão global dos dados de clientes e contatos, usada nos ETags das leituras.
+ * Os DAOs a incrementam depois de cada gravação confirmada; enquanto ela não muda, qualquer
+ * resposta de leitura já enviada continua valendo.
+ * <p>
+ * O contador é da instância: combinado com o instante da subida, um ETag emitido antes de um
+ * reinício nunca coincide com um novo. Gravações feitas direto no banco, fora da aplicação,
+ * não mudam a versão (mesma ressalva do cache de leitura).
+ */
+public final class VersaoDados {
+
+    private static final String INSTANCIA = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong VERSAO = new AtomicLong();
+
+    private VersaoDados() { }
+
+    /**
+     * Chamado após o commit: quem leu a versão antes da gravação pode ter lido dado novo com
+     * ETag antigo (só causa uma releitura), nunca o contrário. A escrita é registrada no roteador
+     * antes da nova versão aparecer, para que quem vê a versão nova não guarde em cache (nem sob o
+     * ETag novo) o que leu de uma réplica atrasada.
+     */
+    static void incrementar() {
+        RoteadorReplicas.registrarEscrita();
+        VERSAO.incrementAndGet();
+    }
+
+    public static long atual() {
+        return VERSAO.get();
+    }
+
+    /**
+     * ETag forte (entre aspas) da versão atual.
+     */
+    public static String etag() {
+        return "\"" + INSTANCIA + "-" + VERSAO.get() + "\"";
+    }
+}
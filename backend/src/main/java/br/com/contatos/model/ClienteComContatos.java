@@ -0,0 +1,17 @@
+package br.com.contatos.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cliente da listagem com a contagem de contatos e, opcionalmente, os próprios contatos.
+ * Campos nulos não aparecem no JSON, então sem contatos o formato é o mesmo de {@link Cliente}.
+ */
+public record ClienteComContatos(Integer id, String nome, String cpf, LocalDate dataNascimento, String endereco,
+                                 Integer totalContatos, List<Contato> contatos) {
+
+    public ClienteComContatos(Cliente cliente, Integer totalContatos, List<Contato> contatos) {
+        this(cliente.id(), cliente.nome(), cliente.cpf(), cliente.dataNascimento(), cliente.endereco(),
+                totalContatos, contatos);
+    }
+}
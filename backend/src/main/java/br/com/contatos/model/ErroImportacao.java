@@ -0,0 +1,7 @@
+package br.com.contatos.model;
+
+/**
+ * Linha rejeitada na importação em lote e o motivo.
+ */
+public record ErroImportacao(int linha, String erro) {
+}
@@ -0,0 +1,8 @@
+package br.com.contatos.model;
+
+/**
+ * Uma linha do Cliente LEFT JOIN Contato da exportação.
+ * contato é null para clientes sem contatos; linhas seguidas do mesmo cliente compartilham a instância de Cliente.
+ */
+public record LinhaExportacao(Cliente cliente, Contato contato) {
+}
@@ -0,0 +1,7 @@
+package br.com.contatos.model;
+
+/**
+ * Cliente lido de um arquivo de importação, com a linha de origem para o relatório de erros.
+ */
+public record LinhaImportacao(int linha, Cliente cliente) {
+}
@@ -0,0 +1,10 @@
+package br.com.contatos.model;
+
+import java.util.List;
+
+/**
+ * Alterações de vários contatos de um cliente aplicadas juntas (POST /api/contatos/lote).
+ * Listas ausentes no JSON chegam como null.
+ */
+public record LoteContatos(Integer clienteId, List<Contato> criar, List<Contato> atualizar, List<Integer> excluir) {
+}
@@ -0,0 +1,9 @@
+package br.com.contatos.model;
+
+import java.util.List;
+
+/**
+ * Uma página de resultados. proximoCursor é null quando não há mais itens.
+ */
+public record Pagina<T>(List<T> itens, String proximoCursor) {
+}
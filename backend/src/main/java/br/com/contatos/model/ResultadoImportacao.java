@@ -0,0 +1,10 @@
+package br.com.contatos.model;
+
+import java.util.List;
+
+/**
+ * Relatório da importação em lote (POST /api/clientes/importar).
+ */
+public record ResultadoImportacao(int total, int importados, int rejeitados, long duracaoMs,
+                                  double linhasPorSegundo, List<ErroImportacao> erros) {
+}
@@ -1,35 +1,78 @@
 package br.com.contatos.servlet;
 
-import br.com.contatos.dao.ClienteDAO;
+import br.com.contatos.dao.ClienteRepositorio;
+import br.com.contatos.dao.ContatoRepositorio;
+import br.com.contatos.dao.CpfDuplicadoException;
+import br.com.contatos.dao.CursorPaginacao;
+import br.com.contatos.dao.InclusaoContatos;
+import br.com.contatos.dao.ProcessadorLinha;
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.dao.VersaoDados;
 import br.com.contatos.model.Cliente;
+import br.com.contatos.model.ClienteComContatos;
+import br.com.contatos.util.CacheRespostas;
+import br.com.contatos.util.ChamadaUnica;
+import br.com.contatos.util.CompressaoFilter;
+import br.com.contatos.util.Configuracao;
+import br.com.contatos.util.ConsistenciaLeituraFilter;
 import br.com.contatos.util.LocalDateTypeAdapter; // Importa do nosso pacote util
+import br.com.contatos.util.RoteadorReplicas;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * GET /api/clientes (RF04)
  * GET /api/clientes?busca=termo (RF05)
- * GET /api/clientes/123 (RF02)
+ * GET /api/clientes?limit=50&after=cursor (paginação das duas rotas acima)
+ * GET /api/clientes?incluirContagem=true | incluirContatos=true (totalContatos / contatos de cada cliente)
+ * GET /api/clientes/123 (RF02); com ?incluirContagem=true traz também o totalContatos
  * POST /api/clientes (RF01)
  * PUT /api/clientes/123 (RF02)
  * DELETE /api/clientes/123 (RF03)
  */
-@WebServlet("/api/clientes/*")
-public class ClienteServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/clientes/*", asyncSupported = true)
+public class ClienteServlet extends ServletAssincrono {
 
-    private final ClienteDAO clienteDAO = new ClienteDAO();
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 500;
+
+    /**
+     * Primeiras páginas da listagem (sem busca) já serializadas, válidas até a próxima gravação.
+     */
+    static final CacheRespostas CACHE_LISTAGEM = new CacheRespostas(
+            Configuracao.inteiro("agenda.cacheRespostas.maxPaginas", 32),
+            Configuracao.inteiro("agenda.compressao.tamanhoMinimo", 1024));
+
+    /**
+     * Buscas e listagens idênticas e simultâneas viram uma consulta só; a busca ainda fica
+     * agenda.coalescer.janelaMs servindo quem digita o mesmo termo logo em seguida.
+     */
+    static final ChamadaUnica<String, CacheRespostas.Corpo> CONSULTAS = new ChamadaUnica<>(
+            Configuracao.longo("agenda.coalescer.janelaMs", 200),
+            Configuracao.inteiro("agenda.coalescer.maxResultados", 1_000));
+
+    /**
+     * Maior página montada em memória para o cache e a consulta compartilhada; páginas maiores,
+     * as seguintes (?after=) e as com os contatos vão em streaming direto para a resposta.
+     */
+    private static final int LIMITE_BUFFER = Configuracao.inteiro("agenda.cacheRespostas.limiteMaximo", 100);
+
+    private final ClienteRepositorio clienteDAO = Repositorios.clientes();
+    private final ContatoRepositorio contatoDAO = Repositorios.contatos();
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
             .create();
@@ -41,6 +84,10 @@ public class ClienteServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        // Nada mudou desde a última leitura do navegador: 304 sem ir ao banco
+        if (RespostaCondicional.naoModificado(req, resp)) {
+            return;
+        }
         try {
             String busca = req.getParameter("busca");
             Integer clienteId = extrairIdDaUrl(req);
@@ -52,26 +99,71 @@ public class ClienteServlet extends HttpServlet {
                     resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Cliente não encontrado.");
                     return;
                 }
-                String jsonResponse = gson.toJson(cliente); // Retorna um objeto único
+                // Retorna um objeto único; com a contagem, no mesmo formato da listagem
+                String jsonResponse = extrairInclusaoContatos(req) == InclusaoContatos.CONTAGEM
+                        ? gson.toJson(new ClienteComContatos(cliente,
+                                contatoDAO.contarPorClientes(List.of(clienteId)).getOrDefault(clienteId, 0), null))
+                        : gson.toJson(cliente);
                 resp.setContentType("application/json");
                 resp.setCharacterEncoding("UTF-8");
                 resp.getWriter().print(jsonResponse);
 
             } else {
-                // RF04 e RF05: Listar ou Buscar
-                List<Cliente> clientes;
-                if (busca != null) {
-                    clientes = clienteDAO.buscar(busca);
+                // RF04 e RF05: Listar ou Buscar, paginado por ?limit=&after=
+                int limite = extrairLimite(req);
+                String apos = req.getParameter("after");
+                if (apos != null && apos.isEmpty()) {
+                    apos = null;
+                }
+
+                if (apos != null) {
+                    CursorPaginacao.decodificar(apos); // valida antes de começar a escrever a resposta
+                }
+                InclusaoContatos inclusao = extrairInclusaoContatos(req);
+
+                // Só a primeira página de tamanho interativo é montada em memória (cache e consulta
+                // compartilhada); o resto vai em streaming, cada cliente escrito assim que sai do ResultSet
+                if (apos != null || limite > LIMITE_BUFFER || inclusao == InclusaoContatos.CONTATOS) {
+                    resp.setContentType("application/json");
+                    resp.setCharacterEncoding("UTF-8");
+                    // Pelo OutputStream, a escrita falha (e para a leitura do ResultSet) se a requisição já expirou
+                    escreverPagina(gson.newJsonWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8)),
+                            busca, apos, limite, inclusao);
+                    return;
+                }
+
+                String chave = limite + "|" + inclusao;
+                long versao = VersaoDados.atual();
+                // Quem precisa ler do primário (réplicas) não compartilha resultado com quem pode ler de réplica
+                String chaveConsulta = versao + "|" + ConsistenciaLeituraFilter.exigePrimario(req) + "|" + chave;
+                CacheRespostas.Corpo corpo;
+
+                if (busca == null) {
+                    // RF04: a listagem é a rota mais chamada; a página sai pronta do cache enquanto nada mudar
+                    corpo = CACHE_LISTAGEM.obter(chave, versao);
+                    if (corpo == null) {
+                        // Lida de réplica logo depois de uma escrita: serve, mas não vai para o cache
+                        boolean guardar = RoteadorReplicas.leituraCompartilhavel();
+                        corpo = CONSULTAS.executar("listar|" + chaveConsulta, () -> guardar
+                                ? CACHE_LISTAGEM.guardar(chave, versao, serializarPagina(null, limite, inclusao))
+                                : CACHE_LISTAGEM.montar(serializarPagina(null, limite, inclusao)));
+                    }
                 } else {
-                    clientes = clienteDAO.listarTodos();
+                    // RF05: operadores digitando o mesmo nome ao mesmo tempo dividem uma consulta
+                    corpo = CONSULTAS.executar("buscar|" + chaveConsulta + "|" + busca, () ->
+                            CACHE_LISTAGEM.montar(serializarPagina(busca, limite, inclusao)));
                 }
-                String jsonResponse = gson.toJson(clientes); // Retorna uma lista
-                resp.setContentType("application/json");
-                resp.setCharacterEncoding("UTF-8");
-                resp.getWriter().print(jsonResponse);
+                escreverCorpo(req, resp, corpo);
             }
 
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } catch (SQLException e) {
+            if (resp.isCommitted()) {
+                // Parte da lista já foi enviada: só resta abortar a resposta
+                throw new ServletException("Erro ao buscar clientes", e);
+            }
+            resp.resetBuffer();
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao buscar clientes: " + e.getMessage());
         }
     }
@@ -104,12 +196,19 @@ public class ClienteServlet extends HttpServlet {
                 return;
             }
 
-            // RN03: Validação de CPF Único (passando 'null' como ID para ignorar)
-            if (clienteDAO.cpfJaExiste(novoCliente.cpf(), null)) {
-                resp.sendError(HttpServletResponse.SC_CONFLICT, "Este CPF já está cadastrado no sistema (RN03)."); // 409 Conflict
+            // RN03 (CPF único) é garantida pelo UNIQUE do banco na própria gravação
+            // --- FIM DA VALIDAÇÃO ---
+
+            // modo=upsert: cria ou atualiza o cliente dono do CPF (jobs de sincronização)
+            if ("upsert".equalsIgnoreCase(req.getParameter("modo"))) {
+                ClienteRepositorio.ResultadoUpsert resultado = clienteDAO.salvarOuAtualizarPorCpf(novoCliente);
+                String jsonResponse = gson.toJson(resultado.cliente());
+                resp.setStatus(resultado.criado() ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_OK);
+                resp.setContentType("application/json");
+                resp.setCharacterEncoding("UTF-8");
+                resp.getWriter().print(jsonResponse);
                 return;
             }
-            // --- FIM DA VALIDAÇÃO ---
 
             // 3. Salva no banco
             Cliente clienteSalvo = clienteDAO.salvar(novoCliente);
@@ -121,6 +220,8 @@ public class ClienteServlet extends HttpServlet {
             resp.setCharacterEncoding("UTF-8");
             resp.getWriter().print(jsonResponse);
 
+        } catch (CpfDuplicadoException e) {
+            resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage()); // 409 Conflict
         } catch (SQLException e) {
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro de banco de dados ao salvar cliente: " + e.getMessage());
         } catch (Exception e) { // Captura erros do JSON, etc.
@@ -160,11 +261,7 @@ public class ClienteServlet extends HttpServlet {
                 return;
             }
 
-            // RN03: Validação de CPF Único (ignorando o ID do próprio cliente)
-            if (clienteDAO.cpfJaExiste(clienteParaAtualizar.cpf(), clienteId)) {
-                resp.sendError(HttpServletResponse.SC_CONFLICT, "Este CPF já está cadastrado no sistema (RN03).");
-                return;
-            }
+            // RN03 (CPF único) é garantida pelo UNIQUE do banco no próprio UPDATE
             // --- FIM DA VALIDAÇÃO ---
 
             // Recria o objeto Cliente com o ID da URL para garantir
@@ -183,6 +280,8 @@ public class ClienteServlet extends HttpServlet {
             resp.setCharacterEncoding("UTF-8");
             resp.getWriter().print(jsonResponse);
 
+        } catch (CpfDuplicadoException e) {
+            resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
         } catch (SQLException e) {
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao atualizar cliente: " + e.getMessage());
         } catch (Exception e) {
@@ -214,6 +313,103 @@ public class ClienteServlet extends HttpServlet {
         }
     }
 
+    /**
+     * ?incluirContatos=true traz os contatos (e o total); ?incluirContagem=true só o total.
+     */
+    private InclusaoContatos extrairInclusaoContatos(HttpServletRequest req) {
+        if (Boolean.parseBoolean(req.getParameter("incluirContatos"))) {
+            return InclusaoContatos.CONTATOS;
+        }
+        if (Boolean.parseBoolean(req.getParameter("incluirContagem"))) {
+            return InclusaoContatos.CONTAGEM;
+        }
+        return InclusaoContatos.NENHUM;
+    }
+
+    /**
+     * A primeira página da listagem ou da busca em JSON, pronta para o cache ou para ser compartilhada.
+     */
+    private byte[] serializarPagina(String busca, int limite, InclusaoContatos inclusao)
+            throws SQLException, IOException {
+        ByteArrayOutputStream json = new ByteArrayOutputStream(limite * 160);
+        escreverPagina(gson.newJsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8)), busca, null, limite, inclusao);
+        return json.toByteArray();
+    }
+
+    /**
+     * Escreve { itens, proximoCursor } da listagem (busca null) ou da busca.
+     */
+    private void escreverPagina(JsonWriter writer, String busca, String apos, int limite, InclusaoContatos inclusao)
+            throws SQLException, IOException {
+        writer.beginObject().name("itens").beginArray();
+
+        String proximoCursor;
+        if (inclusao != InclusaoContatos.NENHUM) {
+            // Contagem (ou contatos) na mesma consulta da página, sem uma ida ao banco por cliente
+            ProcessadorLinha<ClienteComContatos> escreverCliente =
+                    cliente -> gson.toJson(cliente, ClienteComContatos.class, writer);
+            if (busca != null) {
+                proximoCursor = clienteDAO.buscar(busca, apos, limite, inclusao, escreverCliente);
+            } else {
+                proximoCursor = clienteDAO.listarTodos(apos, limite, inclusao, escreverCliente);
+            }
+        } else {
+            ProcessadorLinha<Cliente> escreverCliente = cliente -> gson.toJson(cliente, Cliente.class, writer);
+            if (busca != null) {
+                proximoCursor = clienteDAO.buscar(busca, apos, limite, escreverCliente);
+            } else {
+                proximoCursor = clienteDAO.listarTodos(apos, limite, escreverCliente);
+            }
+        }
+
+        writer.endArray();
+        if (proximoCursor != null) {
+            writer.name("proximoCursor").value(proximoCursor);
+        }
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Envia uma página do cache: já em gzip quando o cliente aceita (o CompressaoFilter deixa passar
+     * porque o Content-Encoding já está definido), senão o JSON como está.
+     */
+    private void escreverCorpo(HttpServletRequest req, HttpServletResponse resp, CacheRespostas.Corpo corpo)
+            throws IOException {
+        byte[] bytes = corpo.json();
+        if (corpo.gzip() != null && "gzip".equals(CompressaoFilter.negociar(req.getHeader("Accept-Encoding")))) {
+            bytes = corpo.gzip();
+            resp.setHeader("Content-Encoding", "gzip");
+            String etag = resp.getHeader("ETag");
+            if (etag != null && etag.endsWith("\"")) {
+                resp.setHeader("ETag", etag.substring(0, etag.length() - 1) + "-gzip\"");
+            }
+        }
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentLength(bytes.length);
+        resp.getOutputStream().write(bytes);
+    }
+
+    /**
+     * Lê o parâmetro ?limit= (padrão 50, máximo 500).
+     */
+    private int extrairLimite(HttpServletRequest req) {
+        String limitParam = req.getParameter("limit");
+        if (limitParam == null || limitParam.isEmpty()) {
+            return LIMITE_PADRAO;
+        }
+        try {
+            int limite = Integer.parseInt(limitParam);
+            if (limite < 1) {
+                throw new IllegalArgumentException("O parâmetro 'limit' deve ser maior que zero.");
+            }
+            return Math.min(limite, LIMITE_MAXIMO);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("O parâmetro 'limit' deve ser um número.");
+        }
+    }
+
     /**
      * Método utilitário para extrair o ID de URLs no padrão /api/clientes/{id}
      */
@@ -1,31 +1,63 @@
 package br.com.contatos.servlet;
 
-import br.com.contatos.dao.ContatoDAO;
+import br.com.contatos.dao.ContatoRepositorio;
+import br.com.contatos.dao.Repositorios;
 import br.com.contatos.model.Contato;
+import br.com.contatos.model.LoteContatos;
 import br.com.contatos.util.LocalDateTypeAdapter; // Importa o adapter de data
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-@WebServlet("/api/contatos/*")
-public class ContatoServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/contatos/*", asyncSupported = true)
+public class ContatoServlet extends ServletAssincrono {
 
-    private final ContatoDAO contatoDAO = new ContatoDAO();
+    private static final int MAXIMO_CLIENTES_POR_CONSULTA = 1000;
+
+    /**
+     * Quantas operações (criar + atualizar + excluir) cabem num POST /api/contatos/lote.
+     */
+    private static final int MAXIMO_OPERACOES_LOTE = 1000;
+
+    private final ContatoRepositorio contatoDAO = Repositorios.contatos();
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
             .create();
 
+    /**
+     * GET /api/contatos?clienteId=123 (RF09)
+     * GET /api/contatos?clienteIds=1,2,3 (RF09 para vários clientes: { "1": [...], "2": [...], "3": [] })
+     */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        // Nada mudou desde a última leitura do navegador: 304 sem ir ao banco
+        if (RespostaCondicional.naoModificado(req, resp)) {
+            return;
+        }
+
+        String clienteIdsParam = req.getParameter("clienteIds");
+        if (clienteIdsParam != null) {
+            listarPorClientes(clienteIdsParam, resp);
+            return;
+        }
+
         String clienteIdParam = req.getParameter("clienteId");
 
         if (clienteIdParam == null || clienteIdParam.isEmpty()) {
@@ -35,22 +67,83 @@ public class ContatoServlet extends HttpServlet {
 
         try {
             int clienteId = Integer.parseInt(clienteIdParam);
-            List<Contato> contatos = contatoDAO.listarPorCliente(clienteId);
 
-            String jsonResponse = gson.toJson(contatos);
+            // Cada contato é escrito na resposta assim que sai do ResultSet; pelo OutputStream, a escrita
+            // falha (e para a leitura) se a requisição já expirou
             resp.setContentType("application/json");
             resp.setCharacterEncoding("UTF-8");
-            resp.getWriter().print(jsonResponse);
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8));
+            writer.beginArray();
+            contatoDAO.listarPorCliente(clienteId, contato -> gson.toJson(contato, Contato.class, writer));
+            writer.endArray();
+            writer.flush();
 
         } catch (NumberFormatException e) {
             resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "O 'clienteId' deve ser um número.");
         } catch (Exception e) {
+            if (resp.isCommitted()) {
+                // Parte da lista já foi enviada: só resta abortar a resposta
+                throw new ServletException("Erro ao listar contatos", e);
+            }
+            resp.resetBuffer();
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao listar contatos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Contatos de vários clientes numa única ida ao banco, agrupados por cliente.
+     */
+    private void listarPorClientes(String clienteIdsParam, HttpServletResponse resp) throws IOException {
+        Set<Integer> clienteIds = new LinkedHashSet<>();
+        try {
+            for (String id : clienteIdsParam.split(",")) {
+                if (!id.isBlank()) {
+                    clienteIds.add(Integer.parseInt(id.trim()));
+                }
+            }
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "O 'clienteIds' deve ser uma lista de números separados por vírgula.");
+            return;
+        }
+        if (clienteIds.isEmpty() || clienteIds.size() > MAXIMO_CLIENTES_POR_CONSULTA) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Informe de 1 a " + MAXIMO_CLIENTES_POR_CONSULTA + " ids em 'clienteIds'.");
+            return;
+        }
+
+        try {
+            Map<Integer, List<Contato>> porCliente = contatoDAO.listarPorClientes(clienteIds);
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8));
+            writer.beginObject();
+            for (Map.Entry<Integer, List<Contato>> entrada : porCliente.entrySet()) {
+                writer.name(String.valueOf(entrada.getKey()));
+                writer.beginArray();
+                for (Contato contato : entrada.getValue()) {
+                    gson.toJson(contato, Contato.class, writer);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+            writer.flush();
+
+        } catch (SQLException e) {
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao listar contatos: " + e.getMessage());
         }
     }
 
+    /**
+     * POST /api/contatos (RF06)
+     * POST /api/contatos/lote: criações, atualizações e exclusões de um cliente numa transação
+     */
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if ("/lote".equals(req.getPathInfo())) {
+            aplicarLote(req, resp);
+            return;
+        }
         try {
             String jsonRequest = req.getReader().lines().collect(Collectors.joining());
             Contato novoContato = gson.fromJson(jsonRequest, Contato.class);
@@ -140,6 +233,77 @@ public class ContatoServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Corpo: { "clienteId": 1, "criar": [{tipo, valor, observacao}], "atualizar": [{id, tipo, valor, observacao}],
+     * "excluir": [ids] }. Responde com a lista de contatos do cliente depois do commit.
+     */
+    private void aplicarLote(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        try {
+            String jsonRequest = req.getReader().lines().collect(Collectors.joining());
+            LoteContatos lote = gson.fromJson(jsonRequest, LoteContatos.class);
+
+            if (lote == null || lote.clienteId() == null) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "O campo 'clienteId' é obrigatório.");
+                return;
+            }
+            List<Contato> criar = lote.criar() == null ? List.of() : lote.criar();
+            List<Contato> atualizar = lote.atualizar() == null ? List.of() : lote.atualizar();
+            List<Integer> excluir = lote.excluir() == null ? List.of() : lote.excluir();
+
+            int operacoes = criar.size() + atualizar.size() + excluir.size();
+            if (operacoes == 0 || operacoes > MAXIMO_OPERACOES_LOTE) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "Informe de 1 a " + MAXIMO_OPERACOES_LOTE + " operações em 'criar', 'atualizar' e 'excluir'.");
+                return;
+            }
+
+            Set<Integer> idsAlterados = new HashSet<>();
+            for (Contato contato : criar) {
+                if (contato == null || contato.tipo() == null || contato.tipo().isEmpty()
+                        || contato.valor() == null || contato.valor().isEmpty()) {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Os campos 'tipo' e 'valor' são obrigatórios.");
+                    return;
+                }
+            }
+            for (Contato contato : atualizar) {
+                if (contato == null || contato.tipo() == null || contato.tipo().isEmpty()
+                        || contato.valor() == null || contato.valor().isEmpty()) {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Os campos 'tipo' e 'valor' são obrigatórios.");
+                    return;
+                }
+                if (contato.id() == null || !idsAlterados.add(contato.id())) {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                            "Cada contato em 'atualizar' precisa de um 'id', sem repetição.");
+                    return;
+                }
+            }
+            for (Integer id : excluir) {
+                if (id == null || !idsAlterados.add(id)) {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                            "Os ids de 'excluir' não podem se repetir nem aparecer em 'atualizar'.");
+                    return;
+                }
+            }
+
+            List<Contato> contatos = contatoDAO.aplicarLote(lote.clienteId(), criar, atualizar, excluir);
+            if (contatos == null) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Cliente não encontrado.");
+                return;
+            }
+
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.getWriter().print(gson.toJson(contatos));
+
+        } catch (JsonParseException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "JSON do lote inválido: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao aplicar lote de contatos: " + e.getMessage());
+        }
+    }
+
     /**
      * Método utilitário para extrair o ID de URLs no padrão /api/contatos/{id}
      */
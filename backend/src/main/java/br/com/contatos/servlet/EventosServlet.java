@@ -0,0 +1,122 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.FeedAlteracoes;
+import br.com.contatos.util.CompressaoFilter;
+import br.com.contatos.util.Configuracao;
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * GET /api/eventos
+ * Server-Sent Events com as alterações de clientes e contatos (event: alteracao,
+ * data: { entidade, tipo, registro }), para o frontend aplicar só a diferença em vez de recarregar a lista.
+ * <p>
+ * Reconexões mandam o Last-Event-ID e continuam de onde pararam; se o histórico não cobre mais
+ * esse ponto, o primeiro evento é "recarregar". Cada conexão é atendida por uma thread virtual,
+ * que manda um comentário de heartbeat a cada 15 s para detectar clientes que caíram.
+ */
+@WebServlet(urlPatterns = "/api/eventos", asyncSupported = true)
+public class EventosServlet extends HttpServlet {
+
+    private static final Logger LOG = Logger.getLogger(EventosServlet.class.getName());
+    private static final long INTERVALO_HEARTBEAT_MS = 15_000;
+    private static final int MAXIMO_ASSINANTES = Configuracao.inteiro("agenda.feed.maxAssinantes", 1000);
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (FeedAlteracoes.assinantes() >= MAXIMO_ASSINANTES) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Limite de conexões de eventos atingido.");
+            return;
+        }
+
+        String ultimoEventoId = req.getHeader("Last-Event-ID");
+        if (ultimoEventoId == null) {
+            ultimoEventoId = req.getParameter("ultimoEvento");
+        }
+        FeedAlteracoes.Assinatura assinatura = FeedAlteracoes.assinar(ultimoEventoId);
+
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setHeader("X-Accel-Buffering", "no"); // proxies (nginx) não devem segurar os eventos
+
+        AsyncContext contexto = req.startAsync();
+        contexto.setTimeout(0); // conexão longa: termina quando o cliente sai ou é desligado
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                assinatura.cancelar();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                assinatura.cancelar();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                assinatura.cancelar();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) { }
+        });
+
+        Thread.ofVirtual().name("sse-eventos").start(() -> transmitir(contexto, resp, assinatura));
+    }
+
+    private void transmitir(AsyncContext contexto, HttpServletResponse resp, FeedAlteracoes.Assinatura assinatura) {
+        try {
+            PrintWriter writer = resp.getWriter();
+            writer.write("retry: 3000\n\n");
+            writer.flush();
+
+            while (!assinatura.encerrada() && !writer.checkError()) {
+                FeedAlteracoes.Evento evento = assinatura.proximo(INTERVALO_HEARTBEAT_MS);
+                if (evento == null) {
+                    writer.write(": ping\n\n");
+                } else {
+                    writer.write("id: " + evento.id() + "\n");
+                    writer.write("event: alteracao\n");
+                    writer.write("data: " + gson.toJson(evento) + "\n\n");
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            LOG.log(Level.FINE, "Conexão de eventos encerrada", e);
+        } finally {
+            assinatura.cancelar();
+            try {
+                CompressaoFilter.finalizar(resp);
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Conexão de eventos encerrada", e);
+            }
+            try {
+                contexto.complete();
+            } catch (IllegalStateException e) {
+                // O container já encerrou a requisição (cliente desconectou)
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.ClienteRepositorio;
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Contato;
+import br.com.contatos.util.Csv;
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GET /api/exportacao?formato=csv|ndjson[&gzip=true]
+ * Exporta toda a agenda (clientes e contatos) numa única consulta, escrevendo à medida que lê.
+ * - csv: uma linha por contato (clientes sem contato aparecem uma vez, com as colunas de contato vazias);
+ * - ndjson: um cliente por linha, com o array "contatos".
+ * Com gzip=true o arquivo sai compactado (.gz).
+ * A consulta segura uma conexão do pool (ou da réplica) até o fim do download, por mais lento que seja
+ * o cliente; essa conexão não entra na detecção de vazamento (agenda.pool.limiteVazamentoMs).
+ */
+@WebServlet("/api/exportacao")
+public class ExportacaoServlet extends HttpServlet {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final String CABECALHO_CSV =
+            "cliente_id,nome,cpf,data_nascimento,endereco,contato_id,tipo,valor,observacao\n";
+
+    private final ClienteRepositorio clienteDAO = Repositorios.clientes();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String formato = req.getParameter("formato") == null ? "csv" : req.getParameter("formato");
+        boolean csv = formato.equalsIgnoreCase("csv");
+        if (!csv && !formato.equalsIgnoreCase("ndjson")) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "O parâmetro 'formato' deve ser csv ou ndjson.");
+            return;
+        }
+        boolean gzip = Boolean.parseBoolean(req.getParameter("gzip"));
+
+        String arquivo = "agenda." + (csv ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        resp.setContentType(gzip ? "application/gzip" : (csv ? "text/csv" : "application/x-ndjson"));
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Content-Disposition", "attachment; filename=\"" + arquivo + "\"");
+
+        OutputStream saida = resp.getOutputStream();
+        if (gzip) {
+            saida = new GZIPOutputStream(saida, TAMANHO_BUFFER);
+        }
+
+        // Fechado só no sucesso: em caso de erro a resposta ainda pode virar um 500
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        try {
+            if (csv) {
+                exportarCsv(writer);
+            } else {
+                exportarNdjson(writer);
+            }
+            writer.close();
+        } catch (SQLException e) {
+            if (resp.isCommitted()) {
+                // Parte do arquivo já foi enviada: só resta abortar a resposta
+                throw new ServletException("Erro ao exportar a agenda", e);
+            }
+            resp.reset();
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro ao exportar a agenda: " + e.getMessage());
+        }
+    }
+
+    private void exportarCsv(Writer writer) throws SQLException, IOException {
+        writer.write(CABECALHO_CSV);
+        clienteDAO.exportar(linha -> {
+            Cliente cliente = linha.cliente();
+            Contato contato = linha.contato();
+            writer.write(String.valueOf(cliente.id()));
+            writer.write(',');
+            writer.write(Csv.escapar(cliente.nome()));
+            writer.write(',');
+            writer.write(Csv.escapar(cliente.cpf()));
+            writer.write(',');
+            writer.write(cliente.dataNascimento().toString());
+            writer.write(',');
+            writer.write(Csv.escapar(cliente.endereco()));
+            writer.write(',');
+            if (contato != null) {
+                writer.write(String.valueOf(contato.id()));
+                writer.write(',');
+                writer.write(Csv.escapar(contato.tipo()));
+                writer.write(',');
+                writer.write(Csv.escapar(contato.valor()));
+                writer.write(',');
+                writer.write(Csv.escapar(contato.observacao()));
+            } else {
+                writer.write(",,,");
+            }
+            writer.write('\n');
+        });
+    }
+
+    private void exportarNdjson(Writer writer) throws SQLException, IOException {
+        // Só os contatos do cliente atual ficam em memória; a linha sai quando o cliente muda
+        List<Contato> contatos = new ArrayList<>();
+        Cliente[] atual = new Cliente[1];
+
+        clienteDAO.exportar(linha -> {
+            if (atual[0] != null && atual[0] != linha.cliente()) {
+                escreverClienteNdjson(writer, atual[0], contatos);
+                contatos.clear();
+            }
+            atual[0] = linha.cliente();
+            if (linha.contato() != null) {
+                contatos.add(linha.contato());
+            }
+        });
+        if (atual[0] != null) {
+            escreverClienteNdjson(writer, atual[0], contatos);
+        }
+    }
+
+    private void escreverClienteNdjson(Writer writer, Cliente cliente, List<Contato> contatos) throws IOException {
+        JsonObject json = gson.toJsonTree(cliente).getAsJsonObject();
+        json.add("contatos", gson.toJsonTree(contatos));
+        gson.toJson(json, writer);
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,237 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.ClienteRepositorio;
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.ErroImportacao;
+import br.com.contatos.model.LinhaImportacao;
+import br.com.contatos.model.ResultadoImportacao;
+import br.com.contatos.util.Configuracao;
+import br.com.contatos.util.Csv;
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * POST /api/clientes/importar
+ * Importação em lote de clientes a partir de CSV (Content-Type: text/csv) ou
+ * NDJSON (Content-Type: application/x-ndjson, um cliente JSON por linha).
+ * <p>
+ * O corpo é lido em streaming; cada linha é validada em memória (RN01, RN03 dentro do arquivo, RN05)
+ * e as válidas são gravadas em blocos de agenda.importacao.tamanhoLote, um commit por bloco.
+ * Responde com o total importado, a vazão em linhas/s e o erro de cada linha rejeitada.
+ * <p>
+ * CSV: a primeira linha é o cabeçalho com as colunas nome, cpf, dataNascimento (ou data_nascimento)
+ * e endereco, em qualquer ordem. Datas em yyyy-MM-dd ou dd/MM/yyyy.
+ */
+@WebServlet("/api/clientes/importar")
+public class ImportacaoClienteServlet extends HttpServlet {
+
+    private static final Logger LOG = Logger.getLogger(ImportacaoClienteServlet.class.getName());
+    private static final int TAMANHO_LOTE = Configuracao.inteiro("agenda.importacao.tamanhoLote", 1000);
+    private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final ClienteRepositorio clienteDAO = Repositorios.clientes();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String contentType = req.getContentType() == null ? "" : req.getContentType().toLowerCase(Locale.ROOT);
+        boolean csv = contentType.startsWith("text/csv");
+        if (!csv && !contentType.contains("ndjson")) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                    "Envie text/csv ou application/x-ndjson.");
+            return;
+        }
+        if (req.getCharacterEncoding() == null) {
+            req.setCharacterEncoding("UTF-8");
+        }
+
+        Importacao importacao = new Importacao();
+        try {
+            BufferedReader reader = req.getReader();
+            if (csv) {
+                importarCsv(reader, importacao);
+            } else {
+                importarNdjson(reader, importacao);
+            }
+            importacao.gravarLote();
+
+        } catch (IllegalArgumentException e) {
+            // CSV malformado no meio do arquivo: os blocos anteriores já foram gravados
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage()
+                    + (importacao.importados > 0 ? " (" + importacao.importados + " clientes já gravados)" : ""));
+            return;
+        } catch (SQLException e) {
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro de banco de dados na importação ("
+                    + importacao.importados + " clientes já gravados): " + e.getMessage());
+            return;
+        }
+
+        ResultadoImportacao resultado = importacao.resultado();
+        LOG.info("Importação de clientes: " + resultado.importados() + "/" + resultado.total() + " linhas em "
+                + resultado.duracaoMs() + " ms (" + Math.round(resultado.linhasPorSegundo()) + " linhas/s)");
+
+        String jsonResponse = gson.toJson(resultado);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().print(jsonResponse);
+    }
+
+    private void importarCsv(BufferedReader reader, Importacao importacao) throws IOException, SQLException {
+        Csv.Leitor leitor = new Csv.Leitor(reader);
+        List<String> cabecalho = leitor.lerRegistro();
+        if (cabecalho == null) {
+            return;
+        }
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            colunas.put(cabecalho.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        Integer colNome = colunas.get("nome");
+        Integer colCpf = colunas.get("cpf");
+        Integer colData = colunas.get("datanascimento");
+        Integer colEndereco = colunas.get("endereco");
+        if (colNome == null || colCpf == null || colData == null) {
+            throw new IllegalArgumentException("O cabeçalho do CSV deve ter as colunas nome, cpf e dataNascimento.");
+        }
+
+        List<String> campos;
+        while ((campos = leitor.lerRegistro()) != null) {
+            int linha = leitor.linha();
+            if (campos.size() == 1 && campos.get(0).isBlank()) {
+                continue; // linha em branco
+            }
+            try {
+                Cliente cliente = new Cliente(
+                        campo(campos, colNome),
+                        campo(campos, colCpf),
+                        lerData(campo(campos, colData)),
+                        campo(campos, colEndereco));
+                importacao.adicionar(linha, cliente);
+            } catch (DateTimeParseException e) {
+                importacao.rejeitar(linha, "Data de Nascimento inválida (RN05).");
+            }
+        }
+    }
+
+    private void importarNdjson(BufferedReader reader, Importacao importacao) throws IOException, SQLException {
+        int linha = 0;
+        String texto;
+        while ((texto = reader.readLine()) != null) {
+            linha++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            Cliente cliente;
+            try {
+                cliente = gson.fromJson(texto, Cliente.class);
+            } catch (RuntimeException e) {
+                importacao.rejeitar(linha, "JSON inválido: " + e.getMessage());
+                continue;
+            }
+            importacao.adicionar(linha, cliente);
+        }
+    }
+
+    private static String campo(List<String> campos, Integer coluna) {
+        if (coluna == null || coluna >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(coluna).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static LocalDate lerData(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        return valor.contains("/") ? LocalDate.parse(valor, DATA_BR) : LocalDate.parse(valor);
+    }
+
+    /**
+     * Estado de uma importação: bloco em montagem, CPFs já vistos no arquivo e relatório.
+     */
+    private final class Importacao {
+        final long inicio = System.nanoTime();
+        final Set<String> cpfsNoArquivo = new HashSet<>();
+        final List<LinhaImportacao> lote = new ArrayList<>(TAMANHO_LOTE);
+        final List<ErroImportacao> erros = new ArrayList<>();
+        int total;
+        int importados;
+
+        /**
+         * Valida a linha (RN01, RN05, RN03 dentro do arquivo) e a acumula no bloco atual.
+         */
+        void adicionar(int linha, Cliente cliente) throws SQLException {
+            total++;
+            if (cliente == null || cliente.nome() == null || cliente.nome().trim().isEmpty()) {
+                erros.add(new ErroImportacao(linha, "Nome é obrigatório (RN01/RN04)."));
+                return;
+            }
+            if (cliente.cpf() == null || cliente.cpf().trim().isEmpty()) {
+                erros.add(new ErroImportacao(linha, "CPF é obrigatório (RN01)."));
+                return;
+            }
+            if (cliente.dataNascimento() == null || cliente.dataNascimento().isAfter(LocalDate.now())) {
+                erros.add(new ErroImportacao(linha, "Data de Nascimento é obrigatória e não pode ser no futuro (RN05)."));
+                return;
+            }
+            String cpfLimpo = cliente.cpf().replaceAll("[^0-9]", "");
+            if (!cpfsNoArquivo.add(cpfLimpo)) {
+                erros.add(new ErroImportacao(linha, "CPF repetido no arquivo (RN03)."));
+                return;
+            }
+
+            lote.add(new LinhaImportacao(linha, cliente));
+            if (lote.size() >= TAMANHO_LOTE) {
+                gravarLote();
+            }
+        }
+
+        void rejeitar(int linha, String erro) {
+            total++;
+            erros.add(new ErroImportacao(linha, erro));
+        }
+
+        void gravarLote() throws SQLException {
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<ErroImportacao> errosDoLote = clienteDAO.importarLote(lote);
+            importados += lote.size() - errosDoLote.size();
+            erros.addAll(errosDoLote);
+            lote.clear();
+        }
+
+        ResultadoImportacao resultado() {
+            long duracaoNanos = System.nanoTime() - inicio;
+            double segundos = duracaoNanos / 1_000_000_000.0;
+            erros.sort((a, b) -> Integer.compare(a.linha(), b.linha()));
+            return new ResultadoImportacao(total, importados, erros.size(), duracaoNanos / 1_000_000,
+                    segundos > 0 ? total / segundos : 0, erros);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.util.AdmissaoFilter;
+import br.com.contatos.util.ConnectionFactory;
+import br.com.contatos.util.ConnectionPool;
+import br.com.contatos.util.ExecutorBanco;
+import br.com.contatos.util.LimiteAdaptativo;
+import br.com.contatos.util.MetricasHttp;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * GET /api/metrics
+ * Métricas no formato texto do Prometheus: latência e vazão por rota (MetricasFilter),
+ * pool de conexões, executor assíncrono e limite de admissão da API.
+ */
+@WebServlet("/api/metrics")
+public class MetricasServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        StringBuilder saida = new StringBuilder(8 * 1024);
+        MetricasHttp.escreverPrometheus(saida);
+
+        if (Repositorios.usaBanco()) {
+            ConnectionPool.Estatisticas pool = ConnectionFactory.estatisticas();
+            gauge(saida, "agenda_pool_conexoes_ativas", "Conexões emprestadas.", pool.ativas());
+            gauge(saida, "agenda_pool_conexoes_ociosas", "Conexões livres no pool.", pool.ociosas());
+            gauge(saida, "agenda_pool_aguardando", "Threads esperando uma conexão.", pool.aguardando());
+            contador(saida, "agenda_pool_timeouts_total", "Esperas por conexão que estouraram o tempo.", pool.timeouts());
+        }
+
+        ExecutorBanco.Estatisticas executor = ExecutorBanco.estatisticas();
+        gauge(saida, "agenda_executor_em_execucao", "Tarefas assíncronas falando com o banco.", executor.emExecucao());
+        gauge(saida, "agenda_executor_aguardando", "Tarefas assíncronas esperando vaga.", executor.aguardando());
+        contador(saida, "agenda_executor_timeouts_total", "Requisições assíncronas que estouraram o tempo.", executor.timeouts());
+
+        LimiteAdaptativo.Estatisticas admissao = AdmissaoFilter.estatisticas();
+        gauge(saida, "agenda_admissao_limite", "Requisições simultâneas admitidas na API (limite adaptativo).", admissao.limite());
+        gauge(saida, "agenda_admissao_fila", "Requisições esperando vaga na API.", admissao.naFila());
+        contador(saida, "agenda_admissao_recusadas_total", "Requisições recusadas com 503 pelo limite da API.",
+                admissao.recusadasFilaCheia() + admissao.recusadasEspera());
+
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().print(saida);
+    }
+
+    private static void gauge(StringBuilder saida, String nome, String ajuda, long valor) {
+        metrica(saida, nome, ajuda, "gauge", valor);
+    }
+
+    private static void contador(StringBuilder saida, String nome, String ajuda, long valor) {
+        metrica(saida, nome, ajuda, "counter", valor);
+    }
+
+    private static void metrica(StringBuilder saida, String nome, String ajuda, String tipo, long valor) {
+        saida.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        saida.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+        saida.append(nome).append(' ').append(valor).append('\n');
+    }
+}
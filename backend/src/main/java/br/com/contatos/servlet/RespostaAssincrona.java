@@ -0,0 +1,276 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.util.ExecutorBanco;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resposta entregue à tarefa de um {@link ServletAssincrono}.
+ * <p>
+ * Quando o timeout ou a queda do cliente finalizam a requisição em outra thread, a tarefa pode
+ * continuar rodando: o cancel(true) não para uma chamada JDBC nem uma escrita do Gson no meio.
+ * Depois de {@link #descartar()}, a tarefa não toca mais na resposta, que o container já pode ter
+ * reciclado: as escritas em {@link #getOutputStream()} lançam IOException (o que também interrompe
+ * quem percorre um ResultSet, por isso o streaming usa o OutputStream), as de {@link #getWriter()} são
+ * descartadas (o PrintWriter engole a exceção e só marca checkError()) e status e cabeçalhos são
+ * ignorados. A trava garante que uma escrita em andamento termina antes de a outra thread assumir a resposta.
+ * <p>
+ * Cada escrita também avisa o {@link ExecutorBanco}, que devolve a vaga da tarefa se ela já não tem conexão aberta.
+ */
+class RespostaAssincrona extends HttpServletResponseWrapper {
+
+    @FunctionalInterface
+    private interface Operacao {
+        void executar() throws IOException;
+    }
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private volatile boolean descartada;
+    private SaidaProtegida saida;
+    private PrintWriter writer;
+
+    RespostaAssincrona(HttpServletResponse resposta) {
+        super(resposta);
+    }
+
+    /**
+     * Chamado por quem finaliza a requisição no lugar da tarefa: espera a escrita em andamento,
+     * se houver, e fecha a resposta para a tarefa.
+     */
+    void descartar() {
+        trava.lock();
+        try {
+            descartada = true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (saida == null) {
+            saida = new SaidaProtegida(super.getOutputStream());
+        }
+        return saida;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new EscritaProtegida(super.getWriter()));
+        }
+        return writer;
+    }
+
+    /**
+     * Descartada, a resposta conta como já enviada: os servlets não tentam mais um sendError.
+     */
+    @Override
+    public boolean isCommitted() {
+        return descartada || super.isCommitted();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        proteger(super::flushBuffer);
+    }
+
+    @Override
+    public void sendError(int status, String mensagem) throws IOException {
+        proteger(() -> super.sendError(status, mensagem));
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        proteger(() -> super.sendError(status));
+    }
+
+    @Override
+    public void sendRedirect(String local) throws IOException {
+        proteger(() -> super.sendRedirect(local));
+    }
+
+    @Override
+    public void reset() {
+        ignorarSeDescartada(super::reset);
+    }
+
+    @Override
+    public void resetBuffer() {
+        ignorarSeDescartada(super::resetBuffer);
+    }
+
+    @Override
+    public void setStatus(int status) {
+        ignorarSeDescartada(() -> super.setStatus(status));
+    }
+
+    @Override
+    public void setHeader(String nome, String valor) {
+        ignorarSeDescartada(() -> super.setHeader(nome, valor));
+    }
+
+    @Override
+    public void addHeader(String nome, String valor) {
+        ignorarSeDescartada(() -> super.addHeader(nome, valor));
+    }
+
+    @Override
+    public void setIntHeader(String nome, int valor) {
+        ignorarSeDescartada(() -> super.setIntHeader(nome, valor));
+    }
+
+    @Override
+    public void addIntHeader(String nome, int valor) {
+        ignorarSeDescartada(() -> super.addIntHeader(nome, valor));
+    }
+
+    @Override
+    public void setDateHeader(String nome, long data) {
+        ignorarSeDescartada(() -> super.setDateHeader(nome, data));
+    }
+
+    @Override
+    public void addDateHeader(String nome, long data) {
+        ignorarSeDescartada(() -> super.addDateHeader(nome, data));
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        ignorarSeDescartada(() -> super.addCookie(cookie));
+    }
+
+    @Override
+    public void setContentType(String tipo) {
+        ignorarSeDescartada(() -> super.setContentType(tipo));
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        ignorarSeDescartada(() -> super.setCharacterEncoding(charset));
+    }
+
+    @Override
+    public void setContentLength(int tamanho) {
+        ignorarSeDescartada(() -> super.setContentLength(tamanho));
+    }
+
+    @Override
+    public void setContentLengthLong(long tamanho) {
+        ignorarSeDescartada(() -> super.setContentLengthLong(tamanho));
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        ignorarSeDescartada(() -> super.setLocale(locale));
+    }
+
+    @Override
+    public void setBufferSize(int tamanho) {
+        ignorarSeDescartada(() -> super.setBufferSize(tamanho));
+    }
+
+    private void proteger(Operacao operacao) throws IOException {
+        trava.lock();
+        try {
+            if (descartada) {
+                throw new IOException("Requisição já finalizada (tempo limite ou cliente desconectado)");
+            }
+            ExecutorBanco.liberarSeForaDoBanco();
+            operacao.executar();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private void ignorarSeDescartada(Runnable operacao) {
+        trava.lock();
+        try {
+            if (!descartada) {
+                operacao.run();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private final class SaidaProtegida extends ServletOutputStream {
+
+        private final ServletOutputStream destino;
+
+        SaidaProtegida(ServletOutputStream destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            proteger(() -> destino.write(b));
+        }
+
+        @Override
+        public void write(byte[] dados, int inicio, int tamanho) throws IOException {
+            proteger(() -> destino.write(dados, inicio, tamanho));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            proteger(destino::flush);
+        }
+
+        @Override
+        public void close() throws IOException {
+            proteger(destino::close);
+        }
+
+        @Override
+        public boolean isReady() {
+            return !descartada && destino.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            destino.setWriteListener(listener);
+        }
+    }
+
+    /**
+     * O PrintWriter engole a IOException (checkError() passa a true): o que a tarefa ainda escrever é descartado.
+     */
+    private final class EscritaProtegida extends Writer {
+
+        private final Writer destino;
+
+        EscritaProtegida(Writer destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void write(char[] texto, int inicio, int tamanho) throws IOException {
+            proteger(() -> destino.write(texto, inicio, tamanho));
+        }
+
+        @Override
+        public void write(String texto, int inicio, int tamanho) throws IOException {
+            proteger(() -> destino.write(texto, inicio, tamanho));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            proteger(destino::flush);
+        }
+
+        @Override
+        public void close() throws IOException {
+            proteger(destino::close);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.VersaoDados;
+import br.com.contatos.util.RoteadorReplicas;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * GET condicional pelas leituras de clientes e contatos: ETag derivado de {@link VersaoDados}
+ * e 304 quando o If-None-Match do navegador ainda vale, sem consulta nem serialização.
+ */
+final class RespostaCondicional {
+
+    private RespostaCondicional() { }
+
+    /**
+     * Define ETag e Cache-Control (o navegador guarda, mas revalida a cada uso).
+     *
+     * @return true se respondeu 304 e o servlet não precisa fazer mais nada
+     */
+    static boolean naoModificado(HttpServletRequest req, HttpServletResponse resp) {
+        String etag = VersaoDados.etag();
+        // Sem ETag para o que pode vir de uma réplica logo depois de uma escrita: o navegador
+        // revalidaria o dado antigo com o ETag da versão nova e receberia 304 até a próxima gravação
+        if (RoteadorReplicas.leituraCompartilhavel()) {
+            resp.setHeader("ETag", etag);
+        }
+        resp.setHeader("Cache-Control", "no-cache");
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && confere(ifNoneMatch, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match usa comparação fraca: ignora o prefixo W/ e o sufixo da compressão
+     * (-gzip/-deflate, ver CompressaoFilter) e aceita lista ou "*".
+     */
+    private static boolean confere(String ifNoneMatch, String etag) {
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.endsWith("-gzip\"")) {
+                valor = valor.substring(0, valor.length() - 6) + "\"";
+            } else if (valor.endsWith("-deflate\"")) {
+                valor = valor.substring(0, valor.length() - 9) + "\"";
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.util.CompressaoFilter;
+import br.com.contatos.util.ConsistenciaLeituraFilter;
+import br.com.contatos.util.ExecutorBanco;
+import br.com.contatos.util.RoteadorReplicas;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Base dos servlets que chamam o DAO: a requisição é colocada em modo assíncrono e os métodos
+ * doGet/doPost/... rodam numa thread virtual do {@link ExecutorBanco}, liberando a thread do
+ * container enquanto o JDBC espera pelo MySQL.
+ * <p>
+ * Se a requisição passar de agenda.async.timeoutMs, a tarefa é cancelada e o cliente recebe 503
+ * (quando a resposta ainda não começou a ser enviada). A tarefa escreve numa {@link RespostaAssincrona},
+ * que deixa de aceitar escritas quando o timeout ou a queda do cliente assumem a resposta, e as
+ * consultas dela levam o tempo que resta como query timeout (ver {@link ExecutorBanco#submeter}),
+ * então o banco também para.
+ * As subclasses precisam de {@code asyncSupported = true} no {@code @WebServlet}.
+ */
+public abstract class ServletAssincrono extends HttpServlet {
+
+    private static final Logger LOG = Logger.getLogger(ServletAssincrono.class.getName());
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (!req.isAsyncSupported()) {
+            // Algum filtro da cadeia não aceita modo assíncrono: atende na própria thread
+            super.service(req, resp);
+            return;
+        }
+
+        AsyncContext contexto = req.startAsync(req, resp);
+        contexto.setTimeout(ExecutorBanco.timeoutMs());
+        // Garante que só um lado (tarefa ou timeout) finaliza a requisição
+        AtomicBoolean finalizada = new AtomicBoolean();
+        RespostaAssincrona resposta = new RespostaAssincrona(resp);
+
+        Future<?> tarefa = ExecutorBanco.submeter(() -> {
+            // A decisão primário/réplica foi tomada na thread do filtro
+            RoteadorReplicas.fixarPrimario(ConsistenciaLeituraFilter.exigePrimario(req));
+            try {
+                super.service(req, resposta);
+            } catch (Exception e) {
+                if (!finalizada.get()) {
+                    LOG.log(Level.SEVERE, "Erro ao atender " + req.getMethod() + " " + req.getRequestURI(), e);
+                    if (!resposta.isCommitted()) {
+                        resposta.reset();
+                        resposta.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Erro interno: " + e.getMessage());
+                    }
+                }
+            } finally {
+                RoteadorReplicas.liberar();
+                if (finalizada.compareAndSet(false, true)) {
+                    try {
+                        // Fora da pilha do filtro: a compressão precisa ser encerrada antes do complete()
+                        CompressaoFilter.finalizar(resp);
+                    } catch (IOException e) {
+                        LOG.log(Level.FINE, "Cliente desconectou antes do fim da resposta", e);
+                    }
+                    contexto.complete();
+                }
+            }
+        });
+
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (!finalizada.compareAndSet(false, true)) {
+                    return;
+                }
+                ExecutorBanco.registrarTimeout();
+                tarefa.cancel(true);
+                // Daqui em diante a tarefa não escreve mais: a resposta é só desta thread
+                resposta.descartar();
+                CompressaoFilter.abandonar(resp);
+                if (!resp.isCommitted()) {
+                    resp.reset();
+                    resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                            "Tempo limite da requisição excedido (" + ExecutorBanco.timeoutMs() + " ms).");
+                }
+                contexto.complete();
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) { }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // Conexão do cliente caiu: não adianta continuar consultando o banco
+                if (finalizada.compareAndSet(false, true)) {
+                    tarefa.cancel(true);
+                    resposta.descartar();
+                    CompressaoFilter.abandonar(resp);
+                    contexto.complete();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) { }
+        });
+    }
+}
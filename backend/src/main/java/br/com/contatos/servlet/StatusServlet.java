@@ -0,0 +1,59 @@
+package br.com.contatos.servlet;
+
+import br.com.contatos.dao.ClienteDAO;
+import br.com.contatos.dao.ContatoDAO;
+import br.com.contatos.dao.FeedAlteracoes;
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.util.AdmissaoFilter;
+import br.com.contatos.util.ConnectionFactory;
+import br.com.contatos.util.ExecutorBanco;
+import br.com.contatos.util.Migracoes;
+import br.com.contatos.util.RoteadorReplicas;
+import com.google.gson.Gson;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /api/status
+ * Estatísticas de execução (pool de conexões, executor assíncrono e caches).
+ */
+@WebServlet("/api/status")
+public class StatusServlet extends HttpServlet {
+
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("armazenamento", Repositorios.tipo());
+        if (Repositorios.usaBanco()) {
+            status.put("versaoEsquema", Migracoes.versaoAtual());
+            status.put("pool", ConnectionFactory.estatisticas());
+            if (RoteadorReplicas.configurado()) {
+                status.put("replicas", RoteadorReplicas.estatisticas());
+                status.put("leiturasPrimario", RoteadorReplicas.leiturasPrimario());
+            }
+        }
+        status.put("executorBanco", ExecutorBanco.estatisticas());
+        if (Repositorios.usaBanco()) {
+            status.put("cacheClientes", ClienteDAO.estatisticasCache());
+            status.put("cacheContatos", ContatoDAO.estatisticasCache());
+        }
+        status.put("cacheListagem", ClienteServlet.CACHE_LISTAGEM.estatisticas());
+        status.put("consultasCompartilhadas", ClienteServlet.CONSULTAS.estatisticas());
+        status.put("admissao", AdmissaoFilter.estatisticas());
+        status.put("assinantesEventos", FeedAlteracoes.assinantes());
+
+        String jsonResponse = gson.toJson(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().print(jsonResponse);
+    }
+}
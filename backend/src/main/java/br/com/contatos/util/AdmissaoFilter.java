@@ -0,0 +1,169 @@
+package br.com.contatos.util;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Controle de admissão da API: todas as rotas dividem um único {@link LimiteAdaptativo} de requisições
+ * simultâneas, porque disputam o mesmo banco. Acima dele a requisição espera numa fila curta até
+ * agenda.admissao.esperaMaximaMs; com a fila cheia ou o prazo vencido, sai na hora com
+ * 503 + Retry-After, em vez de se somar às que já esperam pelo banco até todas estourarem o tempo.
+ * <p>
+ * Prioridade: escritas passam à frente das leituras na fila e podem usar o limite inteiro; as
+ * leituras usam até agenda.admissao.fracaoLeitura dele (o resto fica reservado às escritas) e as
+ * leituras pesadas (exportação, importação, listagens com os contatos, contatos de vários clientes)
+ * só agenda.admissao.fracaoLeituraPesada, deixando o resto livre para o uso interativo. As leituras
+ * pesadas não entram no ajuste pela latência: a duração delas depende do tamanho do resultado.
+ * <p>
+ * A vaga é devolvida quando a resposta termina de fato (onComplete, para os servlets assíncronos).
+ * Status, métricas e o SSE de eventos (conexões longas por natureza) ficam de fora.
+ * <p>
+ * No web.xml vem depois do MetricasFilter (as recusas aparecem nas métricas) e antes dos filtros
+ * de consistência e compressão, que não precisam rodar para uma requisição recusada.
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class AdmissaoFilter implements Filter {
+
+    private static final boolean HABILITADA = Configuracao.booleano("agenda.admissao.habilitada", true);
+    private static final int LIMITE_INICIAL = Configuracao.inteiro("agenda.admissao.limiteInicial", 20);
+    private static final int LIMITE_MINIMO = Configuracao.inteiro("agenda.admissao.limiteMinimo", 2);
+    private static final int LIMITE_MAXIMO = Configuracao.inteiro("agenda.admissao.limiteMaximo", 200);
+    private static final double TOLERANCIA = Double.parseDouble(Configuracao.texto("agenda.admissao.toleranciaLatencia", "2.0"));
+    private static final int FILA_MAXIMA = Configuracao.inteiro("agenda.admissao.filaMaxima", 50);
+    private static final long ESPERA_MAXIMA_MS = Configuracao.longo("agenda.admissao.esperaMaximaMs", 500);
+    private static final double FRACAO_LEITURA = Double.parseDouble(
+            Configuracao.texto("agenda.admissao.fracaoLeitura", "0.9"));
+    private static final double FRACAO_LEITURA_PESADA = Double.parseDouble(
+            Configuracao.texto("agenda.admissao.fracaoLeituraPesada", "0.5"));
+    private static final String RETRY_AFTER_S = Configuracao.texto("agenda.admissao.retryAfterS", "1");
+
+    private static final Set<String> FORA_DO_CONTROLE = Set.of("/api/status", "/api/metrics", "/api/eventos");
+
+    /** Prioridades na fila: menor passa à frente. */
+    private static final int ESCRITA = 0;
+    private static final int LEITURA = 1;
+    private static final int LEITURA_PESADA = 2;
+
+    private static final LimiteAdaptativo LIMITE = new LimiteAdaptativo(
+            LIMITE_INICIAL, LIMITE_MINIMO, LIMITE_MAXIMO, TOLERANCIA, FILA_MAXIMA);
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        String rota = MetricasHttp.rota(request.getRequestURI().substring(request.getContextPath().length()));
+        if (!HABILITADA || "OPTIONS".equals(request.getMethod()) || FORA_DO_CONTROLE.contains(rota)) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        int prioridade = prioridade(request, rota);
+
+        LimiteAdaptativo.Admissao admissao;
+        try {
+            admissao = LIMITE.adquirir(prioridade, fracao(prioridade), ESPERA_MAXIMA_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Requisição interrompida na fila de admissão.");
+            return;
+        }
+        if (admissao != LimiteAdaptativo.Admissao.ADMITIDA) {
+            response.setHeader("Retry-After", RETRY_AFTER_S);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    admissao == LimiteAdaptativo.Admissao.FILA_CHEIA
+                            ? "Servidor sobrecarregado: tente novamente em instantes."
+                            : "Servidor sobrecarregado: tempo de espera pela vez esgotado (" + ESPERA_MAXIMA_MS + " ms).");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        // onComplete e o finally podem correr juntos: só um devolve a vaga
+        AtomicBoolean liberada = new AtomicBoolean();
+        boolean assincrona = false;
+        boolean falhou = true;
+        try {
+            chain.doFilter(req, res);
+            assincrona = request.isAsyncStarted();
+            falhou = false;
+        } finally {
+            if (assincrona) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        if (liberada.compareAndSet(false, true)) {
+                            liberar(prioridade, inicio, response.getStatus() >= 500);
+                        }
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) { }
+
+                    @Override
+                    public void onError(AsyncEvent event) { }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) { }
+                });
+            } else if (liberada.compareAndSet(false, true)) {
+                liberar(prioridade, inicio, falhou || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    /**
+     * Situação do limite (um só para toda a API), para /api/status e /api/metrics.
+     */
+    public static LimiteAdaptativo.Estatisticas estatisticas() {
+        return LIMITE.estatisticas();
+    }
+
+    /**
+     * Parte do limite que cada prioridade pode ocupar; decrescente, como {@link LimiteAdaptativo} espera.
+     */
+    private static double fracao(int prioridade) {
+        return switch (prioridade) {
+            case ESCRITA -> 1.0;
+            case LEITURA -> FRACAO_LEITURA;
+            default -> FRACAO_LEITURA_PESADA;
+        };
+    }
+
+    private static void liberar(int prioridade, long inicio, boolean sobrecarga) {
+        if (prioridade == LEITURA_PESADA) {
+            LIMITE.liberar(sobrecarga);
+        } else {
+            LIMITE.liberar(System.nanoTime() - inicio, sobrecarga);
+        }
+    }
+
+    private static int prioridade(HttpServletRequest request, String rota) {
+        if (rota.equals("/api/exportacao") || rota.equals("/api/clientes/importar")
+                || Boolean.parseBoolean(request.getParameter("incluirContatos"))
+                || request.getParameter("clienteIds") != null) {
+            return LEITURA_PESADA;
+        }
+        String metodo = request.getMethod();
+        return "GET".equals(metodo) || "HEAD".equals(metodo) ? LEITURA : ESCRITA;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) { }
+
+    @Override
+    public void destroy() { }
+}
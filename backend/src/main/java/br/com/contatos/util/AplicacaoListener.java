@@ -0,0 +1,67 @@
+package br.com.contatos.util;
+
+import br.com.contatos.dao.BancoMemoria;
+import br.com.contatos.dao.ClienteDAO;
+import br.com.contatos.dao.Repositorios;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sobe e derruba os recursos compartilhados junto com a aplicação.
+ */
+@WebListener
+public class AplicacaoListener implements ServletContextListener {
+
+    private static final Logger LOG = Logger.getLogger(AplicacaoListener.class.getName());
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        if (!Repositorios.usaBanco()) {
+            try {
+                BancoMemoria.instancia().iniciar();
+            } catch (IOException e) {
+                // Começar vazio por cima de um snapshot ilegível apagaria os dados no próximo snapshot
+                throw new IllegalStateException("Não foi possível ler o snapshot do armazenamento em memória", e);
+            }
+            return;
+        }
+
+        try {
+            ConnectionFactory.iniciar();
+        } catch (SQLException e) {
+            // A aplicação sobe mesmo assim; o pool tenta novamente na manutenção periódica
+            LOG.log(Level.WARNING, "Não foi possível pré-aquecer o pool de conexões", e);
+        }
+
+        if (Configuracao.booleano("agenda.migracoes.habilitadas", true)) {
+            try {
+                Migracoes.aplicar();
+            } catch (SQLException e) {
+                // Sem as migrações as consultas que dependem das colunas/índices novos falham; fica no log
+                LOG.log(Level.SEVERE, "Não foi possível aplicar as migrações do esquema", e);
+            }
+        }
+
+        try {
+            new ClienteDAO().carregarIndiceBusca();
+        } catch (SQLException e) {
+            // Sem o índice, a busca (RF05) continua funcionando direto no banco
+            LOG.log(Level.WARNING, "Não foi possível carregar o índice de busca de clientes", e);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ExecutorBanco.encerrar();
+        if (Repositorios.usaBanco()) {
+            ConnectionFactory.encerrar();
+        } else {
+            BancoMemoria.instancia().encerrar();
+        }
+    }
+}
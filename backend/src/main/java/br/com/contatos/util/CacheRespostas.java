@@ -0,0 +1,111 @@
+package br.com.contatos.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de respostas já serializadas (JSON em bytes e, quando vale a pena, também em gzip),
+ * válidas para uma versão dos dados.
+ * <p>
+ * Todas as entradas pertencem a uma geração (versão + mapa). Quando a versão muda (uma gravação
+ * confirmada), a próxima leitura troca a geração inteira de uma vez, num compareAndSet: não há
+ * invalidação por chave nem janela em que uma página velha convive com uma nova.
+ */
+public class CacheRespostas {
+
+    /**
+     * Corpo pronto para enviar; {@code gzip} é null quando o JSON é pequeno demais para comprimir.
+     */
+    public record Corpo(byte[] json, byte[] gzip) { }
+
+    public record Estatisticas(long versao, int paginas, int maxPaginas, long acertos, long falhas, long trocas) { }
+
+    private record Geracao(long versao, ConcurrentHashMap<String, Corpo> corpos) { }
+
+    private final int maxPaginas;
+    private final int tamanhoMinimoGzip;
+    private final AtomicReference<Geracao> geracao = new AtomicReference<>(new Geracao(-1, new ConcurrentHashMap<>()));
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder trocas = new LongAdder();
+
+    public CacheRespostas(int maxPaginas, int tamanhoMinimoGzip) {
+        this.maxPaginas = maxPaginas;
+        this.tamanhoMinimoGzip = tamanhoMinimoGzip;
+    }
+
+    /**
+     * Corpo guardado para a chave na versão informada, ou null.
+     */
+    public Corpo obter(String chave, long versao) {
+        Geracao atual = geracaoDa(versao);
+        Corpo corpo = atual == null ? null : atual.corpos().get(chave);
+        if (corpo == null) {
+            falhas.increment();
+        } else {
+            acertos.increment();
+        }
+        return corpo;
+    }
+
+    /**
+     * Monta o corpo (com a versão em gzip, se passar do tamanho mínimo) e o guarda, a menos que
+     * os dados tenham mudado depois de {@code versaoLida} ou o limite de páginas tenha sido atingido.
+     */
+    public Corpo guardar(String chave, long versaoLida, byte[] json) {
+        Corpo corpo = montar(json);
+        Geracao atual = geracaoDa(versaoLida);
+        if (atual != null && atual.corpos().size() < maxPaginas) {
+            atual.corpos().putIfAbsent(chave, corpo);
+        }
+        return corpo;
+    }
+
+    /**
+     * Corpo pronto para enviar, sem guardar no cache (ex.: resultado de busca compartilhado entre requisições).
+     */
+    public Corpo montar(byte[] json) {
+        return new Corpo(json, json.length >= tamanhoMinimoGzip ? gzip(json) : null);
+    }
+
+    public Estatisticas estatisticas() {
+        Geracao atual = geracao.get();
+        return new Estatisticas(atual.versao(), atual.corpos().size(), maxPaginas,
+                acertos.sum(), falhas.sum(), trocas.sum());
+    }
+
+    /**
+     * Geração da versão pedida, trocando a atual se ela for mais antiga; null se a versão pedida
+     * já foi superada (leitura que começou antes de uma gravação).
+     */
+    private Geracao geracaoDa(long versao) {
+        while (true) {
+            Geracao atual = geracao.get();
+            if (atual.versao() == versao) {
+                return atual;
+            }
+            if (atual.versao() > versao) {
+                return null;
+            }
+            if (geracao.compareAndSet(atual, new Geracao(versao, new ConcurrentHashMap<>()))) {
+                trocas.increment();
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // não acontece em memória
+        }
+        return saida.toByteArray();
+    }
+}
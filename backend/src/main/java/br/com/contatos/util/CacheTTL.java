@@ -0,0 +1,132 @@
+package br.com.contatos.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU com tamanho máximo e tempo de vida (TTL) por entrada.
+ * Valores nulos não são guardados.
+ * <p>
+ * Para não guardar um valor lido antes de uma invalidação concorrente, quem carrega do banco
+ * anota a {@link #geracao()} antes da consulta e a informa em {@link #guardar}: se houve
+ * invalidação no meio tempo, o valor é descartado.
+ */
+public class CacheTTL<K, V> {
+
+    /**
+     * Carrega o valor na falta (ex.: consulta ao banco).
+     */
+    @FunctionalInterface
+    public interface Carregador<V, E extends Exception> {
+        V carregar() throws E;
+    }
+
+    public record Estatisticas(int tamanho, int capacidade, long ttlMs, long acertos, long falhas,
+                               long remocoesPorTamanho, long expiracoes, long invalidacoes, double taxaAcerto) { }
+
+    private record Entrada<V>(V valor, long expiraEm) { }
+
+    private final int capacidade;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entrada<V>> mapa;
+    private long geracao;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder remocoesPorTamanho = new LongAdder();
+    private final LongAdder expiracoes = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    public CacheTTL(int capacidade, long ttlMs) {
+        this.capacidade = capacidade;
+        this.ttlMs = ttlMs;
+        this.mapa = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > CacheTTL.this.capacidade) {
+                    remocoesPorTamanho.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Leitura com carga na falta: consulta o cache e, se não houver valor válido, chama o carregador.
+     */
+    public <E extends Exception> V obter(K chave, Carregador<V, E> carregador) throws E {
+        V valor = obter(chave);
+        if (valor != null) {
+            return valor;
+        }
+        long geracaoLida = geracao();
+        valor = carregador.carregar();
+        guardar(chave, valor, geracaoLida);
+        return valor;
+    }
+
+    public synchronized V obter(K chave) {
+        Entrada<V> entrada = mapa.get(chave);
+        if (entrada == null) {
+            falhas.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= entrada.expiraEm()) {
+            mapa.remove(chave);
+            expiracoes.increment();
+            falhas.increment();
+            return null;
+        }
+        acertos.increment();
+        return entrada.valor();
+    }
+
+    public synchronized long geracao() {
+        return geracao;
+    }
+
+    /**
+     * Guarda o valor, a menos que alguma chave tenha sido invalidada depois de {@code geracaoLida}.
+     */
+    public synchronized void guardar(K chave, V valor, long geracaoLida) {
+        if (valor == null || capacidade <= 0 || geracaoLida != geracao) {
+            return;
+        }
+        mapa.put(chave, new Entrada<>(valor, System.currentTimeMillis() + ttlMs));
+    }
+
+    public synchronized void invalidar(K chave) {
+        geracao++;
+        if (mapa.remove(chave) != null) {
+            invalidacoes.increment();
+        }
+    }
+
+    public synchronized void limpar() {
+        geracao++;
+        invalidacoes.add(mapa.size());
+        mapa.clear();
+    }
+
+    public Estatisticas estatisticas() {
+        int tamanho;
+        synchronized (this) {
+            // Aproveita para descartar as entradas vencidas
+            long agora = System.currentTimeMillis();
+            for (Iterator<Entrada<V>> it = mapa.values().iterator(); it.hasNext(); ) {
+                if (agora >= it.next().expiraEm()) {
+                    it.remove();
+                    expiracoes.increment();
+                }
+            }
+            tamanho = mapa.size();
+        }
+        long a = acertos.sum();
+        long f = falhas.sum();
+        return new Estatisticas(tamanho, capacidade, ttlMs, a, f, remocoesPorTamanho.sum(),
+                expiracoes.sum(), invalidacoes.sum(), (a + f) == 0 ? 0 : (double) a / (a + f));
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.contatos.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Junta chamadas idênticas e simultâneas numa só ("single flight"): a primeira requisição com
+ * uma chave executa a consulta e as que chegam enquanto ela roda esperam e recebem o mesmo resultado.
+ * Com {@code janelaMs > 0}, o resultado ainda serve a mesma chave por esse tempo depois de pronto
+ * (micro-cache), o que absorve as rajadas que chegam logo em seguida.
+ * <p>
+ * A chave precisa identificar tudo o que muda o resultado, inclusive a versão dos dados: assim uma
+ * leitura que começa depois de uma gravação nunca recebe um resultado de antes dela. Falhas não
+ * ficam guardadas; quem esperava recebe o erro e a próxima chamada tenta de novo.
+ */
+public class ChamadaUnica<K, V> {
+
+    /**
+     * A consulta compartilhada, executada na thread da primeira requisição.
+     */
+    @FunctionalInterface
+    public interface Calculo<V> {
+        V calcular() throws SQLException, IOException;
+    }
+
+    public record Estatisticas(long janelaMs, int emAndamento, long execucoes, long compartilhadas, long microCache) { }
+
+    private static final class Voo<V> {
+        final CompletableFuture<V> resultado = new CompletableFuture<>();
+        volatile long concluidoNanos;
+    }
+
+    private final long janelaNanos;
+    private final int maxGuardados;
+    private final ConcurrentHashMap<K, Voo<V>> voos = new ConcurrentHashMap<>();
+
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+    private final LongAdder microCache = new LongAdder();
+
+    /**
+     * @param janelaMs     por quanto tempo um resultado pronto ainda atende a mesma chave (0 = só em andamento)
+     * @param maxGuardados limite de resultados guardados pela janela; acima dele, só os em andamento ficam
+     */
+    public ChamadaUnica(long janelaMs, int maxGuardados) {
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, janelaMs));
+        this.maxGuardados = maxGuardados;
+    }
+
+    public V executar(K chave, Calculo<V> calculo) throws SQLException, IOException {
+        while (true) {
+            Voo<V> existente = voos.get(chave);
+            if (existente != null && valido(existente)) {
+                if (existente.resultado.isDone()) {
+                    microCache.increment();
+                } else {
+                    compartilhadas.increment();
+                }
+                return aguardar(existente);
+            }
+
+            Voo<V> novo = new Voo<>();
+            boolean lider = existente == null ? voos.putIfAbsent(chave, novo) == null : voos.replace(chave, existente, novo);
+            if (lider) {
+                return liderar(chave, novo, calculo);
+            }
+            // Outra thread ganhou a corrida pela chave: volta e usa o voo dela
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        int emAndamento = 0;
+        for (Voo<V> voo : voos.values()) {
+            if (!voo.resultado.isDone()) {
+                emAndamento++;
+            }
+        }
+        return new Estatisticas(TimeUnit.NANOSECONDS.toMillis(janelaNanos), emAndamento,
+                execucoes.sum(), compartilhadas.sum(), microCache.sum());
+    }
+
+    private V liderar(K chave, Voo<V> voo, Calculo<V> calculo) throws SQLException, IOException {
+        execucoes.increment();
+        V valor;
+        try {
+            valor = calculo.calcular();
+        } catch (SQLException | IOException | RuntimeException | Error e) {
+            voos.remove(chave, voo);
+            voo.resultado.completeExceptionally(e);
+            throw e;
+        }
+        voo.concluidoNanos = System.nanoTime();
+        voo.resultado.complete(valor);
+
+        if (janelaNanos == 0) {
+            voos.remove(chave, voo);
+        } else if (voos.size() > maxGuardados) {
+            limparExpirados();
+            if (voos.size() > maxGuardados) {
+                voos.remove(chave, voo);
+            }
+        }
+        return valor;
+    }
+
+    private boolean valido(Voo<V> voo) {
+        if (!voo.resultado.isDone()) {
+            return true;
+        }
+        return !voo.resultado.isCompletedExceptionally() && System.nanoTime() - voo.concluidoNanos < janelaNanos;
+    }
+
+    private void limparExpirados() {
+        voos.entrySet().removeIf(e -> e.getValue().resultado.isDone() && !valido(e.getValue()));
+    }
+
+    /**
+     * Espera o resultado do voo; a falha do líder chega como uma exceção desta chamada, com a original como causa.
+     */
+    private V aguardar(Voo<V> voo) throws SQLException, IOException {
+        try {
+            return voo.resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido esperando a consulta compartilhada");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException sql) {
+                throw new SQLException(sql.getMessage(), sql.getSQLState(), sql.getErrorCode(), sql);
+            }
+            if (causa instanceof IOException io) {
+                throw new IOException(io.getMessage(), io);
+            }
+            if (causa instanceof IllegalArgumentException arg) {
+                throw new IllegalArgumentException(arg.getMessage(), arg);
+            }
+            if (causa instanceof Error erro) {
+                throw erro;
+            }
+            throw new IllegalStateException("Falha na consulta compartilhada", causa);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.contatos.util;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Compressão gzip/deflate das respostas da API, negociada pelo Accept-Encoding.
+ * <p>
+ * Só comprime tipos de texto (JSON, NDJSON, CSV) a partir de agenda.compressao.tamanhoMinimo bytes;
+ * abaixo disso a resposta sai como está, com Content-Length. A compressão é feita em streaming,
+ * à medida que o servlet escreve, com Deflaters reaproveitados entre requisições.
+ * <p>
+ * Nos servlets síncronos a resposta é finalizada aqui, ao fim da cadeia; nos assíncronos,
+ * o {@code ServletAssincrono} chama {@link #finalizar(ServletResponse)} antes do complete().
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class CompressaoFilter implements Filter {
+
+    private static final int TAMANHO_MINIMO = Configuracao.inteiro("agenda.compressao.tamanhoMinimo", 1024);
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        String codificacao = "HEAD".equals(request.getMethod()) ? null : negociar(request.getHeader("Accept-Encoding"));
+        if (codificacao == null) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        response.addHeader("Vary", "Accept-Encoding");
+        RespostaComprimida comprimida = new RespostaComprimida(response, codificacao, TAMANHO_MINIMO);
+        boolean concluida = false;
+        try {
+            chain.doFilter(req, comprimida);
+            concluida = true;
+        } finally {
+            if (!request.isAsyncStarted()) {
+                if (concluida) {
+                    comprimida.finalizar();
+                } else {
+                    // A resposta de erro é do container; aqui só volta o Deflater ao pool
+                    comprimida.abandonar();
+                }
+            }
+        }
+    }
+
+    /**
+     * Termina a compressão da resposta (se ela passou por este filtro): escreve o que falta,
+     * o rodapé do gzip e devolve o Deflater ao pool.
+     */
+    public static void finalizar(ServletResponse resposta) throws IOException {
+        RespostaComprimida comprimida = comprimida(resposta);
+        if (comprimida != null) {
+            comprimida.finalizar();
+        }
+    }
+
+    /**
+     * Encerra a compressão sem escrever mais nada (requisição assíncrona expirada ou cliente
+     * desconectado): só devolve o Deflater ao pool.
+     */
+    public static void abandonar(ServletResponse resposta) {
+        RespostaComprimida comprimida = comprimida(resposta);
+        if (comprimida != null) {
+            comprimida.abandonar();
+        }
+    }
+
+    private static RespostaComprimida comprimida(ServletResponse resposta) {
+        ServletResponse atual = resposta;
+        while (atual instanceof ServletResponseWrapper wrapper) {
+            if (atual instanceof RespostaComprimida comprimida) {
+                return comprimida;
+            }
+            atual = wrapper.getResponse();
+        }
+        return null;
+    }
+
+    /**
+     * gzip tem preferência sobre deflate; "q=0" recusa a codificação.
+     *
+     * @return "gzip", "deflate" ou null se nenhuma for aceita
+     */
+    public static String negociar(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String parte : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] campos = parte.split(";");
+            String nome = campos[0].trim();
+            boolean recusada = false;
+            for (int i = 1; i < campos.length; i++) {
+                String parametro = campos[i].trim().replace(" ", "");
+                if (parametro.startsWith("q=")) {
+                    try {
+                        recusada = Double.parseDouble(parametro.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        recusada = true;
+                    }
+                }
+            }
+            if (recusada) {
+                continue;
+            }
+            if (nome.equals("gzip") || nome.equals("x-gzip") || nome.equals("*")) {
+                gzip = true;
+            } else if (nome.equals("deflate")) {
+                deflate = true;
+            }
+        }
+        return gzip ? "gzip" : deflate ? "deflate" : null;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) { }
+
+    @Override
+    public void destroy() { }
+}
@@ -0,0 +1,65 @@
+package br.com.contatos.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Configuração externa da aplicação.
+ * Ordem de precedência: propriedade de sistema (-Dagenda.db.url=...),
+ * variável de ambiente (AGENDA_DB_URL) e, por fim, o arquivo agenda.properties do classpath.
+ */
+public final class Configuracao {
+
+    private static final String ARQUIVO = "agenda.properties";
+    private static final Properties PROPRIEDADES = carregar();
+
+    private Configuracao() { }
+
+    public static String texto(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null) {
+            valor = System.getenv(chave.toUpperCase(Locale.ROOT).replace('.', '_'));
+        }
+        if (valor == null) {
+            valor = PROPRIEDADES.getProperty(chave);
+        }
+        return (valor == null || valor.isBlank()) ? padrao : valor.trim();
+    }
+
+    public static int inteiro(String chave, int padrao) {
+        String valor = texto(chave, null);
+        try {
+            return valor == null ? padrao : Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para '" + chave + "': " + valor, e);
+        }
+    }
+
+    public static long longo(String chave, long padrao) {
+        String valor = texto(chave, null);
+        try {
+            return valor == null ? padrao : Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para '" + chave + "': " + valor, e);
+        }
+    }
+
+    public static boolean booleano(String chave, boolean padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+
+    private static Properties carregar() {
+        Properties props = new Properties();
+        try (InputStream in = Configuracao.class.getClassLoader().getResourceAsStream(ARQUIVO)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler " + ARQUIVO, e);
+        }
+        return props;
+    }
+}
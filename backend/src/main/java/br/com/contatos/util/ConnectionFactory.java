@@ -1,22 +1,152 @@
 package br.com.contatos.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Ponto único de acesso ao banco. As conexões vêm de um {@link ConnectionPool}
+ * configurado por agenda.properties (ou -Dagenda.db.* / variáveis AGENDA_DB_*).
+ * Com réplicas configuradas (agenda.db.replicas), {@link #getConnectionLeitura()} pode
+ * entregar uma conexão de réplica; escritas e leituras dentro de transação usam {@link #getConnection()}.
+ */
 public class ConnectionFactory {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/agenda"; //nome do banco no final da url
-    private static final String USER = "root"; // nome do user
-    private static final String PASSWORD = ""; // senha do banco
+    /**
+     * Para {@link #definirFetch}: consulta sem limite conhecido de linhas.
+     */
+    public static final int SEM_LIMITE = -1;
 
-    public static Connection getConnection() {
+    private static final int TAMANHO_FETCH = Configuracao.inteiro("agenda.db.fetchSize", 100);
+
+    private static volatile ConnectionPool pool;
+
+    public static Connection getConnection() throws SQLException {
+        return pool().getConnection();
+    }
+
+    /**
+     * Conexão para uma leitura fora de transação: de uma réplica, se houver uma saudável e
+     * a leitura não precisar do primário (ver {@link RoteadorReplicas}), ou do próprio primário.
+     */
+    public static Connection getConnectionLeitura() throws SQLException {
+        ConnectionPool primario = pool();
+        Connection replica = RoteadorReplicas.conexaoLeitura(false);
+        return replica != null ? replica : primario.getConnection();
+    }
+
+    /**
+     * Como {@link #getConnectionLeitura()}, para uma leitura que acompanha um download inteiro
+     * (exportação): a conexão fica emprestada enquanto o cliente baixa e não é reportada como vazamento.
+     */
+    public static Connection getConnectionLeituraLonga() throws SQLException {
+        ConnectionPool primario = pool();
+        Connection replica = RoteadorReplicas.conexaoLeitura(true);
+        return replica != null ? replica : primario.getConnectionLonga();
+    }
+
+    /**
+     * Cria o pool e abre as conexões mínimas (chamado na subida da aplicação).
+     */
+    public static void iniciar() throws SQLException {
+        pool().preAquecer();
+    }
+
+    public static synchronized void encerrar() {
+        RoteadorReplicas.encerrar();
+        if (pool != null) {
+            pool.encerrar();
+            pool = null;
+        }
+    }
+
+    /**
+     * Quantas linhas o driver busca por ida ao banco nas listagens.
+     * No MySQL só vale com useCursorFetch=true na URL.
+     */
+    public static int tamanhoFetch() {
+        return TAMANHO_FETCH;
+    }
+
+    /**
+     * Política de fetch size: um resultado limitado que cabe em {@link #tamanhoFetch()} linhas
+     * (página pequena, busca por id) vem numa ida só, sem abrir cursor no servidor;
+     * os maiores ou sem limite (exportação, carga do índice, IN) vêm em blocos de tamanhoFetch.
+     */
+    public static void definirFetch(Statement stmt, int linhasEsperadas) throws SQLException {
+        boolean cabeNumaIda = linhasEsperadas != SEM_LIMITE && linhasEsperadas <= TAMANHO_FETCH;
+        stmt.setFetchSize(cabeNumaIda ? 0 : TAMANHO_FETCH);
+    }
+
+    public static ConnectionPool.Estatisticas estatisticas() {
+        return pool().estatisticas();
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool atual = pool;
+        if (atual == null) {
+            synchronized (ConnectionFactory.class) {
+                atual = pool;
+                if (atual == null) {
+                    atual = criarPool();
+                    pool = atual;
+                }
+            }
+        }
+        return atual;
+    }
+
+    private static ConnectionPool criarPool() {
+        String driver = Configuracao.texto("agenda.db.driver", "com.mysql.cj.jdbc.Driver");
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
-        } catch (SQLException | ClassNotFoundException e) {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Driver JDBC não encontrado: " + driver, e);
+        }
+
+        String usuario = Configuracao.texto("agenda.db.usuario", "root");
+        String senha = Configuracao.texto("agenda.db.senha", "");
 
-            throw new RuntimeException("Erro ao conectar ao banco de dados", e);
+        List<ConnectionPool.Config> replicas = new ArrayList<>();
+        String urlsReplicas = Configuracao.texto("agenda.db.replicas", null);
+        if (urlsReplicas != null) {
+            // Separa por vírgula só antes de "jdbc:": URLs multi-host do MySQL também têm vírgulas
+            for (String url : urlsReplicas.split(",(?=\\s*jdbc:)")) {
+                if (!url.isBlank()) {
+                    replicas.add(configPool(url.trim(),
+                            Configuracao.texto("agenda.db.replicas.usuario", usuario),
+                            Configuracao.texto("agenda.db.replicas.senha", senha)));
+                }
+            }
         }
+        RoteadorReplicas.iniciar(replicas);
+
+        ConnectionPool criado = new ConnectionPool(configPool(
+                Configuracao.texto("agenda.db.url", "jdbc:mysql://localhost:3306/agenda?useCursorFetch=true&rewriteBatchedStatements=true"
+                        + "&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048&useAffectedRows=true"),
+                usuario, senha));
+        criado.iniciar();
+        return criado;
+    }
+
+    /**
+     * Mesmos parâmetros de pool (agenda.pool.*) para o primário e para cada réplica.
+     */
+    private static ConnectionPool.Config configPool(String url, String usuario, String senha) {
+        return new ConnectionPool.Config(
+                url,
+                usuario,
+                senha,
+                Configuracao.inteiro("agenda.pool.tamanhoMinimo", 2),
+                Configuracao.inteiro("agenda.pool.tamanhoMaximo", 10),
+                Configuracao.longo("agenda.pool.timeoutEsperaMs", 5_000),
+                Configuracao.longo("agenda.pool.validarAposMs", 30_000),
+                Configuracao.longo("agenda.pool.ociosidadeMaximaMs", 600_000),
+                Configuracao.longo("agenda.pool.vidaMaximaMs", 1_800_000),
+                Configuracao.longo("agenda.pool.limiteVazamentoMs", 60_000),
+                Configuracao.booleano("agenda.pool.rastrearOrigemVazamento", false)
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,430 @@
+package br.com.contatos.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexões JDBC com tamanho máximo, pré-aquecimento, validação,
+ * remoção de conexões ociosas e detecção de vazamentos.
+ * A conexão entregue é um proxy: close() devolve a conexão física ao pool.
+ */
+public class ConnectionPool {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Parâmetros do pool (ver agenda.properties).
+     */
+    public record Config(String url, String usuario, String senha,
+                         int tamanhoMinimo, int tamanhoMaximo,
+                         long timeoutEsperaMs, long validarAposMs,
+                         long ociosidadeMaximaMs, long vidaMaximaMs,
+                         long limiteVazamentoMs, boolean rastrearOrigemVazamento) { }
+
+    /**
+     * Fotografia do estado do pool, exposta em /api/status.
+     */
+    public record Estatisticas(int ativas, int ociosas, int total, int aguardando,
+                               long emprestimos, long timeouts, double esperaMediaMs,
+                               double esperaMaximaMs, long vazamentosDetectados) { }
+
+    /** Instante (System.nanoTime) em que a requisição atendida pela thread expira. */
+    private static final ThreadLocal<Long> PRAZO = new ThreadLocal<>();
+    /** Conexões (de qualquer pool) que a thread pegou e ainda não fechou. */
+    private static final ThreadLocal<int[]> EMPRESTADAS_NA_THREAD = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Config config;
+    private final Semaphore permissoes;
+    private final LinkedBlockingDeque<ConexaoFisica> ociosas = new LinkedBlockingDeque<>();
+    private final Map<ConexaoFisica, Emprestimo> emprestadas = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService manutencao;
+    private final ReentrantLock aquecimento = new ReentrantLock();
+
+    private final LongAdder emprestimos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final LongAdder vazamentos = new LongAdder();
+
+    private volatile boolean encerrado;
+
+    public ConnectionPool(Config config) {
+        this.config = config;
+        this.permissoes = new Semaphore(config.tamanhoMaximo(), true);
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "agenda-pool-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Agenda a manutenção periódica (ociosas, vida máxima, vazamentos e reposição do mínimo).
+     * Separado do construtor para a thread de manutenção nunca ver o pool pela metade.
+     */
+    public void iniciar() {
+        long referencia = detectaVazamentos()
+                ? Math.min(config.ociosidadeMaximaMs(), config.limiteVazamentoMs()) : config.ociosidadeMaximaMs();
+        long intervalo = Math.max(1000, referencia / 2);
+        manutencao.scheduleWithFixedDelay(this::executarManutencao, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre as conexões mínimas antecipadamente, para que a primeira requisição não pague o handshake.
+     * Roda na subida e na manutenção, uma de cada vez; cada abertura ocupa uma permissão como um
+     * empréstimo, então o total nunca passa de tamanhoMaximo, e com o pool todo emprestado não abre nada.
+     */
+    public void preAquecer() throws SQLException {
+        aquecimento.lock();
+        try {
+            while (!encerrado && total.get() < Math.min(config.tamanhoMinimo(), config.tamanhoMaximo())) {
+                if (!permissoes.tryAcquire()) {
+                    return;
+                }
+                try {
+                    ConexaoFisica fisica = abrirFisica();
+                    ociosas.offerFirst(fisica);
+                } finally {
+                    permissoes.release();
+                }
+            }
+        } finally {
+            aquecimento.unlock();
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        return emprestar(false);
+    }
+
+    /**
+     * Conexão para uma operação longa por natureza, como a exportação completa, cuja duração depende
+     * de quão rápido o cliente HTTP baixa: ocupa uma vaga do pool como as outras, mas fica fora da
+     * detecção de vazamento.
+     */
+    public Connection getConnectionLonga() throws SQLException {
+        return emprestar(true);
+    }
+
+    private Connection emprestar(boolean longo) throws SQLException {
+        if (encerrado) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            if (!permissoes.tryAcquire(config.timeoutEsperaMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "Nenhuma conexão disponível após " + config.timeoutEsperaMs() + " ms (máximo " + config.tamanhoMaximo() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão", e);
+        }
+
+        try {
+            ConexaoFisica fisica = obterOciosaValida();
+            if (fisica == null) {
+                fisica = abrirFisica();
+            }
+            registrarEspera(System.nanoTime() - inicio);
+            // A pilha de quem pegou a conexão só é capturada com agenda.pool.rastrearOrigemVazamento
+            Throwable origem = !longo && detectaVazamentos() && config.rastrearOrigemVazamento()
+                    ? new Throwable("Conexão obtida aqui") : null;
+            emprestadas.put(fisica, new Emprestimo(System.currentTimeMillis(), longo, origem));
+            Connection proxy = fisica.criarProxy();
+            EMPRESTADAS_NA_THREAD.get()[0]++;
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Define o prazo da requisição atendida pela thread atual: cada Statement criado pelas conexões
+     * do pool recebe como query timeout o tempo que falta, e o driver cancela a consulta no servidor
+     * quando ele acaba. Quem define deve chamar {@link #limparPrazo()} ao terminar.
+     */
+    public static void definirPrazo(long prazoNanos) {
+        PRAZO.set(prazoNanos);
+    }
+
+    public static void limparPrazo() {
+        PRAZO.remove();
+    }
+
+    /**
+     * Se a thread atual ainda tem alguma conexão de pool aberta (por exemplo, percorrendo um ResultSet).
+     */
+    public static boolean conexaoAbertaNaThread() {
+        return EMPRESTADAS_NA_THREAD.get()[0] > 0;
+    }
+
+    /**
+     * Conexões emprestadas agora (usado para escolher a réplica menos ocupada).
+     */
+    public int ativas() {
+        return emprestadas.size();
+    }
+
+    public Estatisticas estatisticas() {
+        long n = emprestimos.sum();
+        return new Estatisticas(
+                emprestadas.size(),
+                ociosas.size(),
+                total.get(),
+                permissoes.getQueueLength(),
+                n,
+                timeouts.sum(),
+                n == 0 ? 0 : esperaTotalNanos.sum() / 1_000_000.0 / n,
+                esperaMaximaNanos.get() / 1_000_000.0,
+                vazamentos.sum());
+    }
+
+    public void encerrar() {
+        encerrado = true;
+        manutencao.shutdownNow();
+        ConexaoFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            fisica.fecharFisica();
+        }
+    }
+
+    private ConexaoFisica obterOciosaValida() {
+        ConexaoFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            if (fisica.expirada() || (fisica.ociosaHaMs() > config.validarAposMs() && !fisica.valida())) {
+                fisica.fecharFisica();
+                continue;
+            }
+            return fisica;
+        }
+        return null;
+    }
+
+    private ConexaoFisica abrirFisica() throws SQLException {
+        Connection conn = DriverManager.getConnection(config.url(), config.usuario(), config.senha());
+        total.incrementAndGet();
+        return new ConexaoFisica(conn);
+    }
+
+    private void registrarEspera(long nanos) {
+        emprestimos.increment();
+        esperaTotalNanos.add(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void devolver(ConexaoFisica fisica) {
+        Emprestimo emprestimo = emprestadas.remove(fisica);
+        try {
+            if (emprestimo != null && emprestimo.reportado) {
+                LOG.info("Conexão reportada como vazamento foi devolvida após "
+                        + (System.currentTimeMillis() - emprestimo.desde) + " ms");
+            }
+            if (encerrado || fisica.expirada() || !fisica.restaurar()) {
+                fisica.fecharFisica();
+            } else {
+                fisica.ociosaDesde = System.currentTimeMillis();
+                ociosas.offerFirst(fisica);
+            }
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private void executarManutencao() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            // Remove conexões ociosas além do mínimo ou que passaram da vida máxima
+            for (ConexaoFisica fisica : ociosas.toArray(new ConexaoFisica[0])) {
+                boolean excedeOciosidade = agora - fisica.ociosaDesde > config.ociosidadeMaximaMs()
+                        && total.get() > config.tamanhoMinimo();
+                if ((excedeOciosidade || fisica.expirada()) && ociosas.remove(fisica)) {
+                    fisica.fecharFisica();
+                }
+            }
+
+            // Detecção de vazamento: conexões emprestadas há mais tempo que o limite
+            if (detectaVazamentos()) {
+                for (Emprestimo emprestimo : emprestadas.values()) {
+                    if (!emprestimo.longo && !emprestimo.reportado && agora - emprestimo.desde > config.limiteVazamentoMs()) {
+                        emprestimo.reportado = true;
+                        vazamentos.increment();
+                        LOG.log(Level.WARNING, "Possível vazamento de conexão: emprestada há "
+                                + (agora - emprestimo.desde) + " ms"
+                                + (emprestimo.origem == null ? " (agenda.pool.rastrearOrigemVazamento=true mostra onde foi obtida)" : ""),
+                                emprestimo.origem);
+                    }
+                }
+            }
+
+            preAquecer();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Falha na manutenção do pool de conexões", e);
+        }
+    }
+
+    /**
+     * Query timeout do prazo da thread; sem prazo, zera (o statement pode vir do cache do driver).
+     */
+    private static void aplicarPrazo(Statement stmt) throws SQLException {
+        Long prazo = PRAZO.get();
+        if (prazo == null) {
+            stmt.setQueryTimeout(0);
+            return;
+        }
+        long restanteMs = TimeUnit.NANOSECONDS.toMillis(prazo - System.nanoTime());
+        if (restanteMs <= 0) {
+            stmt.close();
+            throw new SQLTimeoutException("Tempo limite da requisição esgotado antes da consulta");
+        }
+        stmt.setQueryTimeout((int) ((restanteMs + 999) / 1000));
+    }
+
+    private boolean detectaVazamentos() {
+        return config.limiteVazamentoMs() > 0;
+    }
+
+    private static final class Emprestimo {
+        final long desde;
+        final boolean longo;
+        final Throwable origem;
+        volatile boolean reportado;
+
+        Emprestimo(long desde, boolean longo, Throwable origem) {
+            this.desde = desde;
+            this.longo = longo;
+            this.origem = origem;
+        }
+    }
+
+    /**
+     * Conexão física mantida pelo pool.
+     */
+    private final class ConexaoFisica {
+        final Connection conn;
+        final long criadaEm = System.currentTimeMillis();
+        volatile long ociosaDesde = criadaEm;
+
+        ConexaoFisica(Connection conn) {
+            this.conn = conn;
+        }
+
+        long ociosaHaMs() {
+            return System.currentTimeMillis() - ociosaDesde;
+        }
+
+        boolean expirada() {
+            return config.vidaMaximaMs() > 0 && System.currentTimeMillis() - criadaEm > config.vidaMaximaMs();
+        }
+
+        boolean valida() {
+            try {
+                return conn.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Desfaz alterações de estado deixadas pelo DAO antes de devolver ao pool.
+         */
+        boolean restaurar() {
+            try {
+                if (conn.isClosed()) {
+                    return false;
+                }
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                if (conn.isReadOnly()) {
+                    conn.setReadOnly(false);
+                }
+                conn.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void fecharFisica() {
+            total.decrementAndGet();
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOG.log(Level.FINE, "Erro ao fechar conexão física", e);
+            }
+        }
+
+        Connection criarProxy() {
+            Thread dono = Thread.currentThread();
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean fechada;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!fechada) {
+                                fechada = true;
+                                if (Thread.currentThread() == dono) {
+                                    EMPRESTADAS_NA_THREAD.get()[0]--;
+                                }
+                                devolver(ConexaoFisica.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return fechada || conn.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Conexão do pool [" + conn + "]";
+                        default:
+                            if (fechada) {
+                                throw new SQLException("Conexão já devolvida ao pool");
+                            }
+                            Object resultado;
+                            try {
+                                resultado = method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                            if (resultado instanceof Statement stmt) {
+                                aplicarPrazo(stmt);
+                            }
+                            return resultado;
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package br.com.contatos.util;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Ler as próprias escritas com réplicas (agenda.db.replicas): toda requisição que não é GET/HEAD
+ * lê do primário e devolve um token da escrita no cookie e no cabeçalho {@value #CABECALHO}.
+ * Um GET que traz esse token (cookie, ou o cabeçalho, para o frontend em outra origem)
+ * dentro da janela de consistência também lê do primário; os demais podem ir às réplicas.
+ * <p>
+ * O token é "instante.assinatura", com HMAC-SHA256 do instante pela chave
+ * agenda.db.replicas.chaveToken: o cliente não consegue forjar um instante no futuro para
+ * ficar no primário (e fora dos caches compartilhados) para sempre. Sem chave configurada, cada
+ * instância sorteia a sua, e o token só vale na instância que o emitiu.
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class ConsistenciaLeituraFilter implements Filter {
+
+    public static final String CABECALHO = "X-Agenda-Escrita";
+    private static final String COOKIE = "agenda_escrita";
+    private static final String ATRIBUTO_PRIMARIO = ConsistenciaLeituraFilter.class.getName() + ".primario";
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final SecretKeySpec CHAVE = new SecretKeySpec(chave(), ALGORITMO);
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(CHAVE);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC indisponível", e);
+        }
+    });
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!RoteadorReplicas.configurado()) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        String metodo = request.getMethod();
+        boolean escrita = !"GET".equals(metodo) && !"HEAD".equals(metodo) && !"OPTIONS".equals(metodo);
+        boolean primario = escrita || escreveuHaPouco(request);
+
+        if (escrita) {
+            // Antes da cadeia: depois a resposta pode já ter sido enviada
+            String token = emitirToken(System.currentTimeMillis());
+            Cookie cookie = new Cookie(COOKIE, token);
+            cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+            cookie.setMaxAge((int) Math.max(1, (RoteadorReplicas.janelaConsistenciaMs() + 999) / 1000));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+            response.setHeader(CABECALHO, token);
+        }
+
+        // O atributo leva a decisão para a thread do ServletAssincrono
+        request.setAttribute(ATRIBUTO_PRIMARIO, primario);
+        RoteadorReplicas.fixarPrimario(primario);
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            RoteadorReplicas.liberar();
+        }
+    }
+
+    /**
+     * Se a requisição foi marcada por este filtro para ler do primário.
+     */
+    public static boolean exigePrimario(ServletRequest req) {
+        return Boolean.TRUE.equals(req.getAttribute(ATRIBUTO_PRIMARIO));
+    }
+
+    private boolean escreveuHaPouco(HttpServletRequest request) {
+        String instante = request.getHeader(CABECALHO);
+        if (instante == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    instante = cookie.getValue();
+                }
+            }
+        }
+        if (instante == null) {
+            return false;
+        }
+        long idade = System.currentTimeMillis() - instanteValido(instante.trim());
+        return idade >= 0 && idade < RoteadorReplicas.janelaConsistenciaMs();
+    }
+
+    private static String emitirToken(long instante) {
+        String valor = Long.toString(instante);
+        return valor + "." + assinar(valor);
+    }
+
+    /**
+     * Instante do token se a assinatura confere; senão Long.MAX_VALUE (idade negativa: token recusado).
+     */
+    private static long instanteValido(String token) {
+        int ponto = token.lastIndexOf('.');
+        if (ponto <= 0) {
+            return Long.MAX_VALUE;
+        }
+        String valor = token.substring(0, ponto);
+        byte[] esperada = assinar(valor).getBytes(StandardCharsets.US_ASCII);
+        byte[] recebida = token.substring(ponto + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(esperada, recebida)) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static String assinar(String valor) {
+        byte[] assinatura = MAC.get().doFinal(valor.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(assinatura);
+    }
+
+    private static byte[] chave() {
+        String configurada = Configuracao.texto("agenda.db.replicas.chaveToken", "");
+        if (!configurada.isEmpty()) {
+            return configurada.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] sorteada = new byte[32];
+        new SecureRandom().nextBytes(sorteada);
+        return sorteada;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) { }
+
+    @Override
+    public void destroy() { }
+}
@@ -6,7 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
-@WebFilter("/api/*")
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
 public class CorsFilter implements Filter {
 
     @Override
@@ -21,7 +21,9 @@ public class CorsFilter implements Filter {
         response.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
 
 
-        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, " + ConsistenciaLeituraFilter.CABECALHO);
+
+        response.setHeader("Access-Control-Expose-Headers", ConsistenciaLeituraFilter.CABECALHO + ", Retry-After");
 
 
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -0,0 +1,124 @@
+package br.com.contatos.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura e escrita de CSV (RFC 4180): separador vírgula, campos entre aspas
+ * podem conter vírgulas, quebras de linha e aspas duplicadas ("").
+ */
+public final class Csv {
+
+    private Csv() { }
+
+    /**
+     * Leitor de registros, que podem ocupar mais de uma linha física. Erros no conteúdo (aspas não
+     * fechadas, registro grande demais) viram IllegalArgumentException com a linha em que o registro começa.
+     */
+    public static final class Leitor {
+
+        /** Acima disso (em caracteres) o registro é recusado, em vez de acumular o resto do arquivo. */
+        public static final int MAXIMO_REGISTRO = 64 * 1024;
+
+        private final BufferedReader reader;
+        private int linhaAtual = 1;
+        private int linhaRegistro;
+
+        public Leitor(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Linha física em que começa o último registro lido (a primeira do arquivo é 1).
+         */
+        public int linha() {
+            return linhaRegistro;
+        }
+
+        /**
+         * @return os campos do próximo registro, ou null no fim da entrada
+         * @throws IllegalArgumentException se o registro não fecha as aspas ou passa de {@link #MAXIMO_REGISTRO}
+         */
+        public List<String> lerRegistro() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            linhaRegistro = linhaAtual;
+
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+            int tamanho = 0;
+            while (c != -1) {
+                if (c == '\r' || c == '\n') {
+                    if (c == '\r') {
+                        pularSeVier('\n');
+                    }
+                    linhaAtual++;
+                    if (!entreAspas) {
+                        break;
+                    }
+                    // Quebra de linha dentro de um campo entre aspas
+                    campo.append('\n');
+                } else if (entreAspas) {
+                    if (c != '"') {
+                        campo.append((char) c);
+                    } else if (pularSeVier('"')) {
+                        campo.append('"');
+                    } else {
+                        entreAspas = false;
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append((char) c);
+                }
+
+                if (++tamanho > MAXIMO_REGISTRO) {
+                    throw new IllegalArgumentException("O registro que começa na linha " + linhaRegistro
+                            + " do CSV passa de " + MAXIMO_REGISTRO + " caracteres.");
+                }
+                c = reader.read();
+            }
+            if (entreAspas) {
+                throw new IllegalArgumentException("Aspas não fechadas no registro que começa na linha "
+                        + linhaRegistro + " do CSV.");
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+
+        /**
+         * Consome o próximo caractere se for o esperado.
+         */
+        private boolean pularSeVier(char esperado) throws IOException {
+            reader.mark(1);
+            if (reader.read() == esperado) {
+                return true;
+            }
+            reader.reset();
+            return false;
+        }
+    }
+
+    /**
+     * Escapa um campo para escrita: só usa aspas quando necessário. null vira campo vazio.
+     */
+    public static String escapar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        boolean precisaAspas = false;
+        for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+            char c = valor.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return precisaAspas ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.contatos.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executa o trabalho das requisições assíncronas (chamadas ao DAO) em threads virtuais.
+ * <p>
+ * Cada tarefa roda na sua própria thread virtual, que custa quase nada enquanto espera pelo banco.
+ * Um semáforo (agenda.async.maxConcorrencia, por padrão o tamanho máximo do pool) limita quantas
+ * tarefas falam com o banco ao mesmo tempo; as demais esperam a vez sem ocupar threads do container.
+ * A tarefa devolve a vaga assim que começa a escrever a resposta sem conexão aberta
+ * ({@link #liberarSeForaDoBanco()}), então um cliente lento para baixar não segura a vez de outra.
+ */
+public final class ExecutorBanco {
+
+    public record Estatisticas(int maxConcorrencia, int emExecucao, int aguardando, long concluidas, long timeouts) { }
+
+    /**
+     * Trabalho de uma requisição; pode lançar as exceções de servlet/IO do método de serviço.
+     */
+    @FunctionalInterface
+    public interface Tarefa {
+        void executar() throws Exception;
+    }
+
+    private static final int MAX_CONCORRENCIA = Configuracao.inteiro("agenda.async.maxConcorrencia",
+            Configuracao.inteiro("agenda.pool.tamanhoMaximo", 10));
+    private static final long TIMEOUT_MS = Configuracao.longo("agenda.async.timeoutMs", 30_000);
+
+    private static final Semaphore PERMISSOES = new Semaphore(MAX_CONCORRENCIA, true);
+    /** Marca a thread da tarefa enquanto ela tem a vaga. */
+    private static final ThreadLocal<Boolean> COM_PERMISSAO = new ThreadLocal<>();
+    private static final LongAdder CONCLUIDAS = new LongAdder();
+    private static final LongAdder TIMEOUTS = new LongAdder();
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ExecutorBanco() { }
+
+    /**
+     * Agenda a tarefa numa thread virtual; ela só começa quando houver vaga no semáforo.
+     * Cancelar o Future (timeout da requisição) interrompe a espera ou a execução.
+     * As consultas da tarefa recebem como query timeout o que sobra de agenda.async.timeoutMs
+     * (ver {@link ConnectionPool#definirPrazo}): o interrupt não para uma consulta já no MySQL.
+     */
+    public static Future<?> submeter(Tarefa tarefa) {
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        return EXECUTOR.submit(() -> {
+            PERMISSOES.acquire();
+            COM_PERMISSAO.set(Boolean.TRUE);
+            ConnectionPool.definirPrazo(prazo);
+            try {
+                tarefa.executar();
+                return null;
+            } finally {
+                ConnectionPool.limparPrazo();
+                liberarPermissao();
+                CONCLUIDAS.increment();
+            }
+        });
+    }
+
+    /**
+     * Chamado a cada escrita da resposta de uma tarefa: se ela não tem mais conexão aberta, o trabalho
+     * com o banco acabou e a vaga vai para a próxima tarefa enquanto esta termina de enviar.
+     * Quem escreve em streaming direto do ResultSet continua com a vaga até fechar a conexão.
+     * Fora das tarefas do executor, não faz nada.
+     */
+    public static void liberarSeForaDoBanco() {
+        if (COM_PERMISSAO.get() != null && !ConnectionPool.conexaoAbertaNaThread()) {
+            liberarPermissao();
+        }
+    }
+
+    private static void liberarPermissao() {
+        if (COM_PERMISSAO.get() != null) {
+            COM_PERMISSAO.remove();
+            PERMISSOES.release();
+        }
+    }
+
+    /**
+     * Tempo máximo de uma requisição assíncrona, da entrada na fila até a resposta.
+     */
+    public static long timeoutMs() {
+        return TIMEOUT_MS;
+    }
+
+    public static void registrarTimeout() {
+        TIMEOUTS.increment();
+    }
+
+    public static Estatisticas estatisticas() {
+        return new Estatisticas(MAX_CONCORRENCIA, MAX_CONCORRENCIA - PERMISSOES.availablePermits(),
+                PERMISSOES.getQueueLength(), CONCLUIDAS.sum(), TIMEOUTS.sum());
+    }
+
+    /**
+     * Para de aceitar tarefas e espera as em andamento por até 10 s (descida da aplicação).
+     */
+    public static void encerrar() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(10, TimeUnit.SECONDS)) {
+                EXECUTOR.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            EXECUTOR.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
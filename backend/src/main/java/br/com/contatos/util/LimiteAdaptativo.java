@@ -0,0 +1,233 @@
+package br.com.contatos.util;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de requisições simultâneas (da API inteira, ver {@link AdmissaoFilter}), ajustado pela
+ * latência observada, com uma fila curta por prioridade para quem chega acima do limite.
+ * <p>
+ * O ajuste segue o gradiente entre a menor latência recente (o banco folgado) e a latência média:
+ * enquanto a média fica até {@code tolerancia} vezes a mínima e a API usa boa parte do limite, ele
+ * cresce devagar (mais √limite por ajuste); quando a média sobe, ele cai na proporção; uma resposta
+ * 5xx corta 10% na hora. Assim a API deixa de mandar ao MySQL mais trabalho do que ele devolve.
+ * <p>
+ * A fila é ordenada por prioridade (menor primeiro) e ordem de chegada. Cheia, uma chegada de
+ * prioridade maior tira da fila a última de prioridade menor, que é recusada no lugar dela.
+ */
+public class LimiteAdaptativo {
+
+    /** Resultado de {@link #adquirir}. */
+    public enum Admissao { ADMITIDA, FILA_CHEIA, ESPERA_EXCEDIDA }
+
+    public record Estatisticas(int limite, int emUso, int naFila, long admitidas, long recusadasFilaCheia,
+                               long recusadasEspera, double rttMinimoMs, double rttMedioMs) { }
+
+    private static final int AMOSTRAS_POR_JANELA = 500;
+
+    private final class Espera implements Comparable<Espera> {
+        final int prioridade;
+        final double fracaoLimite;
+        final long ordem;
+        final Condition liberada = trava.newCondition();
+        boolean admitida;
+        boolean descartada;
+
+        Espera(int prioridade, double fracaoLimite, long ordem) {
+            this.prioridade = prioridade;
+            this.fracaoLimite = fracaoLimite;
+            this.ordem = ordem;
+        }
+
+        @Override
+        public int compareTo(Espera outra) {
+            int c = Integer.compare(prioridade, outra.prioridade);
+            return c != 0 ? c : Long.compare(ordem, outra.ordem);
+        }
+    }
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double tolerancia;
+    private final int filaMaxima;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final PriorityQueue<Espera> fila = new PriorityQueue<>();
+    private long proximaOrdem;
+
+    private double limite;
+    private int emUso;
+    private long admitidas;
+    private long recusadasFilaCheia;
+    private long recusadasEspera;
+
+    /** Menor latência da janela anterior e da atual; a janela vira a cada AMOSTRAS_POR_JANELA respostas. */
+    private long rttMinimoAnterior = Long.MAX_VALUE;
+    private long rttMinimoJanela = Long.MAX_VALUE;
+    private int amostrasJanela;
+    private double rttMedio;
+
+    public LimiteAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo,
+                            double tolerancia, int filaMaxima) {
+        this.limiteMinimo = Math.max(1, limiteMinimo);
+        this.limiteMaximo = Math.max(this.limiteMinimo, limiteMaximo);
+        this.tolerancia = tolerancia;
+        this.filaMaxima = filaMaxima;
+        this.limite = Math.min(Math.max(limiteInicial, this.limiteMinimo), this.limiteMaximo);
+    }
+
+    /**
+     * Entra direto se houver vaga dentro de {@code fracaoLimite} do limite (menos de 1 reserva o
+     * restante para as prioridades maiores); senão espera na fila até {@code esperaMaximaMs}.
+     * Quem é admitido deve chamar {@link #liberar} ao terminar.
+     */
+    public Admissao adquirir(int prioridade, double fracaoLimite, long esperaMaximaMs) throws InterruptedException {
+        trava.lock();
+        try {
+            boolean ninguemNaFrente = fila.isEmpty() || fila.peek().prioridade > prioridade;
+            if (ninguemNaFrente && emUso < limitePara(fracaoLimite)) {
+                emUso++;
+                admitidas++;
+                return Admissao.ADMITIDA;
+            }
+
+            if (fila.size() >= filaMaxima) {
+                Espera ultima = menosPrioritaria();
+                if (ultima == null || ultima.prioridade <= prioridade) {
+                    recusadasFilaCheia++;
+                    return Admissao.FILA_CHEIA;
+                }
+                fila.remove(ultima);
+                ultima.descartada = true;
+                ultima.liberada.signal();
+            }
+
+            Espera espera = new Espera(prioridade, fracaoLimite, proximaOrdem++);
+            fila.add(espera);
+            long restante = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+            try {
+                while (!espera.admitida && !espera.descartada && restante > 0) {
+                    restante = espera.liberada.awaitNanos(restante);
+                }
+            } catch (InterruptedException e) {
+                if (!fila.remove(espera) && espera.admitida) {
+                    // A vaga chegou junto com a interrupção: devolve para o próximo
+                    emUso--;
+                    admitirDaFila();
+                }
+                throw e;
+            }
+
+            if (espera.admitida) {
+                admitidas++;
+                return Admissao.ADMITIDA;
+            }
+            fila.remove(espera);
+            if (espera.descartada) {
+                recusadasFilaCheia++;
+                return Admissao.FILA_CHEIA;
+            }
+            recusadasEspera++;
+            return Admissao.ESPERA_EXCEDIDA;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Devolve a vaga e ajusta o limite com a latência da requisição (do momento da admissão até a resposta).
+     */
+    public void liberar(long rttNanos, boolean sobrecarga) {
+        trava.lock();
+        try {
+            int emUsoAntes = emUso;
+            emUso--;
+            ajustar(rttNanos, sobrecarga, emUsoAntes);
+            admitirDaFila();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Devolve a vaga sem usar a duração no ajuste (requisições cuja duração não diz nada sobre a
+     * carga, como um download); uma 5xx ainda corta o limite.
+     */
+    public void liberar(boolean sobrecarga) {
+        trava.lock();
+        try {
+            emUso--;
+            if (sobrecarga) {
+                limite = Math.max(limiteMinimo, limite * 0.9);
+            }
+            admitirDaFila();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        trava.lock();
+        try {
+            long minimo = Math.min(rttMinimoAnterior, rttMinimoJanela);
+            return new Estatisticas((int) limite, emUso, fila.size(), admitidas, recusadasFilaCheia, recusadasEspera,
+                    minimo == Long.MAX_VALUE ? 0 : minimo / 1e6, rttMedio / 1e6);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private void ajustar(long rttNanos, boolean sobrecarga, int emUsoAntes) {
+        if (sobrecarga) {
+            limite = Math.max(limiteMinimo, limite * 0.9);
+            return;
+        }
+
+        rttMinimoJanela = Math.min(rttMinimoJanela, rttNanos);
+        if (++amostrasJanela >= AMOSTRAS_POR_JANELA) {
+            // A mínima é refeita de tempos em tempos para acompanhar mudanças de plano, índice ou máquina
+            rttMinimoAnterior = rttMinimoJanela;
+            rttMinimoJanela = Long.MAX_VALUE;
+            amostrasJanela = 0;
+        }
+        rttMedio = rttMedio == 0 ? rttNanos : rttMedio * 0.9 + rttNanos * 0.1;
+
+        long rttMinimo = Math.min(rttMinimoAnterior, rttMinimoJanela);
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * rttMinimo / rttMedio));
+        // Sem fila e com o limite mal usado, crescer não diz nada sobre a capacidade: só reduz
+        if (gradiente >= 1.0 && emUsoAntes * 2 < limite && fila.isEmpty()) {
+            return;
+        }
+        double novo = limite * gradiente + Math.sqrt(limite);
+        limite = Math.max(limiteMinimo, Math.min(limiteMaximo, limite * 0.8 + novo * 0.2));
+    }
+
+    /**
+     * Passa as vagas livres para a fila, na ordem de prioridade e respeitando a fração de cada uma
+     * (as prioridades menores usam frações menores, então a primeira que não cabe encerra). Chamado com a trava.
+     */
+    private void admitirDaFila() {
+        while (!fila.isEmpty() && emUso < limitePara(fila.peek().fracaoLimite)) {
+            Espera proxima = fila.poll();
+            proxima.admitida = true;
+            emUso++;
+            proxima.liberada.signal();
+        }
+    }
+
+    private int limitePara(double fracaoLimite) {
+        return Math.max(1, (int) (limite * fracaoLimite));
+    }
+
+    private Espera menosPrioritaria() {
+        Espera pior = null;
+        for (Espera espera : fila) {
+            if (pior == null || espera.compareTo(pior) > 0) {
+                pior = espera;
+            }
+        }
+        return pior;
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.contatos.util;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Mede cada requisição da API (contagem, status, latência e em andamento) em {@link MetricasHttp}.
+ * Para os servlets assíncronos a medição termina no onComplete, quando a resposta foi de fato concluída.
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class MetricasFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        MetricasHttp.Serie serie = MetricasHttp.serie(MetricasHttp.rota(caminho), request.getMethod());
+        long inicio = System.nanoTime();
+        serie.iniciar();
+
+        boolean assincrona = false;
+        boolean falhou = true;
+        try {
+            chain.doFilter(req, res);
+            assincrona = request.isAsyncStarted();
+            falhou = false;
+        } finally {
+            if (assincrona) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        serie.concluir(response.getStatus(), System.nanoTime() - inicio);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) { }
+
+                    @Override
+                    public void onError(AsyncEvent event) { }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) { }
+                });
+            } else {
+                // Exceção que escapou da cadeia vira 500 no container
+                serie.concluir(falhou ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                        System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) { }
+
+    @Override
+    public void destroy() { }
+}
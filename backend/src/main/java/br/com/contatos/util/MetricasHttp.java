@@ -0,0 +1,237 @@
+package br.com.contatos.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas HTTP por rota e método: contagem por classe de status (2xx, 4xx, ...), histograma de
+ * latência e requisições em andamento. Exportadas no formato texto do Prometheus por
+ * {@link #escreverPrometheus(StringBuilder)}.
+ * <p>
+ * O registro não usa locks: cada série é criada uma vez (ConcurrentHashMap) e depois só recebe
+ * incrementos em LongAdder. As séries são limitadas às rotas conhecidas da API, mais uma
+ * {@link #OUTRAS} para o resto.
+ */
+public final class MetricasHttp {
+
+    /**
+     * Limites superiores dos baldes do histograma, em segundos (o último balde é +Inf).
+     */
+    private static final double[] LIMITES_SEGUNDOS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] LIMITES_NANOS = new long[LIMITES_SEGUNDOS.length];
+    private static final double[] QUANTIS = {0.5, 0.95, 0.99};
+
+    static {
+        for (int i = 0; i < LIMITES_SEGUNDOS.length; i++) {
+            LIMITES_NANOS[i] = (long) (LIMITES_SEGUNDOS[i] * 1_000_000_000L);
+        }
+    }
+
+    private record Chave(String rota, String metodo) { }
+
+    /**
+     * Uma série (rota + método).
+     */
+    public static final class Serie {
+        private final LongAdder[] porClasseStatus = novosContadores(5);
+        private final LongAdder[] baldes = novosContadores(LIMITES_NANOS.length + 1);
+        private final LongAdder somaNanos = new LongAdder();
+        private final LongAdder emAndamento = new LongAdder();
+
+        public void iniciar() {
+            emAndamento.increment();
+        }
+
+        public void concluir(int status, long duracaoNanos) {
+            emAndamento.decrement();
+            int classe = Math.min(Math.max(status / 100, 1), 5);
+            porClasseStatus[classe - 1].increment();
+            int balde = 0;
+            while (balde < LIMITES_NANOS.length && duracaoNanos > LIMITES_NANOS[balde]) {
+                balde++;
+            }
+            baldes[balde].increment();
+            somaNanos.add(duracaoNanos);
+        }
+    }
+
+    private static final ConcurrentHashMap<Chave, Serie> SERIES = new ConcurrentHashMap<>();
+
+    private MetricasHttp() { }
+
+    /**
+     * Rotas da API que viram série própria; qualquer outro caminho vai para {@link #OUTRAS}.
+     */
+    private static final Set<String> ROTAS = Set.of(
+            "/api/clientes", "/api/clientes/importar", "/api/contatos", "/api/contatos/lote",
+            "/api/eventos", "/api/exportacao", "/api/metrics", "/api/status");
+
+    /**
+     * Rotas com id no caminho (ex.: /api/clientes/15) e o modelo que as representa.
+     */
+    private static final Map<String, String> ROTAS_COM_ID = Map.of(
+            "/api/clientes", "/api/clientes/{id}",
+            "/api/contatos", "/api/contatos/{id}");
+
+    private static final Set<String> METODOS = Set.of("GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS");
+
+    /**
+     * Série única de caminhos desconhecidos e métodos fora de {@link #METODOS}.
+     */
+    public static final String OUTRAS = "outros";
+
+    /**
+     * Série da rota/método; criada no primeiro uso. O número de séries é limitado: rotas fora de
+     * {@link #rota(String)} e métodos desconhecidos caem em {@link #OUTRAS}.
+     */
+    public static Serie serie(String rota, String metodo) {
+        Chave chave = new Chave(ROTAS.contains(rota) || ROTAS_COM_ID.containsValue(rota) ? rota : OUTRAS,
+                METODOS.contains(metodo) ? metodo : OUTRAS);
+        Serie serie = SERIES.get(chave);
+        return serie != null ? serie : SERIES.computeIfAbsent(chave, c -> new Serie());
+    }
+
+    /**
+     * Modelo da rota do caminho (ex.: /api/clientes/15 -> /api/clientes/{id}), dentre as rotas
+     * conhecidas da API; qualquer outro caminho (ids não numéricos, rotas inexistentes, varreduras)
+     * vira {@link #OUTRAS}, para que um cliente não crie séries sem limite.
+     */
+    public static String rota(String caminho) {
+        if (ROTAS.contains(caminho)) {
+            return caminho;
+        }
+        int barra = caminho.lastIndexOf('/');
+        if (barra <= 0) {
+            return OUTRAS;
+        }
+        String modelo = ROTAS_COM_ID.get(caminho.substring(0, barra));
+        if (modelo == null) {
+            return OUTRAS;
+        }
+        if (barra == caminho.length() - 1) {
+            // "/api/clientes/" é a própria coleção
+            return caminho.substring(0, barra);
+        }
+        for (int i = barra + 1; i < caminho.length(); i++) {
+            if (!Character.isDigit(caminho.charAt(i))) {
+                return OUTRAS;
+            }
+        }
+        return modelo;
+    }
+
+    /**
+     * Escreve todas as séries no formato texto do Prometheus (versão 0.0.4).
+     */
+    public static void escreverPrometheus(StringBuilder saida) {
+        Map<Chave, Serie> ordenadas = new TreeMap<>((a, b) -> {
+            int c = a.rota().compareTo(b.rota());
+            return c != 0 ? c : a.metodo().compareTo(b.metodo());
+        });
+        ordenadas.putAll(SERIES);
+
+        saida.append("# HELP agenda_http_requisicoes_total Requisições concluídas por rota, método e classe de status.\n");
+        saida.append("# TYPE agenda_http_requisicoes_total counter\n");
+        for (Map.Entry<Chave, Serie> e : ordenadas.entrySet()) {
+            for (int classe = 1; classe <= 5; classe++) {
+                long total = e.getValue().porClasseStatus[classe - 1].sum();
+                if (total > 0) {
+                    saida.append("agenda_http_requisicoes_total{").append(rotulos(e.getKey()))
+                            .append(",status=\"").append(classe).append("xx\"} ").append(total).append('\n');
+                }
+            }
+        }
+
+        saida.append("# HELP agenda_http_requisicoes_em_andamento Requisições sendo atendidas agora.\n");
+        saida.append("# TYPE agenda_http_requisicoes_em_andamento gauge\n");
+        for (Map.Entry<Chave, Serie> e : ordenadas.entrySet()) {
+            saida.append("agenda_http_requisicoes_em_andamento{").append(rotulos(e.getKey())).append("} ")
+                    .append(e.getValue().emAndamento.sum()).append('\n');
+        }
+
+        saida.append("# HELP agenda_http_latencia_segundos Latência das requisições.\n");
+        saida.append("# TYPE agenda_http_latencia_segundos histogram\n");
+        for (Map.Entry<Chave, Serie> e : ordenadas.entrySet()) {
+            String rotulos = rotulos(e.getKey());
+            long[] acumulado = acumulado(e.getValue());
+            for (int i = 0; i < LIMITES_SEGUNDOS.length; i++) {
+                saida.append("agenda_http_latencia_segundos_bucket{").append(rotulos).append(",le=\"")
+                        .append(numero(LIMITES_SEGUNDOS[i])).append("\"} ").append(acumulado[i]).append('\n');
+            }
+            long total = acumulado[LIMITES_SEGUNDOS.length];
+            saida.append("agenda_http_latencia_segundos_bucket{").append(rotulos).append(",le=\"+Inf\"} ")
+                    .append(total).append('\n');
+            saida.append("agenda_http_latencia_segundos_sum{").append(rotulos).append("} ")
+                    .append(numero(e.getValue().somaNanos.sum() / 1e9)).append('\n');
+            saida.append("agenda_http_latencia_segundos_count{").append(rotulos).append("} ")
+                    .append(total).append('\n');
+        }
+
+        saida.append("# HELP agenda_http_latencia_quantil_segundos p50/p95/p99 estimados pelo histograma (desde a subida).\n");
+        saida.append("# TYPE agenda_http_latencia_quantil_segundos gauge\n");
+        for (Map.Entry<Chave, Serie> e : ordenadas.entrySet()) {
+            long[] acumulado = acumulado(e.getValue());
+            if (acumulado[LIMITES_SEGUNDOS.length] == 0) {
+                continue;
+            }
+            for (double quantil : QUANTIS) {
+                saida.append("agenda_http_latencia_quantil_segundos{").append(rotulos(e.getKey()))
+                        .append(",quantil=\"").append(numero(quantil)).append("\"} ")
+                        .append(numero(estimarQuantil(acumulado, quantil))).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Contagens acumuladas por balde; a última posição é o total.
+     */
+    private static long[] acumulado(Serie serie) {
+        long[] acumulado = new long[serie.baldes.length];
+        long soma = 0;
+        for (int i = 0; i < serie.baldes.length; i++) {
+            soma += serie.baldes[i].sum();
+            acumulado[i] = soma;
+        }
+        return acumulado;
+    }
+
+    /**
+     * Interpolação linear dentro do balde, como o histogram_quantile do Prometheus.
+     */
+    private static double estimarQuantil(long[] acumulado, double quantil) {
+        long total = acumulado[acumulado.length - 1];
+        double posicao = quantil * total;
+        for (int i = 0; i < LIMITES_SEGUNDOS.length; i++) {
+            if (acumulado[i] >= posicao) {
+                double inicio = i == 0 ? 0 : LIMITES_SEGUNDOS[i - 1];
+                long anterior = i == 0 ? 0 : acumulado[i - 1];
+                long noBalde = acumulado[i] - anterior;
+                return noBalde == 0 ? inicio
+                        : inicio + (LIMITES_SEGUNDOS[i] - inicio) * (posicao - anterior) / noBalde;
+            }
+        }
+        // Cai no balde +Inf: o melhor que dá para dizer é o maior limite finito
+        return LIMITES_SEGUNDOS[LIMITES_SEGUNDOS.length - 1];
+    }
+
+    private static String rotulos(Chave chave) {
+        return "rota=\"" + chave.rota().replace("\\", "\\\\").replace("\"", "\\\"") + "\",metodo=\"" + chave.metodo() + "\"";
+    }
+
+    private static String numero(double valor) {
+        return String.format(Locale.ROOT, "%s", valor);
+    }
+
+    private static LongAdder[] novosContadores(int quantidade) {
+        LongAdder[] contadores = new LongAdder[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+}
@@ -0,0 +1,245 @@
+package br.com.contatos.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica na subida da aplicação os scripts versionados de src/main/resources/migracoes
+ * (listados em ordem em migracoes/indice.txt, com nomes "V001__descricao.sql").
+ * Cada versão aplicada fica registrada em schema_migracoes com o checksum do script;
+ * um script já aplicado que foi alterado depois impede a subida em vez de ser reaplicado.
+ */
+public class Migracoes {
+
+    private static final Logger LOG = Logger.getLogger(Migracoes.class.getName());
+
+    private static final String PASTA = "migracoes/";
+    private static final Pattern NOME_SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    /**
+     * Trava nomeada do MySQL: com várias instâncias subindo juntas, só uma aplica as migrações.
+     */
+    private static final String TRAVA = "agenda_migracoes";
+    private static final int ESPERA_TRAVA_S = Configuracao.inteiro("agenda.migracoes.esperaTravaS", 60);
+
+    private static volatile int versaoAtual;
+
+    private record Script(int versao, String descricao, String arquivo) {
+    }
+
+    /**
+     * Aplica as migrações pendentes, em ordem. Cada script roda numa transação, mas no MySQL
+     * DDL faz commit implícito: um script que falha no meio pode ter deixado parte aplicada.
+     */
+    public static void aplicar() throws SQLException {
+        aplicarAte(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Aplica as migrações pendentes até a versão indicada, inclusive (os testes conferem o esquema
+     * e os planos de consulta antes e depois de uma migração).
+     */
+    public static void aplicarAte(int versaoMaxima) throws SQLException {
+        List<Script> scripts = listarScripts().stream().filter(s -> s.versao() <= versaoMaxima).toList();
+
+        try (Connection conn = ConnectionFactory.getConnection()) {
+            // GET_LOCK é do MySQL; no H2 dos testes e do benchmark há uma instância só
+            boolean mysql = "MySQL".equals(conn.getMetaData().getDatabaseProductName());
+            if (mysql) {
+                travar(conn);
+            }
+            try {
+                criarTabelaControle(conn);
+                Map<Integer, String> aplicadas = aplicadas(conn);
+
+                for (Script script : scripts) {
+                    String conteudo = ler(script.arquivo());
+                    String checksum = checksum(conteudo);
+                    String registrado = aplicadas.get(script.versao());
+
+                    if (registrado != null) {
+                        if (!registrado.equals(checksum)) {
+                            throw new SQLException("A migração " + script.arquivo()
+                                    + " foi alterada depois de aplicada (checksum diferente do registrado).");
+                        }
+                        continue;
+                    }
+                    executar(conn, script, conteudo, checksum);
+                }
+                versaoAtual = scripts.isEmpty() ? 0 : scripts.get(scripts.size() - 1).versao();
+            } finally {
+                if (mysql) {
+                    destravar(conn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Última versão do esquema conferida na subida (0 se as migrações não rodaram).
+     */
+    public static int versaoAtual() {
+        return versaoAtual;
+    }
+
+    private static void executar(Connection conn, Script script, String conteudo, String checksum) throws SQLException {
+        long inicio = System.nanoTime();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String comando : separarComandos(conteudo)) {
+                    stmt.execute(comando);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_migracoes (versao, descricao, checksum) VALUES (?, ?, ?)")) {
+                stmt.setInt(1, script.versao());
+                stmt.setString(2, script.descricao());
+                stmt.setString(3, checksum);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Erro ao aplicar a migração " + script.arquivo(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        LOG.info(() -> String.format("Migração %s aplicada em %d ms",
+                script.arquivo(), (System.nanoTime() - inicio) / 1_000_000));
+    }
+
+    private static void criarTabelaControle(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migracoes ("
+                    + "versao INT PRIMARY KEY, "
+                    + "descricao VARCHAR(200) NOT NULL, "
+                    + "checksum CHAR(64) NOT NULL, "
+                    + "aplicada_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private static Map<Integer, String> aplicadas(Connection conn) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT versao, checksum FROM schema_migracoes")) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    private static void travar(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, TRAVA);
+            stmt.setInt(2, ESPERA_TRAVA_S);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Outra instância está aplicando as migrações há mais de " + ESPERA_TRAVA_S + " s.");
+                }
+            }
+        }
+    }
+
+    private static void destravar(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, TRAVA);
+            stmt.executeQuery().close();
+        }
+    }
+
+    /**
+     * Scripts de migracoes/indice.txt (uma linha por arquivo, # para comentários), em ordem crescente de versão.
+     */
+    private static List<Script> listarScripts() throws SQLException {
+        List<Script> scripts = new ArrayList<>();
+        int anterior = 0;
+        for (String linha : ler("indice.txt").split("\n")) {
+            String arquivo = linha.trim();
+            if (arquivo.isEmpty() || arquivo.startsWith("#")) {
+                continue;
+            }
+            Matcher m = NOME_SCRIPT.matcher(arquivo);
+            if (!m.matches()) {
+                throw new SQLException("Nome de migração inválido: " + arquivo + " (esperado V001__descricao.sql)");
+            }
+            int versao = Integer.parseInt(m.group(1));
+            if (versao <= anterior) {
+                throw new SQLException("Migrações fora de ordem em indice.txt: " + arquivo);
+            }
+            scripts.add(new Script(versao, m.group(2).replace('_', ' '), arquivo));
+            anterior = versao;
+        }
+        return scripts;
+    }
+
+    /**
+     * Separa o script em comandos terminados por ";" no fim da linha, ignorando as linhas de comentário "--".
+     */
+    private static List<String> separarComandos(String conteudo) {
+        List<String> comandos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        for (String linha : conteudo.split("\n")) {
+            String aparada = linha.strip();
+            if (aparada.isEmpty() || aparada.startsWith("--")) {
+                continue;
+            }
+            atual.append(linha).append('\n');
+            if (aparada.endsWith(";")) {
+                String comando = atual.toString().strip();
+                comandos.add(comando.substring(0, comando.length() - 1));
+                atual.setLength(0);
+            }
+        }
+        if (!atual.toString().isBlank()) {
+            comandos.add(atual.toString().strip());
+        }
+        return comandos;
+    }
+
+    private static String ler(String arquivo) throws SQLException {
+        try (InputStream in = Migracoes.class.getClassLoader().getResourceAsStream(PASTA + arquivo)) {
+            if (in == null) {
+                throw new SQLException("Migração não encontrada no classpath: " + PASTA + arquivo);
+            }
+            StringBuilder conteudo = new StringBuilder();
+            try (BufferedReader leitor = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String linha;
+                while ((linha = leitor.readLine()) != null) {
+                    conteudo.append(linha).append('\n');
+                }
+            }
+            return conteudo.toString();
+        } catch (IOException e) {
+            throw new SQLException("Erro ao ler a migração " + PASTA + arquivo, e);
+        }
+    }
+
+    private static String checksum(String conteudo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package br.com.contatos.util;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Resposta que comprime o corpo em streaming (usada pelo {@link CompressaoFilter}).
+ * <p>
+ * Os primeiros bytes ficam num buffer até passar do tamanho mínimo: respostas pequenas saem sem
+ * compressão. Passado o limite, os cabeçalhos são ajustados (Content-Encoding, ETag com o sufixo
+ * da codificação, sem Content-Length) e o restante é comprimido conforme chega; flush() do servlet
+ * vira um SYNC_FLUSH, então o cliente recebe o que já foi escrito.
+ */
+class RespostaComprimida extends HttpServletResponseWrapper {
+
+    private static final String[] TIPOS_COMPRIMIVEIS = {
+            "application/json", "application/x-ndjson", "text/csv", "text/plain"};
+    private static final int NIVEL = Configuracao.inteiro("agenda.compressao.nivel", 6);
+
+    // Deflaters guardam ~256 KB de estado nativo cada: reaproveitados em vez de criados por requisição
+    private static final BlockingQueue<Deflater> POOL_GZIP = new ArrayBlockingQueue<>(64);
+    private static final BlockingQueue<Deflater> POOL_DEFLATE = new ArrayBlockingQueue<>(64);
+
+    private static final byte[] CABECALHO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private enum Estado { ACUMULANDO, DIRETO, COMPRIMINDO, FINALIZADA }
+
+    private final String codificacao;
+    private final int tamanhoMinimo;
+    private final SaidaComprimida saida = new SaidaComprimida();
+    private PrintWriter writer;
+    private long tamanhoInformado = -1;
+
+    RespostaComprimida(HttpServletResponse resposta, String codificacao, int tamanhoMinimo) {
+        super(resposta);
+        this.codificacao = codificacao;
+        this.tamanhoMinimo = tamanhoMinimo;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() já foi chamado nesta resposta");
+        }
+        return saida;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            String charset = getCharacterEncoding() == null ? "ISO-8859-1" : getCharacterEncoding();
+            writer = new PrintWriter(new OutputStreamWriter(saida, Charset.forName(charset)));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int tamanho) {
+        tamanhoInformado = tamanho;
+    }
+
+    @Override
+    public void setContentLengthLong(long tamanho) {
+        tamanhoInformado = tamanho;
+    }
+
+    @Override
+    public void setHeader(String nome, String valor) {
+        if ("Content-Length".equalsIgnoreCase(nome)) {
+            tamanhoInformado = valor == null ? -1 : Long.parseLong(valor);
+        } else {
+            super.setHeader(nome, valor);
+        }
+    }
+
+    @Override
+    public void addHeader(String nome, String valor) {
+        if ("Content-Length".equalsIgnoreCase(nome)) {
+            tamanhoInformado = Long.parseLong(valor);
+        } else {
+            super.addHeader(nome, valor);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        saida.flush();
+    }
+
+    @Override
+    public void reset() {
+        saida.descartar();
+        writer = null;
+        tamanhoInformado = -1;
+        super.reset();
+        // O reset apaga os cabeçalhos; o Vary continua valendo para a próxima resposta
+        super.addHeader("Vary", "Accept-Encoding");
+    }
+
+    @Override
+    public void resetBuffer() {
+        saida.descartar();
+        super.resetBuffer();
+    }
+
+    @Override
+    public void sendError(int status, String mensagem) throws IOException {
+        saida.desativar();
+        super.sendError(status, mensagem);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        saida.desativar();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendRedirect(String local) throws IOException {
+        saida.desativar();
+        super.sendRedirect(local);
+    }
+
+    /**
+     * Escreve o que ficou pendente e encerra a compressão (sem fechar a resposta do container).
+     */
+    void finalizar() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        saida.finalizar();
+    }
+
+    /**
+     * Encerra sem escrever mais nada (exceção no servlet, requisição expirada ou cliente desconectado):
+     * só devolve o Deflater ao pool.
+     */
+    void abandonar() {
+        saida.desativar();
+    }
+
+    private boolean comprimivel() {
+        int status = getStatus();
+        if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_NOT_MODIFIED
+                || getHeader("Content-Encoding") != null) {
+            return false;
+        }
+        if (tamanhoInformado >= 0 && tamanhoInformado < tamanhoMinimo) {
+            return false;
+        }
+        String tipo = getContentType();
+        if (tipo == null) {
+            return false;
+        }
+        tipo = tipo.toLowerCase(Locale.ROOT);
+        for (String comprimivel : TIPOS_COMPRIMIVEIS) {
+            if (tipo.startsWith(comprimivel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class SaidaComprimida extends ServletOutputStream {
+
+        private Estado estado = Estado.ACUMULANDO;
+        private boolean decidido;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream destino;
+        private Deflater deflater;
+        private DeflaterOutputStream comprimido;
+        private final CRC32 crc = new CRC32();
+        private long tamanhoOriginal;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] dados, int inicio, int tamanho) throws IOException {
+            if (estado == Estado.ACUMULANDO) {
+                if (!decidido) {
+                    decidido = true;
+                    if (!comprimivel()) {
+                        iniciarDireto();
+                    }
+                }
+                if (estado == Estado.ACUMULANDO) {
+                    if (buffer.size() + tamanho < tamanhoMinimo) {
+                        buffer.write(dados, inicio, tamanho);
+                        return;
+                    }
+                    iniciarCompressao();
+                }
+            }
+            switch (estado) {
+                case DIRETO -> destino.write(dados, inicio, tamanho);
+                case COMPRIMINDO -> {
+                    crc.update(dados, inicio, tamanho);
+                    tamanhoOriginal += tamanho;
+                    comprimido.write(dados, inicio, tamanho);
+                }
+                default -> throw new IOException("Resposta já finalizada");
+            }
+        }
+
+        /**
+         * Antes do tamanho mínimo o flush não envia nada: ainda não dá para saber se vai comprimir.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (estado == Estado.COMPRIMINDO) {
+                comprimido.flush();
+                destino.flush();
+            } else if (estado == Estado.DIRETO) {
+                destino.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finalizar();
+            if (destino != null) {
+                destino.close();
+            }
+        }
+
+        /**
+         * Mesmo se a escrita falhar (cliente desconectou), o Deflater volta ao pool.
+         */
+        void finalizar() throws IOException {
+            if (estado == Estado.FINALIZADA) {
+                return;
+            }
+            try {
+                if (estado == Estado.ACUMULANDO) {
+                    if (buffer.size() > 0 && tamanhoInformado < 0) {
+                        tamanhoInformado = buffer.size();
+                    }
+                    iniciarDireto();
+                }
+                if (estado == Estado.COMPRIMINDO) {
+                    comprimido.finish();
+                    if (codificacao.equals("gzip")) {
+                        escreverInteiro((int) crc.getValue());
+                        escreverInteiro((int) tamanhoOriginal);
+                    }
+                }
+                if (destino != null) {
+                    destino.flush();
+                }
+            } finally {
+                devolverDeflater();
+                estado = Estado.FINALIZADA;
+            }
+        }
+
+        /**
+         * Volta ao início (reset/resetBuffer antes do commit): o que foi escrito é descartado.
+         */
+        void descartar() {
+            devolverDeflater();
+            buffer.reset();
+            crc.reset();
+            tamanhoOriginal = 0;
+            comprimido = null;
+            destino = null;
+            decidido = false;
+            estado = Estado.ACUMULANDO;
+        }
+
+        /**
+         * sendError/sendRedirect: o container escreve a resposta direto, sem passar por aqui.
+         */
+        void desativar() {
+            descartar();
+            estado = Estado.FINALIZADA;
+        }
+
+        private void iniciarDireto() throws IOException {
+            if (tamanhoInformado >= 0) {
+                RespostaComprimida.super.setContentLengthLong(tamanhoInformado);
+            }
+            destino = RespostaComprimida.super.getOutputStream();
+            estado = Estado.DIRETO;
+            if (buffer.size() > 0) {
+                buffer.writeTo(destino);
+                buffer.reset();
+            }
+        }
+
+        private void iniciarCompressao() throws IOException {
+            RespostaComprimida.super.setHeader("Content-Encoding", codificacao);
+            String etag = getHeader("ETag");
+            if (etag != null && etag.endsWith("\"")) {
+                // A representação comprimida é outra: o ETag forte precisa ser diferente
+                RespostaComprimida.super.setHeader("ETag",
+                        etag.substring(0, etag.length() - 1) + "-" + codificacao + "\"");
+            }
+
+            destino = RespostaComprimida.super.getOutputStream();
+            boolean gzip = codificacao.equals("gzip");
+            deflater = (gzip ? POOL_GZIP : POOL_DEFLATE).poll();
+            if (deflater == null) {
+                // gzip usa o formato deflate cru (nowrap) com cabeçalho e rodapé próprios
+                deflater = new Deflater(NIVEL, gzip);
+            }
+            if (gzip) {
+                destino.write(CABECALHO_GZIP);
+            }
+            comprimido = new DeflaterOutputStream(destino, deflater, 8 * 1024, true);
+            estado = Estado.COMPRIMINDO;
+
+            if (buffer.size() > 0) {
+                byte[] acumulado = buffer.toByteArray();
+                buffer.reset();
+                write(acumulado, 0, acumulado.length);
+            }
+        }
+
+        private void devolverDeflater() {
+            if (deflater == null) {
+                return;
+            }
+            deflater.reset();
+            if (!(codificacao.equals("gzip") ? POOL_GZIP : POOL_DEFLATE).offer(deflater)) {
+                deflater.end();
+            }
+            deflater = null;
+        }
+
+        private void escreverInteiro(int valor) throws IOException {
+            destino.write(valor & 0xff);
+            destino.write((valor >> 8) & 0xff);
+            destino.write((valor >> 16) & 0xff);
+            destino.write((valor >> 24) & 0xff);
+        }
+
+        @Override
+        public boolean isReady() {
+            return !(destino instanceof ServletOutputStream saidaContainer) || saidaContainer.isReady();
+        }
+
+        /**
+         * Escrita não bloqueante: o DeflaterOutputStream não respeita isReady(), então a resposta sai sem
+         * compressão, direto no stream do container (com o que já estava acumulado), que recebe o listener.
+         */
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            if (estado == Estado.COMPRIMINDO) {
+                throw new IllegalStateException("Escrita não bloqueante pedida depois de a compressão começar");
+            }
+            try {
+                if (estado == Estado.ACUMULANDO) {
+                    decidido = true;
+                    iniciarDireto();
+                }
+                RespostaComprimida.super.getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
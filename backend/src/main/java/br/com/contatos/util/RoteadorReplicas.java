@@ -0,0 +1,293 @@
+package br.com.contatos.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Leituras em réplicas do MySQL (agenda.db.replicas): cada réplica tem o seu {@link ConnectionPool},
+ * a leitura vai para a réplica saudável com menos conexões em uso e uma verificação periódica
+ * tira de circulação as que não respondem ou estão atrasadas demais.
+ * <p>
+ * A leitura fica no primário só quando a requisição pede (escrita, ou o token de escrita recente do
+ * próprio cliente, ver {@link ConsistenciaLeituraFilter}); as escritas dos outros clientes não tiram
+ * ninguém das réplicas. Logo depois de uma escrita desta instância, porém, o que vem de uma réplica
+ * não é compartilhado ({@link #leituraCompartilhavel()}): os caches (CacheTTL, páginas da listagem,
+ * ETag) não são preenchidos com dados de uma réplica que ainda não recebeu a alteração.
+ */
+public final class RoteadorReplicas {
+
+    private static final Logger LOG = Logger.getLogger(RoteadorReplicas.class.getName());
+
+    private static final long JANELA_CONSISTENCIA_MS = Configuracao.longo("agenda.db.replicas.janelaConsistenciaMs", 2_000);
+    private static final long VERIFICAR_MS = Configuracao.longo("agenda.db.replicas.verificarMs", 5_000);
+    private static final long ATRASO_MAXIMO_S = Configuracao.longo("agenda.db.replicas.atrasoMaximoS", 5);
+    /** Tempo máximo da verificação de cada réplica (conexão e consultas), em segundos. */
+    private static final int TIMEOUT_VERIFICACAO_S = 2;
+
+    /** A requisição atendida por esta thread precisa ler do primário. */
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+
+    private static final LongAdder LEITURAS_PRIMARIO = new LongAdder();
+    private static volatile long ultimaEscritaNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(JANELA_CONSISTENCIA_MS);
+
+    private static volatile List<Replica> replicas = List.of();
+    private static ScheduledExecutorService verificacao;
+    private static final AtomicInteger RODIZIO = new AtomicInteger();
+
+    /**
+     * Estado de uma réplica em /api/status (a URL vai sem os parâmetros).
+     */
+    public record Estatisticas(String url, boolean saudavel, Long atrasoS, long leituras, long falhas,
+                               ConnectionPool.Estatisticas pool) { }
+
+    private static final class Replica {
+        final String url;
+        final ConnectionPool.Config config;
+        final ConnectionPool pool;
+        volatile boolean saudavel = true;
+        volatile Long atrasoS;
+        final LongAdder leituras = new LongAdder();
+        final LongAdder falhas = new LongAdder();
+
+        Replica(String url, ConnectionPool.Config config, ConnectionPool pool) {
+            this.url = url;
+            this.config = config;
+            this.pool = pool;
+        }
+    }
+
+    private RoteadorReplicas() { }
+
+    /**
+     * Cria os pools das réplicas e agenda a verificação (chamado pelo ConnectionFactory).
+     */
+    static synchronized void iniciar(List<ConnectionPool.Config> configs) {
+        List<Replica> criadas = new ArrayList<>();
+        for (ConnectionPool.Config config : configs) {
+            ConnectionPool pool = new ConnectionPool(config);
+            pool.iniciar();
+            criadas.add(new Replica(semParametros(config.url()), config, pool));
+        }
+        replicas = List.copyOf(criadas);
+        if (!criadas.isEmpty() && verificacao == null) {
+            verificacao = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "agenda-replicas-verificacao");
+                t.setDaemon(true);
+                return t;
+            });
+            verificacao.scheduleWithFixedDelay(RoteadorReplicas::verificar, 0, VERIFICAR_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static synchronized void encerrar() {
+        if (verificacao != null) {
+            verificacao.shutdownNow();
+            verificacao = null;
+        }
+        for (Replica replica : replicas) {
+            replica.pool.encerrar();
+        }
+        replicas = List.of();
+    }
+
+    /**
+     * Conexão para leitura: de uma réplica saudável, ou null se a leitura deve ir ao primário.
+     * Uma réplica que falha ao abrir a conexão sai de circulação até a próxima verificação; o pool dela
+     * esgotado (SQLTransientConnectionException) só manda esta leitura ao primário: réplica ocupada não é réplica fora do ar.
+     * {@code longa}: fora da detecção de vazamento (ver {@link ConnectionPool#getConnectionLonga()}).
+     */
+    static Connection conexaoLeitura(boolean longa) {
+        List<Replica> atuais = replicas;
+        if (atuais.isEmpty() || Boolean.TRUE.equals(PRIMARIO.get())) {
+            LEITURAS_PRIMARIO.increment();
+            return null;
+        }
+
+        Replica escolhida = escolher(atuais);
+        if (escolhida == null) {
+            LEITURAS_PRIMARIO.increment();
+            return null;
+        }
+        try {
+            Connection conn = longa ? escolhida.pool.getConnectionLonga() : escolhida.pool.getConnection();
+            escolhida.leituras.increment();
+            return conn;
+        } catch (SQLTransientConnectionException e) {
+            escolhida.falhas.increment();
+            LOG.log(Level.FINE, "Pool da réplica " + escolhida.url + " esgotado; lendo do primário", e);
+            LEITURAS_PRIMARIO.increment();
+            return null;
+        } catch (SQLException e) {
+            escolhida.falhas.increment();
+            escolhida.saudavel = false;
+            LOG.log(Level.WARNING, "Réplica " + escolhida.url + " indisponível; lendo do primário", e);
+            LEITURAS_PRIMARIO.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Marca a thread atual para ler do primário (true) ou deixa o roteamento decidir (false).
+     * Quem marca deve chamar {@link #liberar()} ao terminar.
+     */
+    public static void fixarPrimario(boolean primario) {
+        if (primario) {
+            PRIMARIO.set(Boolean.TRUE);
+        } else {
+            PRIMARIO.remove();
+        }
+    }
+
+    public static void liberar() {
+        PRIMARIO.remove();
+    }
+
+    /**
+     * Chamado a cada escrita confirmada: pela janela de consistência, leituras de réplica desta
+     * instância não entram nos caches (as leituras em si continuam nas réplicas).
+     */
+    public static void registrarEscrita() {
+        ultimaEscritaNanos = System.nanoTime();
+    }
+
+    /**
+     * Se o que a thread atual lê pode ir para um cache compartilhado ou ganhar ETag: sempre, menos
+     * quando a leitura pode vir de uma réplica dentro da janela de consistência de uma escrita desta
+     * instância (a réplica talvez ainda não tenha a alteração). Avaliar antes da leitura.
+     */
+    public static boolean leituraCompartilhavel() {
+        return replicas.isEmpty() || Boolean.TRUE.equals(PRIMARIO.get()) || !escritaRecente();
+    }
+
+    public static long janelaConsistenciaMs() {
+        return JANELA_CONSISTENCIA_MS;
+    }
+
+    public static boolean configurado() {
+        return !replicas.isEmpty();
+    }
+
+    public static long leiturasPrimario() {
+        return LEITURAS_PRIMARIO.sum();
+    }
+
+    public static List<Estatisticas> estatisticas() {
+        List<Estatisticas> lista = new ArrayList<>();
+        for (Replica replica : replicas) {
+            lista.add(new Estatisticas(replica.url, replica.saudavel, replica.atrasoS,
+                    replica.leituras.sum(), replica.falhas.sum(), replica.pool.estatisticas()));
+        }
+        return lista;
+    }
+
+    private static boolean escritaRecente() {
+        return System.nanoTime() - ultimaEscritaNanos < TimeUnit.MILLISECONDS.toNanos(JANELA_CONSISTENCIA_MS);
+    }
+
+    /**
+     * A réplica saudável com menos conexões emprestadas; o rodízio desempata e espalha as leituras.
+     */
+    private static Replica escolher(List<Replica> atuais) {
+        int inicio = Math.floorMod(RODIZIO.getAndIncrement(), atuais.size());
+        Replica melhor = null;
+        int menosAtivas = Integer.MAX_VALUE;
+        for (int i = 0; i < atuais.size(); i++) {
+            Replica replica = atuais.get((inicio + i) % atuais.size());
+            if (!replica.saudavel) {
+                continue;
+            }
+            int ativas = replica.pool.ativas();
+            if (ativas < menosAtivas) {
+                melhor = replica;
+                menosAtivas = ativas;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Uma réplica é saudável se responde e, quando é réplica de fato (SHOW REPLICA STATUS com linha),
+     * se a replicação está rodando com até agenda.db.replicas.atrasoMaximoS segundos de atraso.
+     * Sem permissão para o SHOW, vale só a conexão responder.
+     * <p>
+     * A verificação abre uma conexão própria, fora do pool de leituras: com o pool esgotado pela
+     * carga, a réplica continua saudável (e recebendo leituras) em vez de jogar tudo no primário.
+     * As réplicas são verificadas em paralelo, cada uma com até {@value #TIMEOUT_VERIFICACAO_S} s.
+     */
+    private static void verificar() {
+        try (ExecutorService paralelo = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Replica replica : replicas) {
+                paralelo.execute(() -> verificar(replica));
+            }
+        }
+    }
+
+    private static void verificar(Replica replica) {
+        boolean saudavel;
+        Long atraso = null;
+        try (Connection conn = conexaoVerificacao(replica.config)) {
+            saudavel = conn.isValid(TIMEOUT_VERIFICACAO_S);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setQueryTimeout(TIMEOUT_VERIFICACAO_S);
+                try (ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+                    if (rs.next()) {
+                        long segundos = rs.getLong("Seconds_Behind_Source");
+                        atraso = rs.wasNull() ? null : segundos;
+                        // null = replicação parada
+                        saudavel = saudavel && atraso != null && atraso <= ATRASO_MAXIMO_S;
+                    } else {
+                        atraso = 0L;
+                    }
+                }
+            } catch (SQLException e) {
+                LOG.log(Level.FINE, "Sem SHOW REPLICA STATUS em " + replica.url, e);
+            }
+        } catch (SQLException e) {
+            saudavel = false;
+        }
+
+        if (saudavel != replica.saudavel) {
+            LOG.log(saudavel ? Level.INFO : Level.WARNING,
+                    "Réplica " + replica.url + (saudavel ? " voltou a receber leituras" : " fora de circulação")
+                            + (atraso == null ? "" : " (atraso " + atraso + " s)"));
+        }
+        replica.atrasoS = atraso;
+        replica.saudavel = saudavel;
+    }
+
+    /**
+     * Conexão avulsa para a verificação, com tempo limite de conexão e de leitura curtos (Connector/J).
+     */
+    private static Connection conexaoVerificacao(ConnectionPool.Config config) throws SQLException {
+        Properties propriedades = new Properties();
+        if (config.usuario() != null) {
+            propriedades.setProperty("user", config.usuario());
+        }
+        if (config.senha() != null) {
+            propriedades.setProperty("password", config.senha());
+        }
+        propriedades.setProperty("connectTimeout", Long.toString(TimeUnit.SECONDS.toMillis(TIMEOUT_VERIFICACAO_S)));
+        propriedades.setProperty("socketTimeout", Long.toString(TimeUnit.SECONDS.toMillis(TIMEOUT_VERIFICACAO_S)));
+        return DriverManager.getConnection(config.url(), propriedades);
+    }
+
+    private static String semParametros(String url) {
+        int i = url.indexOf('?');
+        return i < 0 ? url : url.substring(0, i);
+    }
+}
@@ -0,0 +1,18 @@
+-- Esquema de agenda.sql (já com data_nascimento). IF NOT EXISTS para bancos criados à mão antes das migrações.
+
+CREATE TABLE IF NOT EXISTS Cliente (
+    id int primary key auto_increment,
+    nome varchar(100) not null,
+    cpf varchar(14) not null unique,
+    data_nascimento date not null,
+    endereco varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS Contato (
+    id int primary key auto_increment,
+    cliente_id int not null,
+    tipo varchar(50) not null,
+    valor varchar(100) not null,
+    observacao varchar(255),
+    FOREIGN KEY (cliente_id) REFERENCES Cliente(id)
+);
@@ -0,0 +1,14 @@
+-- RF04: listagem e paginação por chave em ORDER BY nome, id (sem filesort, parando no LIMIT).
+-- RF05: a busca no banco (sem o índice em memória) percorre este mesmo índice na ordem da página e
+-- para ao achar LIMIT linhas.
+--
+-- Sem coluna de nome normalizado (ex.: LOWER(nome)) para a busca: a collation padrão da coluna
+-- (utf8mb4_0900_ai_ci) já compara sem diferenciar maiúsculas nem acentos, e a busca procura um trecho
+-- do nome ('%termo%', num OR com o prefixo do CPF), que nenhum índice B-tree atende. Uma coluna
+-- gerada com índice só custaria espaço e escrita; a busca rápida é a do índice em memória
+-- (agenda.busca.indiceEmMemoria).
+CREATE INDEX idx_cliente_nome_id ON Cliente (nome, id);
+
+-- RF09: contatos de um cliente (ou de vários, com IN) já na ordem por id.
+-- O índice implícito da FK em cliente_id fica redundante e o MySQL passa a usar este.
+CREATE INDEX idx_contato_cliente_id ON Contato (cliente_id, id);
@@ -0,0 +1,117 @@
+package br.com.contatos.dao;
+
+import br.com.contatos.util.ConnectionFactory;
+import br.com.contatos.util.Migracoes;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Planos das consultas da listagem (RF04) e dos contatos por cliente (RF09) antes e depois da
+ * migração V002, no H2 em modo MySQL com o esquema criado pelas próprias migrações.
+ * <p>
+ * O H2 marca com "index sorted" o plano que percorre o índice já na ordem do ORDER BY: é o
+ * equivalente ao "sem filesort, parando no LIMIT" do MySQL (ver sql/planos_consulta.sql).
+ */
+class PlanosConsultaTest {
+
+    private static final int CLIENTES = 2_000;
+    private static final int LIMITE = 51;
+
+    @BeforeAll
+    static void configurarBanco() {
+        System.setProperty("agenda.db.driver", "org.h2.Driver");
+        System.setProperty("agenda.db.url", "jdbc:h2:mem:planos;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("agenda.db.usuario", "sa");
+        System.setProperty("agenda.db.senha", "");
+    }
+
+    @Test
+    void listagemEContatosPassamAUsarOsIndicesDaV002() throws SQLException {
+        Migracoes.aplicarAte(1);
+        try (Connection conn = ConnectionFactory.getConnection()) {
+            popular(conn);
+
+            String antes = planoListagem(conn, null);
+            assertFalse(antes.contains("IDX_CLIENTE_NOME_ID"), antes);
+            assertFalse(antes.contains("INDEX SORTED"), "sem a V002 a listagem precisa ordenar: " + antes);
+        }
+
+        Migracoes.aplicarAte(2);
+        try (Connection conn = ConnectionFactory.getConnection()) {
+            analisar(conn);
+
+            String primeiraPagina = planoListagem(conn, null);
+            assertTrue(primeiraPagina.contains("IDX_CLIENTE_NOME_ID"), primeiraPagina);
+            assertTrue(primeiraPagina.contains("INDEX SORTED"), primeiraPagina);
+
+            String aposCursor = planoListagem(conn, new CursorPaginacao("Cliente 01000", 1000));
+            assertTrue(aposCursor.contains("IDX_CLIENTE_NOME_ID"), aposCursor);
+            assertTrue(aposCursor.contains("INDEX SORTED"), aposCursor);
+
+            String contatos = plano(conn, "SELECT " + MapeadorLinha.CONTATO.colunas()
+                    + " FROM Contato WHERE cliente_id IN (?, ?, ?) ORDER BY cliente_id, id", 1, 2, 3);
+            assertTrue(contatos.contains("IDX_CONTATO_CLIENTE_ID"), contatos);
+        }
+    }
+
+    private static String planoListagem(Connection conn, CursorPaginacao cursor) throws SQLException {
+        String sql = ClienteDAO.sqlListagem(cursor);
+        return cursor == null
+                ? plano(conn, sql, LIMITE)
+                : plano(conn, sql, cursor.nome(), cursor.nome(), cursor.id(), LIMITE);
+    }
+
+    /**
+     * EXPLAIN da consulta em maiúsculas (o H2 escreve os nomes dos índices assim).
+     */
+    private static String plano(Connection conn, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement explain = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                explain.setObject(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1).toUpperCase(Locale.ROOT);
+            }
+        }
+    }
+
+    private static void popular(Connection conn) throws SQLException {
+        try (PreparedStatement cliente = conn.prepareStatement(
+                     "INSERT INTO Cliente (id, nome, cpf, data_nascimento) VALUES (?, ?, ?, ?)");
+             PreparedStatement contato = conn.prepareStatement(
+                     "INSERT INTO Contato (cliente_id, tipo, valor) VALUES (?, 'Email', ?)")) {
+            for (int id = 1; id <= CLIENTES; id++) {
+                cliente.setInt(1, id);
+                // Nomes fora da ordem dos ids, para a ordenação por nome não coincidir com a chave primária
+                cliente.setString(2, String.format("Cliente %05d", (id * 7919) % CLIENTES));
+                cliente.setString(3, String.format("%011d", id));
+                cliente.setDate(4, Date.valueOf("1990-01-01"));
+                cliente.addBatch();
+                contato.setInt(1, id);
+                contato.setString(2, "cliente" + id + "@exemplo.com");
+                contato.addBatch();
+            }
+            cliente.executeBatch();
+            contato.executeBatch();
+        }
+        analisar(conn);
+    }
+
+    private static void analisar(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+}
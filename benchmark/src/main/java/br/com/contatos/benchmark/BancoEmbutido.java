@@ -0,0 +1,103 @@
+package br.com.contatos.benchmark;
+
+import br.com.contatos.util.ConnectionFactory;
+import br.com.contatos.util.Migracoes;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * H2 em memória (modo MySQL) com o esquema das migrações do backend ({@link Migracoes}), populado com
+ * dados determinísticos. Aponta o {@link ConnectionFactory} do backend para ele via propriedades
+ * agenda.db.*, então precisa ser chamado antes do primeiro uso de qualquer DAO.
+ */
+public final class BancoEmbutido {
+
+    private static final String[] NOMES = {
+            "Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela", "Henrique", "Isabela", "João",
+            "Larissa", "Marcos", "Natália", "Otávio", "Paula", "Rafael", "Sabrina", "Thiago", "Vitória", "Yuri"};
+    private static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa"};
+    private static final String[] TIPOS = {"Email", "Telefone", "Celular"};
+    private static final int TAMANHO_LOTE = 5_000;
+
+    private BancoEmbutido() { }
+
+    /**
+     * Cria o banco com {@code clientes} clientes e {@code contatosPorCliente} contatos para cada um.
+     * Nomes e CPFs dependem só do número do cliente: as mesmas entradas geram o mesmo banco.
+     */
+    public static void preparar(int clientes, int contatosPorCliente) throws SQLException {
+        System.setProperty("agenda.db.driver", "org.h2.Driver");
+        // IGNORECASE faz as comparações de texto como a collation _ci do MySQL (a busca usa nome LIKE)
+        System.setProperty("agenda.db.url", "jdbc:h2:mem:agenda;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE");
+        System.setProperty("agenda.db.usuario", "sa");
+        System.setProperty("agenda.db.senha", "");
+
+        try (Connection conn = ConnectionFactory.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS Contato");
+            stmt.execute("DROP TABLE IF EXISTS Cliente");
+            stmt.execute("DROP TABLE IF EXISTS schema_migracoes");
+        }
+        Migracoes.aplicar();
+
+        try (Connection conn = ConnectionFactory.getConnection()) {
+            conn.setAutoCommit(false);
+            Random random = new Random(42);
+            try (PreparedStatement cliente = conn.prepareStatement(
+                         "INSERT INTO Cliente (id, nome, cpf, data_nascimento, endereco) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement contato = conn.prepareStatement(
+                         "INSERT INTO Contato (cliente_id, tipo, valor, observacao) VALUES (?, ?, ?, ?)")) {
+
+                for (int id = 1; id <= clientes; id++) {
+                    cliente.setInt(1, id);
+                    cliente.setString(2, nome(id));
+                    cliente.setString(3, cpf(id));
+                    cliente.setDate(4, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000))));
+                    cliente.setString(5, "Rua " + (id % 500) + ", " + id);
+                    cliente.addBatch();
+
+                    for (int c = 0; c < contatosPorCliente; c++) {
+                        String tipo = TIPOS[c % TIPOS.length];
+                        contato.setInt(1, id);
+                        contato.setString(2, tipo);
+                        contato.setString(3, tipo.equals("Email") ? "cliente" + id + "@exemplo.com" : "119" + String.format("%08d", id));
+                        contato.setString(4, null);
+                        contato.addBatch();
+                    }
+
+                    if (id % TAMANHO_LOTE == 0) {
+                        cliente.executeBatch();
+                        contato.executeBatch();
+                        conn.commit();
+                    }
+                }
+                cliente.executeBatch();
+                contato.executeBatch();
+                conn.commit();
+            }
+        }
+    }
+
+    /**
+     * Nome do cliente {@code id}: combinações de nome e dois sobrenomes (8.000 nomes distintos).
+     */
+    public static String nome(int id) {
+        return NOMES[id % NOMES.length] + " " + SOBRENOMES[(id / NOMES.length) % SOBRENOMES.length]
+                + " " + SOBRENOMES[(id / (NOMES.length * SOBRENOMES.length)) % SOBRENOMES.length];
+    }
+
+    /**
+     * CPF (só dígitos) do cliente {@code id}; único por id.
+     */
+    public static String cpf(int id) {
+        return String.format("%011d", id);
+    }
+}
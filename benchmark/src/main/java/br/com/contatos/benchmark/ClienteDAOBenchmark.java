@@ -0,0 +1,95 @@
+package br.com.contatos.benchmark;
+
+import br.com.contatos.dao.ClienteDAO;
+import br.com.contatos.dao.CursorPaginacao;
+import br.com.contatos.dao.InclusaoContatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listagem paginada (RF02) e busca (RF05) do {@link ClienteDAO}, com o índice de busca em memória
+ * ligado e desligado (LIKE no banco). Tamanho do banco por -p clientes=... (1.000 a 1.000.000).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClienteDAOBenchmark {
+
+    private static final int LIMITE = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int clientes;
+
+    @Param({"true", "false"})
+    public boolean indiceEmMemoria;
+
+    private ClienteDAO clienteDAO;
+    private String cursorMeio;
+    private String nomeExistente;
+    private String prefixoCpf;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        // Lida na inicialização do ClienteDAO: precisa vir antes do primeiro uso
+        System.setProperty("agenda.busca.indiceEmMemoria", String.valueOf(indiceEmMemoria));
+        // Mede o DAO, não o cache de leitura
+        System.setProperty("agenda.cache.clientes.tamanho", "0");
+        System.setProperty("agenda.cache.contatos.tamanho", "0");
+        BancoEmbutido.preparar(clientes, 2);
+
+        clienteDAO = new ClienteDAO();
+        if (indiceEmMemoria) {
+            clienteDAO.carregarIndiceBusca();
+        }
+        int meio = clientes / 2;
+        cursorMeio = new CursorPaginacao(BancoEmbutido.nome(meio), meio).codificar();
+        nomeExistente = BancoEmbutido.nome(meio).split(" ")[1];
+        prefixoCpf = BancoEmbutido.cpf(meio).substring(0, 8);
+    }
+
+    @Benchmark
+    public String listarPrimeiraPagina(Blackhole bh) throws Exception {
+        return clienteDAO.listarTodos(null, LIMITE, bh::consume);
+    }
+
+    @Benchmark
+    public String listarPaginaDoMeio(Blackhole bh) throws Exception {
+        return clienteDAO.listarTodos(cursorMeio, LIMITE, bh::consume);
+    }
+
+    @Benchmark
+    public String listarComContagemDeContatos(Blackhole bh) throws Exception {
+        return clienteDAO.listarTodos(null, LIMITE, InclusaoContatos.CONTAGEM, bh::consume);
+    }
+
+    @Benchmark
+    public String buscarPorNome(Blackhole bh) throws Exception {
+        return clienteDAO.buscar(nomeExistente, null, LIMITE, bh::consume);
+    }
+
+    @Benchmark
+    public String buscarPorPrefixoDeCpf(Blackhole bh) throws Exception {
+        return clienteDAO.buscar(prefixoCpf, null, LIMITE, bh::consume);
+    }
+
+    @Benchmark
+    public String buscarSemResultado(Blackhole bh) throws Exception {
+        return clienteDAO.buscar("xyzw", null, LIMITE, bh::consume);
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.contatos.benchmark;
+
+import br.com.contatos.dao.IndiceBuscaCliente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizações que rodam a cada requisição: limpeza do CPF com replaceAll("[^0-9]", "") (DAO e
+ * importação), comparada a um laço de caracteres, e a normalização de nomes do índice de busca.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpfBenchmark {
+
+    @Param({"123.456.789-09", "12345678909"})
+    public String cpf;
+
+    public String nome = "  João  da Conceição Araújo ";
+
+    @Benchmark
+    public String cpfComReplaceAll() {
+        return cpf.replaceAll("[^0-9]", "");
+    }
+
+    @Benchmark
+    public String cpfComLaco() {
+        StringBuilder digitos = new StringBuilder(cpf.length());
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    @Benchmark
+    public String normalizarNome() {
+        return IndiceBuscaCliente.normalizar(nome);
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.contatos.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do benchmarks.jar: aceita as opções de linha de comando do JMH
+ * (filtro por nome, -p clientes=1000000, -f, -wi, ...) e sempre grava o resultado em JSON,
+ * por padrão em target/jmh-resultado.json (ou no arquivo de -rff).
+ */
+public final class ExecutarBenchmarks {
+
+    private ExecutarBenchmarks() { }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        Options opcoes = new OptionsBuilder()
+                .parent(linhaDeComando)
+                .resultFormat(ResultFormatType.JSON)
+                .result(linhaDeComando.getResult().orElse("target/jmh-resultado.json"))
+                .build();
+        new Runner(opcoes).run();
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.contatos.benchmark;
+
+import br.com.contatos.model.Cliente;
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização Gson + {@link LocalDateTypeAdapter} como feita nos servlets: página inteira com
+ * toJson, página em streaming pelo JsonWriter (ClienteServlet) e leitura de um cliente (POST/PUT).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"50", "500"})
+    public int tamanhoPagina;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    private List<Cliente> pagina;
+    private String jsonCliente;
+
+    @Setup
+    public void preparar() {
+        pagina = new ArrayList<>(tamanhoPagina);
+        for (int id = 1; id <= tamanhoPagina; id++) {
+            pagina.add(new Cliente(id, BancoEmbutido.nome(id), BancoEmbutido.cpf(id),
+                    LocalDate.of(1980, 1, 1).plusDays(id), "Rua " + id + ", São Paulo"));
+        }
+        jsonCliente = gson.toJson(pagina.get(0));
+    }
+
+    @Benchmark
+    public String paginaComToJson() {
+        return gson.toJson(pagina);
+    }
+
+    @Benchmark
+    public Writer paginaEmStreaming() throws IOException {
+        StringWriter saida = new StringWriter();
+        JsonWriter writer = new JsonWriter(saida);
+        writer.beginObject();
+        writer.name("itens").beginArray();
+        for (Cliente cliente : pagina) {
+            gson.toJson(cliente, Cliente.class, writer);
+        }
+        writer.endArray();
+        writer.name("proximoCursor").nullValue();
+        writer.endObject();
+        writer.flush();
+        return saida;
+    }
+
+    @Benchmark
+    public Cliente lerCliente() {
+        return gson.fromJson(jsonCliente, Cliente.class);
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.contatos.benchmark.carga;
+
+import br.com.contatos.benchmark.BancoEmbutido;
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Contato;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ações de um usuário do frontend, cada uma uma sequência de requisições à API com os mesmos
+ * parâmetros que o script.js usa. Os clientes 1..N são os da carga inicial ({@link BancoEmbutido});
+ * o CRUD cria e apaga os seus próprios clientes, então a base não muda de tamanho durante o teste.
+ */
+enum Cenario {
+
+    /** RF04: primeira página da listagem com a contagem de contatos e, metade das vezes, a seguinte. */
+    LISTAR("listar") {
+        @Override
+        void executar(Contexto ctx, Random random) throws IOException, InterruptedException {
+            ClienteApi.Resposta pagina = ctx.api().get("listar", "/api/clientes?incluirContagem=true");
+            if (random.nextBoolean()) {
+                String cursor = ClienteApi.proximoCursor(pagina);
+                if (cursor != null) {
+                    ctx.api().get("listar-proxima",
+                            "/api/clientes?incluirContagem=true&after=" + ClienteApi.codificar(cursor));
+                }
+            }
+        }
+    },
+
+    /** RF05: um nome digitado letra a letra, uma busca por tecla (o pior caso, sem o debounce do frontend). */
+    BUSCAR("buscar") {
+        @Override
+        void executar(Contexto ctx, Random random) throws IOException, InterruptedException {
+            String[] partes = BancoEmbutido.nome(1 + random.nextInt(ctx.clientes())).split(" ");
+            String termo = partes[random.nextInt(partes.length)];
+            for (int tamanho = 1; tamanho <= termo.length(); tamanho++) {
+                if (tamanho > 1 && ctx.intervaloTeclaMs() > 0) {
+                    Thread.sleep(ctx.intervaloTeclaMs());
+                }
+                ctx.api().get("buscar-tecla",
+                        "/api/clientes?incluirContagem=true&busca=" + ClienteApi.codificar(termo.substring(0, tamanho)));
+            }
+        }
+    },
+
+    /** RF02 + RF09: abre um cliente e a lista de contatos dele. */
+    CONTATOS("contatos") {
+        @Override
+        void executar(Contexto ctx, Random random) throws IOException, InterruptedException {
+            int id = 1 + random.nextInt(ctx.clientes());
+            ctx.api().get("abrir-cliente", "/api/clientes/" + id);
+            ctx.api().get("listar-contatos", "/api/contatos?clienteId=" + id);
+        }
+    },
+
+    /** RF01, RF06, RF02 e RF03: cria um cliente com um contato, altera e exclui. */
+    CRUD("crud") {
+        @Override
+        void executar(Contexto ctx, Random random) throws IOException, InterruptedException {
+            String cpf = String.format("9%010d", ctx.proximoCpf().getAndIncrement());
+            LocalDate nascimento = LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000));
+            Cliente novo = new Cliente("Carga " + BancoEmbutido.nome(random.nextInt(8_000)), cpf, nascimento, "Rua da Carga, 1");
+
+            int id = ClienteApi.inteiro(ctx.api().post("criar-cliente", "/api/clientes", novo), "id");
+            ctx.api().post("criar-contato", "/api/contatos",
+                    new Contato(id, "Email", "carga" + cpf + "@exemplo.com", null));
+            ctx.api().put("atualizar-cliente", "/api/clientes/" + id,
+                    new Cliente(id, novo.nome(), cpf, nascimento, "Rua da Carga, 2"));
+            ctx.api().delete("excluir-cliente", "/api/clientes/" + id);
+        }
+    };
+
+    /**
+     * O que os cenários compartilham: a API, quantos clientes a carga inicial criou, a pausa entre
+     * teclas da busca e o gerador de CPFs novos (fora da faixa da carga inicial).
+     */
+    record Contexto(ClienteApi api, int clientes, long intervaloTeclaMs, AtomicLong proximoCpf) { }
+
+    private final String nome;
+
+    Cenario(String nome) {
+        this.nome = nome;
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    static Cenario porNome(String nome) {
+        for (Cenario cenario : values()) {
+            if (cenario.nome.equalsIgnoreCase(nome)) {
+                return cenario;
+            }
+        }
+        throw new IllegalArgumentException("Cenário desconhecido: " + nome + " (use listar, buscar, contatos ou crud)");
+    }
+
+    abstract void executar(Contexto ctx, Random random) throws IOException, InterruptedException;
+}
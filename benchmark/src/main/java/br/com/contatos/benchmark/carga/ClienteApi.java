@@ -0,0 +1,145 @@
+package br.com.contatos.benchmark.carga;
+
+import br.com.contatos.util.LocalDateTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente HTTP da API usado pelos cenários: cada requisição é medida e registrada no
+ * {@link ResultadoCarga} com o nome da operação. Status 4xx/5xx e falhas de rede contam como erro
+ * e interrompem a ação (lançam {@link IOException}), como o frontend faria.
+ */
+final class ClienteApi {
+
+    private final HttpClient http;
+    private final String base;
+    private final ResultadoCarga resultado;
+    private final Duration timeout;
+    private final boolean gzip;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .create();
+
+    ClienteApi(String base, ResultadoCarga resultado, Duration timeout, boolean gzip) {
+        this.base = base;
+        this.resultado = resultado;
+        this.timeout = timeout;
+        this.gzip = gzip;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Corpo de uma resposta bem-sucedida; o JSON só é lido por quem precisa dele (cursor, id criado).
+     */
+    record Resposta(byte[] corpo, boolean comprimido) {
+
+        JsonElement json() throws IOException {
+            if (corpo.length == 0) {
+                return null;
+            }
+            InputStream in = new ByteArrayInputStream(corpo);
+            try (InputStream leitura = comprimido ? new GZIPInputStream(in) : in) {
+                return JsonParser.parseString(new String(leitura.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    Resposta get(String operacao, String caminho) throws IOException, InterruptedException {
+        return executar(operacao, requisicao(caminho).GET());
+    }
+
+    Resposta post(String operacao, String caminho, Object corpo) throws IOException, InterruptedException {
+        return executar(operacao, requisicao(caminho).POST(json(corpo)).header("Content-Type", "application/json"));
+    }
+
+    Resposta put(String operacao, String caminho, Object corpo) throws IOException, InterruptedException {
+        return executar(operacao, requisicao(caminho).PUT(json(corpo)).header("Content-Type", "application/json"));
+    }
+
+    void delete(String operacao, String caminho) throws IOException, InterruptedException {
+        executar(operacao, requisicao(caminho).DELETE());
+    }
+
+    static String codificar(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Campo inteiro de uma resposta objeto (ex.: o id do cliente criado).
+     */
+    static int inteiro(Resposta resposta, String campo) throws IOException {
+        JsonElement json = resposta.json();
+        if (json == null || !json.isJsonObject() || !json.getAsJsonObject().has(campo)) {
+            throw new IOException("Resposta sem o campo '" + campo + "'");
+        }
+        return json.getAsJsonObject().get(campo).getAsInt();
+    }
+
+    /**
+     * proximoCursor de uma página { itens, proximoCursor }, ou null na última página.
+     */
+    static String proximoCursor(Resposta resposta) throws IOException {
+        JsonElement pagina = resposta.json();
+        if (pagina == null || !pagina.isJsonObject()) {
+            return null;
+        }
+        JsonObject objeto = pagina.getAsJsonObject();
+        return objeto.has("proximoCursor") ? objeto.get("proximoCursor").getAsString() : null;
+    }
+
+    private HttpRequest.Builder requisicao(String caminho) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + caminho)).timeout(timeout);
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher json(Object corpo) {
+        return HttpRequest.BodyPublishers.ofString(gson.toJson(corpo), StandardCharsets.UTF_8);
+    }
+
+    private Resposta executar(String operacao, HttpRequest.Builder builder) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        HttpResponse<byte[]> resposta;
+        try {
+            resposta = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            resultado.registrarRequisicao(operacao, System.nanoTime() - inicio, e.getClass().getSimpleName());
+            throw e;
+        }
+        long duracao = System.nanoTime() - inicio;
+
+        int status = resposta.statusCode();
+        if (status >= 400) {
+            resultado.registrarRequisicao(operacao, duracao, "HTTP " + status);
+            throw new IOException(operacao + ": HTTP " + status);
+        }
+        resultado.registrarRequisicao(operacao, duracao, null);
+
+        boolean comprimido = resposta.headers().firstValue("Content-Encoding")
+                .map(c -> c.equalsIgnoreCase("gzip")).orElse(false);
+        return new Resposta(resposta.body(), comprimido);
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.contatos.benchmark.carga;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em microssegundos, com erro relativo de até 1/16 (~6%) em qualquer faixa:
+ * abaixo de 32 µs cada valor tem o seu balde; acima, cada potência de 2 é dividida em 16 baldes.
+ * Tamanho fixo e sem locks, então pode ser alimentado por milhares de threads sem distorcer a medição.
+ */
+final class HistogramaLatencia {
+
+    private static final int SUBBALDES_BITS = 4;
+    private static final int SUBBALDES = 1 << SUBBALDES_BITS;
+    private static final int LINEARES = 2 * SUBBALDES;
+    /** Até 2^42 µs (~50 dias): bem além de qualquer timeout. */
+    private static final int BALDES = LINEARES + (42 - 5) * SUBBALDES;
+
+    private final AtomicLongArray baldes = new AtomicLongArray(BALDES);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder somaMicros = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    void registrar(long duracaoNanos) {
+        long micros = Math.max(0, duracaoNanos / 1_000);
+        baldes.incrementAndGet(balde(micros));
+        total.increment();
+        somaMicros.add(micros);
+        maximo.accumulate(micros);
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    double mediaMs() {
+        long n = total.sum();
+        return n == 0 ? 0 : somaMicros.sum() / (double) n / 1_000;
+    }
+
+    double maximoMs() {
+        return maximo.get() / 1_000.0;
+    }
+
+    /**
+     * Latência abaixo da qual ficam {@code quantil} das amostras (ex.: 0.99), em milissegundos.
+     * Devolve o limite superior do balde, nunca acima do máximo observado.
+     */
+    double quantilMs(double quantil) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(quantil * n));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += baldes.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get()) / 1_000.0;
+            }
+        }
+        return maximoMs();
+    }
+
+    private static int balde(long micros) {
+        if (micros < LINEARES) {
+            return (int) micros;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (expoente - SUBBALDES_BITS)) & (SUBBALDES - 1);
+        return Math.min(LINEARES + (expoente - 5) * SUBBALDES + sub, BALDES - 1);
+    }
+
+    private static long limiteSuperior(int balde) {
+        if (balde < LINEARES) {
+            return balde;
+        }
+        int expoente = (balde - LINEARES) / SUBBALDES + 5;
+        int sub = (balde - LINEARES) % SUBBALDES;
+        long largura = 1L << (expoente - SUBBALDES_BITS);
+        return (SUBBALDES + sub) * largura + largura - 1;
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.contatos.benchmark.carga;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contagens e latências do teste de carga, por requisição (listar, buscar-tecla, criar-cliente, ...)
+ * e por ação do usuário (a sequência inteira de um {@link Cenario}). Só o que acontece com a medição
+ * ligada entra no resultado: o aquecimento passa pelo mesmo código, mas não conta.
+ */
+final class ResultadoCarga {
+
+    /**
+     * Linha do relatório (e do JSON). Latências em ms; vazão por segundo de medição.
+     * Na linha de total as latências ficam null: somar histogramas de operações diferentes não diz nada.
+     */
+    record Linha(String nome, long total, long erros, double vazao, double taxaErro,
+                 Double media, Double p50, Double p90, Double p99, Double p999, Double maximo) { }
+
+    /**
+     * Resultado completo, gravado em JSON para comparar execuções.
+     */
+    record Resumo(Map<String, Object> parametros, double segundos, long acoesDescartadas,
+                  List<Linha> acoes, List<Linha> requisicoes, Map<String, Long> errosPorMotivo) { }
+
+    private static final class Serie {
+        final HistogramaLatencia latencias = new HistogramaLatencia();
+        final LongAdder erros = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<String, Serie> acoes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Serie> requisicoes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> errosPorMotivo = new ConcurrentHashMap<>();
+    private final LongAdder descartadas = new LongAdder();
+
+    private volatile boolean medindo;
+    private volatile long inicioNanos;
+    private volatile long fimNanos;
+
+    void iniciarMedicao() {
+        inicioNanos = System.nanoTime();
+        medindo = true;
+    }
+
+    void encerrarMedicao() {
+        medindo = false;
+        fimNanos = System.nanoTime();
+    }
+
+    /**
+     * Uma requisição HTTP: {@code motivoErro} null se deu certo, senão o status ou a exceção.
+     */
+    void registrarRequisicao(String operacao, long duracaoNanos, String motivoErro) {
+        registrar(requisicoes, operacao, duracaoNanos, motivoErro);
+    }
+
+    /**
+     * Uma ação inteira; em carga aberta a duração conta desde o instante previsto de chegada,
+     * incluindo a espera quando o servidor não acompanha a taxa.
+     */
+    void registrarAcao(String cenario, long duracaoNanos, String motivoErro) {
+        registrar(acoes, cenario, duracaoNanos, motivoErro);
+    }
+
+    /**
+     * Chegada em carga aberta que não pôde sair porque já havia --maxPendentes ações em andamento.
+     */
+    void registrarDescarte() {
+        if (medindo) {
+            descartadas.increment();
+        }
+    }
+
+    Resumo resumir(Map<String, Object> parametros) {
+        double segundos = Math.max(1e-9, (fimNanos - inicioNanos) / 1e9);
+        Map<String, Long> motivos = new TreeMap<>();
+        errosPorMotivo.forEach((motivo, total) -> motivos.put(motivo, total.sum()));
+        return new Resumo(parametros, segundos, descartadas.sum(),
+                linhas(acoes, segundos), linhas(requisicoes, segundos), motivos);
+    }
+
+    /**
+     * Tabela em texto para o console.
+     */
+    static String formatar(Resumo resumo) {
+        StringBuilder saida = new StringBuilder();
+        saida.append(String.format(Locale.ROOT, "Medição: %.1f s%n", resumo.segundos()));
+        if (resumo.acoesDescartadas() > 0) {
+            saida.append(String.format(Locale.ROOT,
+                    "Chegadas descartadas (servidor não acompanhou a taxa): %d%n", resumo.acoesDescartadas()));
+        }
+        tabela(saida, "Ações", resumo.acoes());
+        tabela(saida, "Requisições", resumo.requisicoes());
+        if (!resumo.errosPorMotivo().isEmpty()) {
+            saida.append(String.format("%nErros por motivo%n"));
+            resumo.errosPorMotivo().forEach((motivo, total) ->
+                    saida.append(String.format(Locale.ROOT, "  %-40s %10d%n", motivo, total)));
+        }
+        return saida.toString();
+    }
+
+    private void registrar(ConcurrentHashMap<String, Serie> series, String nome, long duracaoNanos, String motivoErro) {
+        if (!medindo) {
+            return;
+        }
+        Serie serie = series.computeIfAbsent(nome, n -> new Serie());
+        serie.latencias.registrar(duracaoNanos);
+        if (motivoErro != null) {
+            serie.erros.increment();
+            if (series == requisicoes) {
+                errosPorMotivo.computeIfAbsent(nome + ": " + motivoErro, m -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    private static List<Linha> linhas(Map<String, Serie> series, double segundos) {
+        List<Linha> linhas = new ArrayList<>();
+        long totalGeral = 0;
+        long errosGeral = 0;
+        for (Map.Entry<String, Serie> e : new TreeMap<>(series).entrySet()) {
+            linhas.add(linha(e.getKey(), e.getValue().latencias, e.getValue().erros.sum(), segundos));
+            totalGeral += e.getValue().latencias.total();
+            errosGeral += e.getValue().erros.sum();
+        }
+        if (linhas.size() > 1) {
+            linhas.add(new Linha("(total)", totalGeral, errosGeral, totalGeral / segundos,
+                    totalGeral == 0 ? 0 : errosGeral / (double) totalGeral,
+                    null, null, null, null, null, null));
+        }
+        return linhas;
+    }
+
+    private static Linha linha(String nome, HistogramaLatencia h, long erros, double segundos) {
+        long total = h.total();
+        return new Linha(nome, total, erros, total / segundos, total == 0 ? 0 : erros / (double) total,
+                h.mediaMs(), h.quantilMs(0.50), h.quantilMs(0.90), h.quantilMs(0.99), h.quantilMs(0.999), h.maximoMs());
+    }
+
+    private static void tabela(StringBuilder saida, String titulo, List<Linha> linhas) {
+        saida.append(String.format("%n%s (latências em ms)%n", titulo));
+        saida.append(String.format(Locale.ROOT, "  %-22s %9s %7s %9s %8s %8s %8s %8s %8s %8s%n",
+                "", "total", "erros", "por s", "média", "p50", "p90", "p99", "p99.9", "máx"));
+        for (Linha l : linhas) {
+            if (l.media() == null) {
+                saida.append(String.format(Locale.ROOT, "  %-22s %9d %7d %9.1f%n",
+                        l.nome(), l.total(), l.erros(), l.vazao()));
+            } else {
+                saida.append(String.format(Locale.ROOT, "  %-22s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                        l.nome(), l.total(), l.erros(), l.vazao(), l.media(), l.p50(), l.p90(), l.p99(), l.p999(), l.maximo()));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.contatos.benchmark.carga;
+
+import br.com.contatos.servlet.ClienteServlet;
+import br.com.contatos.servlet.ContatoServlet;
+import br.com.contatos.servlet.EventosServlet;
+import br.com.contatos.servlet.ExportacaoServlet;
+import br.com.contatos.servlet.ImportacaoClienteServlet;
+import br.com.contatos.servlet.MetricasServlet;
+import br.com.contatos.servlet.StatusServlet;
+import br.com.contatos.util.AdmissaoFilter;
+import br.com.contatos.util.AplicacaoListener;
+import br.com.contatos.util.CompressaoFilter;
+import br.com.contatos.util.ConsistenciaLeituraFilter;
+import br.com.contatos.util.CorsFilter;
+import br.com.contatos.util.MetricasFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletContainerInitializer;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRegistration;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tomcat embutido com a aplicação do backend no contexto raiz, como no WAR: o mesmo listener,
+ * os mesmos filtros e servlets, com os mapeamentos lidos das anotações @WebServlet/@WebFilter
+ * de cada classe (assim o teste de carga acompanha o que está no código).
+ * <p>
+ * O registro é explícito em vez da varredura de anotações do Tomcat, que não olha as classes
+ * de um jar no classpath; os filtros entram na ordem da lista, a mesma do WEB-INF/web.xml do backend.
+ */
+final class ServidorEmbutido implements AutoCloseable {
+
+    private static final List<Class<? extends Filter>> FILTROS = List.of(
+            CorsFilter.class, MetricasFilter.class, AdmissaoFilter.class, ConsistenciaLeituraFilter.class,
+            CompressaoFilter.class);
+
+    private static final List<Class<? extends HttpServlet>> SERVLETS = List.of(
+            ClienteServlet.class, ContatoServlet.class, ImportacaoClienteServlet.class, ExportacaoServlet.class,
+            EventosServlet.class, StatusServlet.class, MetricasServlet.class);
+
+    private final Tomcat tomcat;
+
+    private ServidorEmbutido(Tomcat tomcat) {
+        this.tomcat = tomcat;
+    }
+
+    /**
+     * Sobe o Tomcat na porta indicada (0 = uma porta livre qualquer). O AplicacaoListener roda
+     * antes do retorno, então o pool, o índice de busca ou o armazenamento em memória já estão prontos.
+     */
+    static ServidorEmbutido iniciar(int porta) throws IOException, LifecycleException {
+        File base = Files.createTempDirectory("agenda-carga").toFile();
+        base.deleteOnExit();
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(base.getAbsolutePath());
+        tomcat.setPort(porta);
+        tomcat.getConnector();
+
+        Context contexto = tomcat.addContext("", base.getAbsolutePath());
+        contexto.addServletContainerInitializer(new RegistroAplicacao(), null);
+
+        tomcat.start();
+        return new ServidorEmbutido(tomcat);
+    }
+
+    /**
+     * URL base da aplicação, sem a barra final (ex.: http://localhost:41235).
+     */
+    String url() {
+        return "http://localhost:" + tomcat.getConnector().getLocalPort();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    /**
+     * Faz na subida do contexto o que o Tomcat faria com as anotações do WAR.
+     */
+    private static final class RegistroAplicacao implements ServletContainerInitializer {
+
+        @Override
+        public void onStartup(Set<Class<?>> classes, ServletContext contexto) {
+            contexto.addListener(AplicacaoListener.class);
+
+            for (Class<? extends Filter> filtro : FILTROS) {
+                WebFilter anotacao = filtro.getAnnotation(WebFilter.class);
+                FilterRegistration.Dynamic registro = contexto.addFilter(filtro.getName(), filtro);
+                registro.setAsyncSupported(anotacao.asyncSupported());
+                String[] padroes = anotacao.urlPatterns().length > 0 ? anotacao.urlPatterns() : anotacao.value();
+                registro.addMappingForUrlPatterns(
+                        EnumSet.copyOf(Arrays.asList(anotacao.dispatcherTypes().length > 0
+                                ? anotacao.dispatcherTypes() : new DispatcherType[]{DispatcherType.REQUEST})),
+                        true, padroes);
+            }
+
+            for (Class<? extends HttpServlet> servlet : SERVLETS) {
+                WebServlet anotacao = servlet.getAnnotation(WebServlet.class);
+                ServletRegistration.Dynamic registro = contexto.addServlet(servlet.getName(), servlet);
+                registro.setAsyncSupported(anotacao.asyncSupported());
+                registro.setLoadOnStartup(anotacao.loadOnStartup());
+                registro.addMapping(anotacao.urlPatterns().length > 0 ? anotacao.urlPatterns() : anotacao.value());
+                MultipartConfig multipart = servlet.getAnnotation(MultipartConfig.class);
+                if (multipart != null) {
+                    registro.setMultipartConfig(new MultipartConfigElement(multipart));
+                }
+            }
+        }
+    }
+}
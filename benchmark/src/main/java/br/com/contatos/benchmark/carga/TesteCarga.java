@@ -0,0 +1,325 @@
+package br.com.contatos.benchmark.carga;
+
+import br.com.contatos.benchmark.BancoEmbutido;
+import br.com.contatos.dao.ClienteRepositorio;
+import br.com.contatos.dao.ContatoRepositorio;
+import br.com.contatos.dao.Repositorios;
+import br.com.contatos.model.Cliente;
+import br.com.contatos.model.Contato;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga de ponta a ponta: sobe os servlets num Tomcat embutido ({@link ServidorEmbutido})
+ * sobre um H2 em memória (ou o armazenamento em memória), carrega a base e dispara uma mistura de
+ * ações do frontend ({@link Cenario}) durante um tempo fixo, depois de um aquecimento.
+ * <p>
+ * Dois modos de gerar carga:
+ * <ul>
+ *   <li>fechado (padrão): {@code --concorrencia} usuários, cada um começa a próxima ação quando a
+ *       anterior termina (mais {@code --pausaMs}). Mede a vazão máxima com N usuários.</li>
+ *   <li>aberto ({@code --taxa=ações por segundo}): as ações chegam num ritmo fixo, termine o servidor
+ *       a tempo ou não. A latência da ação conta desde o instante previsto de chegada, então a fila
+ *       que se forma quando o servidor satura aparece nos percentis em vez de sumir da medição.</li>
+ * </ul>
+ * Opções ({@code --chave=valor}):
+ * <pre>
+ *   --armazenamento=jdbc|memoria   H2 em modo MySQL (padrão) ou agenda.armazenamento=memoria
+ *   --clientes=10000               tamanho da base (ids 1..N); --contatosPorCliente=2
+ *   --mix=listar=40,buscar=30,contatos=20,crud=10   peso de cada cenário
+ *   --concorrencia=32 | --taxa=500 [--maxPendentes=10000]
+ *   --aquecimento=10 --duracao=60  em segundos
+ *   --pausaMs=0 --intervaloTeclaMs=0 --timeoutMs=10000 --gzip=false
+ *   --url=http://host:8080/contexto  usa um servidor já no ar (a base precisa ter os ids 1..--clientes)
+ *   --saida=target/carga-resultado.json
+ *   --taxaErroMaxima=0.01          sai com código 1 se a taxa de erro das ações passar disso
+ * </pre>
+ * A configuração da aplicação (pool, caches, executor) vem como sempre de agenda.properties ou de
+ * -Dagenda.*=... na linha de comando, para comparar ajustes com a mesma carga.
+ * <p>
+ * Exemplo: {@code java -cp benchmark/target/benchmarks.jar br.com.contatos.benchmark.carga.TesteCarga --clientes=100000 --taxa=800 --duracao=120}
+ */
+public final class TesteCarga {
+
+    private static final Map<String, String> PADROES = padroes();
+
+    private TesteCarga() { }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args);
+        int clientes = Integer.parseInt(opcoes.get("clientes"));
+        int contatosPorCliente = Integer.parseInt(opcoes.get("contatosPorCliente"));
+        String url = opcoes.get("url");
+
+        ServidorEmbutido servidor = null;
+        if (url.isEmpty()) {
+            servidor = subirServidor(opcoes.get("armazenamento"), clientes, contatosPorCliente);
+            url = servidor.url();
+        }
+
+        ResultadoCarga resultado = new ResultadoCarga();
+        try {
+            ClienteApi api = new ClienteApi(url, resultado,
+                    Duration.ofMillis(Long.parseLong(opcoes.get("timeoutMs"))), Boolean.parseBoolean(opcoes.get("gzip")));
+            // CPFs novos começam em 9 e não se repetem entre execuções contra o mesmo servidor
+            Cenario.Contexto contexto = new Cenario.Contexto(api, clientes,
+                    Long.parseLong(opcoes.get("intervaloTeclaMs")), new AtomicLong(System.currentTimeMillis() % 1_000_000_000L * 10));
+
+            executar(opcoes, contexto, resultado);
+        } finally {
+            if (servidor != null) {
+                servidor.close();
+            }
+        }
+
+        Map<String, Object> parametros = new LinkedHashMap<>(opcoes);
+        parametros.put("url", url);
+        ResultadoCarga.Resumo resumo = resultado.resumir(parametros);
+        System.out.println(ResultadoCarga.formatar(resumo));
+
+        Path saida = Path.of(opcoes.get("saida"));
+        if (saida.getParent() != null) {
+            Files.createDirectories(saida.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(saida, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(resumo, writer);
+        }
+        System.out.println("Resultado gravado em " + saida.toAbsolutePath());
+
+        double taxaErroMaxima = Double.parseDouble(opcoes.get("taxaErroMaxima"));
+        long acoes = 0;
+        long erros = resumo.acoesDescartadas();
+        for (ResultadoCarga.Linha linha : resumo.acoes()) {
+            if (!linha.nome().equals("(total)")) {
+                acoes += linha.total();
+                erros += linha.erros();
+            }
+        }
+        if (acoes + resumo.acoesDescartadas() == 0 || erros / (double) (acoes + resumo.acoesDescartadas()) > taxaErroMaxima) {
+            System.err.printf("Taxa de erro acima de %s (%d de %d ações)%n",
+                    opcoes.get("taxaErroMaxima"), erros, acoes + resumo.acoesDescartadas());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Prepara a base e sobe o Tomcat. As propriedades agenda.* precisam estar definidas antes
+     * do primeiro uso das classes do backend, que as leem na inicialização.
+     */
+    private static ServidorEmbutido subirServidor(String armazenamento, int clientes, int contatosPorCliente)
+            throws Exception {
+        System.out.printf("Preparando %d clientes com %d contatos cada (%s)...%n", clientes, contatosPorCliente, armazenamento);
+        switch (armazenamento) {
+            case Repositorios.JDBC -> {
+                // O BancoEmbutido aplica as migrações; na subida o listener só confere que estão em dia
+                BancoEmbutido.preparar(clientes, contatosPorCliente);
+                return ServidorEmbutido.iniciar(0);
+            }
+            case Repositorios.MEMORIA -> {
+                System.setProperty("agenda.armazenamento", Repositorios.MEMORIA);
+                System.setProperty("agenda.memoria.snapshot", "");
+                ServidorEmbutido servidor = ServidorEmbutido.iniciar(0);
+                popularMemoria(clientes, contatosPorCliente);
+                return servidor;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Valor inválido para --armazenamento: " + armazenamento + " (use jdbc ou memoria)");
+        }
+    }
+
+    /**
+     * Os mesmos clientes do {@link BancoEmbutido}, gravados pelos repositórios: os ids saem 1..N na ordem.
+     */
+    private static void popularMemoria(int clientes, int contatosPorCliente) throws Exception {
+        ClienteRepositorio clienteRepositorio = Repositorios.clientes();
+        ContatoRepositorio contatoRepositorio = Repositorios.contatos();
+        Random random = new Random(42);
+        for (int id = 1; id <= clientes; id++) {
+            Cliente cliente = clienteRepositorio.salvar(new Cliente(BancoEmbutido.nome(id), BancoEmbutido.cpf(id),
+                    LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)), "Rua " + (id % 500) + ", " + id));
+            for (int c = 0; c < contatosPorCliente; c++) {
+                boolean email = c % 3 == 0;
+                contatoRepositorio.salvar(new Contato(cliente.id(), email ? "Email" : (c % 3 == 1 ? "Telefone" : "Celular"),
+                        email ? "cliente" + id + "@exemplo.com" : "119" + String.format("%08d", id), null));
+            }
+        }
+    }
+
+    private static void executar(Map<String, String> opcoes, Cenario.Contexto contexto, ResultadoCarga resultado)
+            throws InterruptedException {
+        Cenario[] sorteio = sorteio(opcoes.get("mix"));
+        long aquecimentoS = Long.parseLong(opcoes.get("aquecimento"));
+        long duracaoS = Long.parseLong(opcoes.get("duracao"));
+        double taxa = Double.parseDouble(opcoes.get("taxa"));
+        long pausaMs = Long.parseLong(opcoes.get("pausaMs"));
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(aquecimentoS + duracaoS);
+
+        ExecutorService usuarios = Executors.newVirtualThreadPerTaskExecutor();
+        Thread gerador;
+        if (taxa > 0) {
+            int maxPendentes = Integer.parseInt(opcoes.get("maxPendentes"));
+            System.out.printf("Carga aberta: %.1f ações/s por %d s (+%d s de aquecimento)%n", taxa, duracaoS, aquecimentoS);
+            gerador = Thread.ofPlatform().name("agenda-carga-chegadas").start(
+                    () -> gerarChegadas(contexto, resultado, sorteio, taxa, maxPendentes, fim, usuarios));
+        } else {
+            int concorrencia = Integer.parseInt(opcoes.get("concorrencia"));
+            System.out.printf("Carga fechada: %d usuários por %d s (+%d s de aquecimento)%n", concorrencia, duracaoS, aquecimentoS);
+            for (int i = 0; i < concorrencia; i++) {
+                usuarios.submit(() -> usuario(contexto, resultado, sorteio, pausaMs, fim));
+            }
+            gerador = null;
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(aquecimentoS));
+        resultado.iniciarMedicao();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(duracaoS));
+        resultado.encerrarMedicao();
+
+        if (gerador != null) {
+            gerador.join();
+        }
+        usuarios.shutdown();
+        if (!usuarios.awaitTermination(Long.parseLong(opcoes.get("timeoutMs")) * 2, TimeUnit.MILLISECONDS)) {
+            usuarios.shutdownNow();
+        }
+    }
+
+    /**
+     * Um usuário da carga fechada: uma ação atrás da outra até o fim do teste.
+     */
+    private static void usuario(Cenario.Contexto contexto, ResultadoCarga resultado, Cenario[] sorteio,
+                                long pausaMs, long fim) {
+        Random random = ThreadLocalRandom.current();
+        try {
+            while (System.nanoTime() < fim) {
+                acao(contexto, resultado, sorteio[random.nextInt(sorteio.length)], random, System.nanoTime());
+                if (pausaMs > 0) {
+                    Thread.sleep(pausaMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Chegadas da carga aberta em intervalos fixos de 1/taxa. Se o servidor não acompanha e já há
+     * maxPendentes ações em andamento, a chegada é descartada e contada, para o gerador não esgotar a memória.
+     */
+    private static void gerarChegadas(Cenario.Contexto contexto, ResultadoCarga resultado, Cenario[] sorteio,
+                                      double taxa, int maxPendentes, long fim, ExecutorService usuarios) {
+        AtomicInteger pendentes = new AtomicInteger();
+        double intervaloNanos = 1e9 / taxa;
+        long inicio = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long prevista = inicio + (long) (i * intervaloNanos);
+            if (prevista >= fim) {
+                return;
+            }
+            long espera = prevista - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            if (pendentes.get() >= maxPendentes) {
+                resultado.registrarDescarte();
+                continue;
+            }
+            Cenario cenario = sorteio[ThreadLocalRandom.current().nextInt(sorteio.length)];
+            pendentes.incrementAndGet();
+            usuarios.submit(() -> {
+                try {
+                    acao(contexto, resultado, cenario, ThreadLocalRandom.current(), prevista);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    pendentes.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static void acao(Cenario.Contexto contexto, ResultadoCarga resultado, Cenario cenario,
+                             Random random, long inicioNanos) throws InterruptedException {
+        String erro = null;
+        try {
+            cenario.executar(contexto, random);
+        } catch (IOException | RuntimeException e) {
+            erro = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        resultado.registrarAcao(cenario.nome(), System.nanoTime() - inicioNanos, erro);
+    }
+
+    /**
+     * Tabela de sorteio com cada cenário repetido pelo seu peso (ex.: listar=40 entra 40 vezes).
+     */
+    private static Cenario[] sorteio(String mix) {
+        List<Cenario> tabela = new ArrayList<>();
+        for (String item : mix.split(",")) {
+            String[] partes = item.trim().split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Item inválido em --mix: '" + item + "' (use cenario=peso)");
+            }
+            Cenario cenario = Cenario.porNome(partes[0].trim());
+            for (int i = Integer.parseInt(partes[1].trim()); i > 0; i--) {
+                tabela.add(cenario);
+            }
+        }
+        if (tabela.isEmpty()) {
+            throw new IllegalArgumentException("--mix sem nenhum cenário com peso maior que zero");
+        }
+        return tabela.toArray(new Cenario[0]);
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new LinkedHashMap<>(PADROES);
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0 || !PADROES.containsKey(arg.substring(2, igual))) {
+                throw new IllegalArgumentException("Opção inválida: " + arg + " (opções: " + PADROES.keySet() + ")");
+            }
+            opcoes.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        return opcoes;
+    }
+
+    private static Map<String, String> padroes() {
+        Map<String, String> padroes = new LinkedHashMap<>();
+        padroes.put("armazenamento", Repositorios.JDBC);
+        padroes.put("clientes", "10000");
+        padroes.put("contatosPorCliente", "2");
+        padroes.put("mix", "listar=40,buscar=30,contatos=20,crud=10");
+        padroes.put("concorrencia", "32");
+        padroes.put("taxa", "0");
+        padroes.put("maxPendentes", "10000");
+        padroes.put("aquecimento", "10");
+        padroes.put("duracao", "60");
+        padroes.put("pausaMs", "0");
+        padroes.put("intervaloTeclaMs", "0");
+        padroes.put("timeoutMs", "10000");
+        padroes.put("gzip", "false");
+        padroes.put("url", "");
+        padroes.put("saida", "target/carga-resultado.json");
+        padroes.put("taxaErroMaxima", "0.01");
+        return padroes;
+    }
+}
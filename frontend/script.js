@@ -4,6 +4,31 @@ document.addEventListener('DOMContentLoaded', () => {
     const API_CLIENTES_URL = `${API_BASE_URL}/clientes`;
     const API_CONTATOS_URL = `${API_BASE_URL}/contatos`;
 
+    // Token da última escrita (cabeçalho X-Agenda-Escrita, assinado pelo servidor), reenviado nas leituras dos segundos
+    // seguintes: com réplicas de leitura no backend, elas vão ao primário e já veem a alteração
+    const JANELA_LER_ESCRITAS_MS = 10000;
+    let ultimaEscrita = null;
+    // Servidor sobrecarregado (503 + Retry-After): uma leitura tenta de novo uma vez, depois da pausa pedida
+    const ESPERA_MAXIMA_NOVA_TENTATIVA_S = 5;
+    const chamarApi = async (url, opcoes = {}, novaTentativa = true) => {
+        const headers = new Headers(opcoes.headers || {});
+        if (ultimaEscrita && Date.now() - ultimaEscrita.recebidaEm < JANELA_LER_ESCRITAS_MS) {
+            headers.set('X-Agenda-Escrita', ultimaEscrita.valor);
+        }
+        const response = await fetch(url, { ...opcoes, headers });
+        const escrita = response.headers.get('X-Agenda-Escrita');
+        if (escrita) ultimaEscrita = { valor: escrita, recebidaEm: Date.now() };
+
+        const leitura = !opcoes.method || opcoes.method === 'GET';
+        const retryAfter = Number(response.headers.get('Retry-After'));
+        if (response.status === 503 && leitura && novaTentativa && retryAfter > 0) {
+            const esperaS = Math.min(retryAfter, ESPERA_MAXIMA_NOVA_TENTATIVA_S);
+            await new Promise(resolve => setTimeout(resolve, esperaS * 1000));
+            return chamarApi(url, opcoes, false);
+        }
+        return response;
+    };
+
     // --- SELETORES DO DOM ---
     const gestaoClientes = document.getElementById('gestaoClientes');
     const gestaoContatos = document.getElementById('gestaoContatos');
@@ -31,6 +56,7 @@ document.addEventListener('DOMContentLoaded', () => {
     // Lista Cliente
     const buscaClienteInput = document.getElementById('buscaCliente');
     const tabelaClientesBody = document.getElementById('tabelaClientes').querySelector('tbody');
+    const btnCarregarMais = document.getElementById('btnCarregarMais');
 
     // Formulário Contato
     const formContato = document.getElementById('formContato');
@@ -51,63 +77,91 @@ document.addEventListener('DOMContentLoaded', () => {
     let clienteVisaoContatosId = null;
     let contatosAtuais = []; // Armazena os contatos da visão atual (para edição)
     let buscaDebounceTimer; // Para o timer da busca
+    let proximoCursorClientes = null; // Cursor da próxima página de clientes (null = fim da lista)
+    const clientesNaTabela = new Map(); // id -> cliente exibido (com totalContatos), atualizado pelo feed
+    let feedConectado = false; // Com o feed de eventos ativo, as alterações chegam por ele (sem recarregar a lista)
 
     // --- FUNÇÕES DE RENDERIZAÇÃO (UI) ---
 
     /**
-     * RF04/RF05: Renderiza a tabela de clientes
+     * RF04/RF05: Renderiza a tabela de clientes (primeira página)
      */
     const renderizarClientes = async () => {
         tabelaClientesBody.innerHTML = '';
-        let clientes = [];
+        clientesNaTabela.clear();
+        proximoCursorClientes = null;
+        await carregarPaginaClientes();
+    };
+
+    /**
+     * Busca a próxima página de clientes (?after=cursor) e acrescenta à tabela
+     */
+    const carregarPaginaClientes = async () => {
+        let pagina;
         
         const termoBusca = buscaClienteInput.value;
-        let url = API_CLIENTES_URL;
+        const params = new URLSearchParams({ incluirContagem: 'true' });
 
         if (termoBusca) { // RF05
-            url = `${API_CLIENTES_URL}?busca=${encodeURIComponent(termoBusca)}`;
+            params.set('busca', termoBusca);
         }
+        if (proximoCursorClientes) {
+            params.set('after', proximoCursorClientes);
+        }
+        const url = `${API_CLIENTES_URL}?${params}`;
 
         try {
-            const response = await fetch(url);
+            const response = await chamarApi(url);
             if (!response.ok) {
                 throw new Error(`Erro na API: ${response.status} - ${response.statusText}`);
             }
-            clientes = await response.json();
+            pagina = await response.json();
         } catch (error) {
             console.error("Falha ao buscar clientes:", error);
             tabelaClientesBody.innerHTML = `<tr><td colspan="5" style="text-align: center; color: red;">Erro ao carregar clientes. O back-end está rodando?</td></tr>`;
+            btnCarregarMais.classList.add('hidden');
             return;
         }
+
+        const clientes = pagina.itens;
+        proximoCursorClientes = pagina.proximoCursor || null;
+        btnCarregarMais.classList.toggle('hidden', !proximoCursorClientes);
         
-        if (clientes.length === 0) {
+        if (clientes.length === 0 && tabelaClientesBody.children.length === 0) {
              tabelaClientesBody.innerHTML = `<tr><td colspan="5" style="text-align: center;">Nenhum cliente encontrado.</td></tr>`;
             return;
         }
 
         clientes.forEach(cliente => {
-            const tr = document.createElement('tr');
-            // Formata o CPF para exibição (assumindo que veio limpo do banco)
-            const cpfFormatado = cliente.cpf.replace(/(\d{3})(\d{3})(\d{3})(\d{2})/, '$1.$2.$3-$4');
-            
-            tr.innerHTML = `
-                <td>${cliente.nome}</td>
-                <td>${cpfFormatado}</td>
-                <td>${formatarData(cliente.dataNascimento)}</td>
-                <td>${cliente.endereco || ''}</td>
-                <td class="acoes">
-                    <button class="btn-contacts" data-id="${cliente.id}">Contatos</button>
-                    <button class="btn-edit" data-id="${cliente.id}">Editar</button>
-                    <button class="btn-delete" data-id="${cliente.id}">Excluir</button>
-                </td>
-            `;
-            // TODO: Atualizar a contagem de contatos. Isso exigiria uma mudança no back-end
-            // para o GET /api/clientes retornar a contagem, o que é mais complexo (N+1 queries).
-            // Por enquanto, o botão não mostra contagem.
-            tabelaClientesBody.appendChild(tr);
+            // A contagem vem do próprio GET /api/clientes?incluirContagem=true (uma consulta por página)
+            clientesNaTabela.set(cliente.id, cliente);
+            tabelaClientesBody.appendChild(criarLinhaCliente(cliente));
         });
     };
 
+    /**
+     * Monta a linha <tr> de um cliente (data-id identifica a linha para as alterações do feed)
+     */
+    const criarLinhaCliente = (cliente) => {
+        const tr = document.createElement('tr');
+        tr.dataset.id = cliente.id;
+        // Formata o CPF para exibição (assumindo que veio limpo do banco)
+        const cpfFormatado = cliente.cpf.replace(/(\d{3})(\d{3})(\d{3})(\d{2})/, '$1.$2.$3-$4');
+
+        tr.innerHTML = `
+            <td>${cliente.nome}</td>
+            <td>${cpfFormatado}</td>
+            <td>${formatarData(cliente.dataNascimento)}</td>
+            <td>${cliente.endereco || ''}</td>
+            <td class="acoes">
+                <button class="btn-contacts" data-id="${cliente.id}">Contatos (${cliente.totalContatos ?? 0})</button>
+                <button class="btn-edit" data-id="${cliente.id}">Editar</button>
+                <button class="btn-delete" data-id="${cliente.id}">Excluir</button>
+            </td>
+        `;
+        return tr;
+    };
+
     
     /**
      * RF09: Renderiza a tabela de contatos
@@ -119,7 +173,7 @@ document.addEventListener('DOMContentLoaded', () => {
         
         try {
             // Chama a API: GET /api/contatos?clienteId=123
-            const response = await fetch(`${API_CONTATOS_URL}?clienteId=${clienteVisaoContatosId}`);
+            const response = await chamarApi(`${API_CONTATOS_URL}?clienteId=${clienteVisaoContatosId}`);
             if (!response.ok) {
                 throw new Error(`Erro na API: ${response.statusText}`);
             }
@@ -137,20 +191,150 @@ document.addEventListener('DOMContentLoaded', () => {
         }
 
         contatosAtuais.forEach(contato => {
-            const tr = document.createElement('tr');
-            tr.innerHTML = `
-                <td>${contato.tipo}</td>
-                <td>${contato.valor}</td>
-                <td>${contato.observacao || ''}</td>
-                <td class="acoes">
-                    <button class="btn-edit" data-id="${contato.id}">Editar</button>
-                    <button class="btn-delete" data-id="${contato.id}">Excluir</button>
-                </td>
-            `;
-            tabelaContatosBody.appendChild(tr);
+            tabelaContatosBody.appendChild(criarLinhaContato(contato));
         });
     };
 
+    /**
+     * Monta a linha <tr> de um contato
+     */
+    const criarLinhaContato = (contato) => {
+        const tr = document.createElement('tr');
+        tr.dataset.id = contato.id;
+        tr.innerHTML = `
+            <td>${contato.tipo}</td>
+            <td>${contato.valor}</td>
+            <td>${contato.observacao || ''}</td>
+            <td class="acoes">
+                <button class="btn-edit" data-id="${contato.id}">Editar</button>
+                <button class="btn-delete" data-id="${contato.id}">Excluir</button>
+            </td>
+        `;
+        return tr;
+    };
+
+    // --- FEED DE ALTERAÇÕES (SSE) ---
+
+    /**
+     * GET /api/eventos: cada criação, edição ou exclusão (nossa ou de outro operador) chega como um evento
+     * e é aplicada só na linha afetada. O EventSource reconecta sozinho, continuando do último evento.
+     */
+    const conectarFeed = () => {
+        if (!window.EventSource) return; // Sem SSE: continua recarregando a lista após cada operação
+        const fonte = new EventSource(`${API_BASE_URL}/eventos`);
+        fonte.onopen = () => { feedConectado = true; };
+        fonte.onerror = () => { feedConectado = false; };
+        fonte.addEventListener('alteracao', (e) => aplicarAlteracao(JSON.parse(e.data)));
+    };
+
+    const aplicarAlteracao = (evento) => {
+        if (evento.tipo === 'recarregar') {
+            renderizarClientes();
+            if (clienteVisaoContatosId !== null) renderizarContatos();
+        } else if (evento.entidade === 'cliente') {
+            aplicarAlteracaoCliente(evento.tipo, evento.registro);
+        } else if (evento.entidade === 'contato') {
+            aplicarAlteracaoContato(evento.tipo, evento.registro);
+        }
+    };
+
+    const aplicarAlteracaoCliente = (tipo, cliente) => {
+        if (buscaClienteInput.value) {
+            // Com busca ativa, só o servidor sabe se o cliente entra no resultado (RF05)
+            clearTimeout(buscaDebounceTimer);
+            buscaDebounceTimer = setTimeout(renderizarClientes, 300);
+            return;
+        }
+
+        const anterior = clientesNaTabela.get(cliente.id);
+        removerLinha(tabelaClientesBody, cliente.id);
+        clientesNaTabela.delete(cliente.id);
+
+        if (tipo === 'excluido') {
+            if (clienteVisaoContatosId === cliente.id) {
+                btnVoltarClientes.click(); // O cliente (e seus contatos, RN07) não existe mais
+            }
+            if (clientesNaTabela.size === 0 && !proximoCursorClientes) {
+                tabelaClientesBody.innerHTML = `<tr><td colspan="5" style="text-align: center;">Nenhum cliente encontrado.</td></tr>`;
+            }
+            return;
+        }
+
+        if (clienteVisaoContatosId === cliente.id) {
+            nomeClienteContatos.textContent = cliente.nome;
+        }
+        if (anterior || tipo === 'criado') {
+            // Cliente recém-criado ainda não tem contatos
+            inserirClienteOrdenado({ ...cliente, totalContatos: anterior ? anterior.totalContatos : 0 });
+        } else {
+            // Editado e agora dentro do trecho carregado (ex.: renomeado): a contagem vem do servidor
+            inserirClienteComContagem(cliente.id);
+        }
+    };
+
+    const inserirClienteComContagem = async (id) => {
+        try {
+            const response = await chamarApi(`${API_CLIENTES_URL}/${id}?incluirContagem=true`);
+            if (!response.ok) return; // Excluído nesse meio-tempo: o evento de exclusão cuida do resto
+            const cliente = await response.json();
+            if (clientesNaTabela.has(cliente.id)) return; // Outro evento já o inseriu
+            inserirClienteOrdenado(cliente);
+        } catch (error) {
+            console.error('Erro ao buscar cliente alterado:', error);
+        }
+    };
+
+    /**
+     * Insere na posição da ordenação do servidor (nome, id). Se cair depois da última linha carregada
+     * e ainda houver páginas, fica de fora: aparece quando a página dele for carregada.
+     */
+    const inserirClienteOrdenado = (cliente) => {
+        const linhas = [...tabelaClientesBody.querySelectorAll('tr[data-id]')];
+        tabelaClientesBody.querySelectorAll('tr:not([data-id])').forEach(tr => tr.remove()); // "Nenhum cliente"
+        const posterior = linhas.find(tr => compararClientes(clientesNaTabela.get(parseInt(tr.dataset.id)), cliente) > 0);
+        if (!posterior && proximoCursorClientes) return;
+
+        clientesNaTabela.set(cliente.id, cliente);
+        tabelaClientesBody.insertBefore(criarLinhaCliente(cliente), posterior || null);
+    };
+
+    const compararClientes = (a, b) =>
+        a.nome.localeCompare(b.nome, 'pt-BR', { sensitivity: 'base' }) || a.id - b.id;
+
+    const aplicarAlteracaoContato = (tipo, contato) => {
+        // Contador "Contatos (n)" da linha do cliente
+        const cliente = clientesNaTabela.get(contato.clienteId);
+        if (cliente && tipo !== 'atualizado') {
+            cliente.totalContatos = Math.max(0, (cliente.totalContatos ?? 0) + (tipo === 'criado' ? 1 : -1));
+            const botao = tabelaClientesBody.querySelector(`tr[data-id="${cliente.id}"] .btn-contacts`);
+            if (botao) botao.textContent = `Contatos (${cliente.totalContatos})`;
+        }
+
+        if (clienteVisaoContatosId !== contato.clienteId) return;
+
+        tabelaContatosBody.querySelectorAll('tr:not([data-id])').forEach(tr => tr.remove()); // "Nenhum contato"
+        const indice = contatosAtuais.findIndex(c => c.id === contato.id);
+        if (tipo === 'excluido') {
+            if (indice >= 0) contatosAtuais.splice(indice, 1);
+            removerLinha(tabelaContatosBody, contato.id);
+            if (contatosAtuais.length === 0) {
+                tabelaContatosBody.innerHTML = `<tr><td colspan="4" style="text-align: center;">Nenhum contato cadastrado.</td></tr>`;
+            }
+        } else if (indice >= 0) {
+            contatosAtuais[indice] = contato;
+            const linha = tabelaContatosBody.querySelector(`tr[data-id="${contato.id}"]`);
+            if (linha) linha.replaceWith(criarLinhaContato(contato));
+        } else {
+            contatosAtuais.push(contato);
+            tabelaContatosBody.appendChild(criarLinhaContato(contato));
+        }
+    };
+
+    const removerLinha = (tbody, id) => {
+        const linha = tbody.querySelector(`tr[data-id="${id}"]`);
+        if (linha) linha.remove();
+    };
+
     // --- LÓGICA DE CLIENTES ---
 
     /**
@@ -197,7 +381,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 method = 'PUT';
             }
             
-            response = await fetch(url, {
+            response = await chamarApi(url, {
                 method: method,
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify(clienteData)
@@ -218,7 +402,7 @@ document.addEventListener('DOMContentLoaded', () => {
             alert(`Erro ao salvar: ${error.message}`); // Exibe a mensagem de erro (ex: CPF duplicado)
         }
 
-        renderizarClientes();
+        if (!feedConectado) renderizarClientes(); // Com o feed, a alteração chega como evento
         resetarFormularioCliente();
     });
 
@@ -232,6 +416,8 @@ document.addEventListener('DOMContentLoaded', () => {
         }, 300);
     });
 
+    btnCarregarMais.addEventListener('click', carregarPaginaClientes);
+
     /**
      * Listener para botões de Ação da Tabela (Editar, Excluir, Contatos)
      */
@@ -257,7 +443,7 @@ document.addEventListener('DOMContentLoaded', () => {
      */
     const prepararEdicaoCliente = async (id) => {
         try {
-            const response = await fetch(`${API_CLIENTES_URL}/${id}`);
+            const response = await chamarApi(`${API_CLIENTES_URL}/${id}`);
             if (!response.ok) {
                 throw new Error(`Erro ao buscar cliente: ${response.statusText}`);
             }
@@ -289,7 +475,7 @@ document.addEventListener('DOMContentLoaded', () => {
         }
 
         try {
-            const response = await fetch(`${API_CLIENTES_URL}/${id}`, {
+            const response = await chamarApi(`${API_CLIENTES_URL}/${id}`, {
                 method: 'DELETE'
             });
 
@@ -306,7 +492,7 @@ document.addEventListener('DOMContentLoaded', () => {
             alert(`Erro ao excluir: ${error.message}`);
         }
 
-        renderizarClientes();
+        if (!feedConectado) renderizarClientes();
     };
 
 
@@ -327,7 +513,7 @@ document.addEventListener('DOMContentLoaded', () => {
      */
     const mostrarGestaoContatos = async (clienteId) => {
         try {
-            const response = await fetch(`${API_CLIENTES_URL}/${clienteId}`);
+            const response = await chamarApi(`${API_CLIENTES_URL}/${clienteId}`);
             const cliente = await response.json();
             nomeClienteContatos.textContent = cliente.nome;
             
@@ -345,7 +531,7 @@ document.addEventListener('DOMContentLoaded', () => {
         clienteVisaoContatosId = null;
         gestaoContatos.classList.add('hidden');
         gestaoClientes.classList.remove('hidden');
-        renderizarClientes();
+        if (!feedConectado) renderizarClientes(); // Com o feed, a lista já está em dia
     });
 
     /**
@@ -382,7 +568,7 @@ document.addEventListener('DOMContentLoaded', () => {
         }
 
         try {
-            const response = await fetch(url, {
+            const response = await chamarApi(url, {
                 method: method,
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify(contatoData)
@@ -400,7 +586,7 @@ document.addEventListener('DOMContentLoaded', () => {
             alert(`Erro ao salvar: ${error.message}`);
         }
         
-        renderizarContatos(); // Recarrega a lista de contatos
+        if (!feedConectado) renderizarContatos(); // Sem o feed, recarrega a lista de contatos
         resetarFormularioContato();
     });
     
@@ -461,7 +647,7 @@ document.addEventListener('DOMContentLoaded', () => {
         }
 
         try {
-            const response = await fetch(`${API_CONTATOS_URL}/${id}`, {
+            const response = await chamarApi(`${API_CONTATOS_URL}/${id}`, {
                 method: 'DELETE'
             });
 
@@ -477,7 +663,7 @@ document.addEventListener('DOMContentLoaded', () => {
             alert(`Erro ao excluir: ${error.message}`);
         }
 
-        renderizarContatos(); // Recarrega a lista
+        if (!feedConectado) renderizarContatos(); // Sem o feed, recarrega a lista
     };
 
 
@@ -519,4 +705,5 @@ document.addEventListener('DOMContentLoaded', () => {
     
     // --- INICIALIZAÇÃO ---
     renderizarClientes();
+    conectarFeed();
 });